@@ -1,6 +1,8 @@
 package com.ndepend.inspections;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 
 
@@ -8,14 +10,45 @@ public class FillInspectionsModel {
 
 
     public static InspectionsExport Go(XmlElement xmlElement) throws ModelException {
+        XmlParseMetrics metrics = XmlInstrumentation.Start(XmlParseMetrics.Phase.Fill);
         InspectionsExport inspectionsExport = GetInspectionsExport(xmlElement);
         if(inspectionsExport == null) {
             throw new ModelException(xmlElement, new String[] { TAG_InspectionsExport});
         }
 
+        if (metrics != null) {
+            XmlInstrumentation.End(metrics);
+        }
         return inspectionsExport;
     }
 
+    // Fill the model straight from the parser events, no XmlElement hierarchy is built
+    public static InspectionsExport Go(XmlPullParser parser) throws XmlException, ModelException {
+        return Go(parser, XmlParseLimits.NONE);
+    }
+
+    public static InspectionsExport Go(XmlPullParser parser, XmlParseLimits limits) throws XmlException, ModelException {
+        Binder binder = new Binder();
+        XmlEventDispatcher.Go(parser, binder, limits);
+        return binder.inspectionsExport;
+    }
+
+
+    // Same result as Go(XmlParsing.Go(xmlContent)), the <InspectionInstance> elements are parsed
+    // in parallel on the pool, see ParallelInspectionsParser
+    public static InspectionsExport GoParallel(String xmlContent, ForkJoinPool pool) throws XmlException, ModelException {
+        return ParallelInspectionsParser.Go(xmlContent, pool);
+    }
+
+    public static InspectionsExport GoParallel(String xmlContent) throws XmlException, ModelException {
+        return ParallelInspectionsParser.Go(xmlContent, ForkJoinPool.commonPool());
+    }
+
+    // With a null cache the file is parsed, else a snapshot of a previous import is loaded when there is one
+    public static InspectionsExport Go(Path xmlFile, InspectionsSnapshotCache cache) throws XmlException, ModelException {
+        return cache == null ? InspectionsSnapshotCache.Parse(xmlFile) : cache.Go(xmlFile);
+    }
+
 
     final static String TAG_InspectionsExport = "InspectionsExport";
 
@@ -127,7 +160,7 @@ public class FillInspectionsModel {
     final static String TAG_FilePath = "FilePath";
     final static String TAG_Line = "Line";
     final static String TAG_Severity = "Severity";
-    private static InspectionInstance GetInspectionInstance(XmlElement xmlElement) throws ModelException {
+    static InspectionInstance GetInspectionInstance(XmlElement xmlElement) throws ModelException {
         if (!xmlElement.Name.equals(TAG_InspectionInstance)) {
             return null;
         }
@@ -173,4 +206,164 @@ public class FillInspectionsModel {
             return Integer.MIN_VALUE;
         }
     }
+
+
+
+    //
+    // Binder
+    //   Same validation and same ModelException messages as the XmlElement based methods above.
+    //   Attributes are bound when the element starts but an attribute error is only thrown when
+    //   the element ends, since the methods above check child elements before attributes.
+    //
+    static class Binder implements XmlEventHandler {
+        final InspectionsExport inspectionsExport = new InspectionsExport();
+
+        private int depth;
+        private String section;           // TAG_InspectionTypes or TAG_Inspections
+        private InspectionTypeInfo inspectionTypeInfo;
+        private InspectionInstance inspectionInstance;
+        private int childIndex;
+        private String contentTag;        // Tag of the child element whose content is expected
+        private ModelException attributeException;
+
+        @Override
+        public void StartElement(String name, XmlPullParser attributes) throws ModelException {
+            depth++;
+            switch (depth) {
+                case 1:
+                    if (!name.equals(TAG_InspectionsExport)) {
+                        throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_InspectionsExport }));
+                    }
+                    break;
+
+                case 2:
+                    if (!name.equals(TAG_InspectionTypes) && !name.equals(TAG_Inspections)) {
+                        throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_InspectionTypes, TAG_Inspections }));
+                    }
+                    section = name.equals(TAG_InspectionTypes) ? TAG_InspectionTypes : TAG_Inspections;
+                    break;
+
+                case 3:
+                    childIndex = 0;
+                    if (section == TAG_InspectionTypes) {
+                        if (!name.equals(TAG_InspectionTypeInfo)) {
+                            throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_InspectionTypeInfo }));
+                        }
+                        inspectionTypeInfo = new InspectionTypeInfo();
+                        attributeException = BindAttributes(inspectionTypeInfo, attributes);
+                    } else {
+                        if (!name.equals(TAG_InspectionInstance)) {
+                            throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_InspectionInstance }));
+                        }
+                        inspectionInstance = new InspectionInstance();
+                        attributeException = BindAttributes(inspectionInstance, attributes);
+                    }
+                    break;
+
+                case 4:
+                    contentTag = null;
+                    if (section == TAG_InspectionTypes) {
+                        // Only the first child element is read
+                        if (childIndex++ > 0) { break; }
+                        if (!name.equals(TAG_Description)) {
+                            throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_Description }));
+                        }
+                        contentTag = TAG_Description;
+                    } else {
+                        if (name.equals(TAG_Message)) {
+                            contentTag = TAG_Message;
+                        } else if (name.equals(TAG_FilePath)) {
+                            contentTag = TAG_FilePath;
+                        } else {
+                            throw new ModelException(ModelException.UnexpectedElementMessage(name, new String[] { TAG_Message, TAG_FilePath }));
+                        }
+                    }
+                    break;
+
+                case 5:
+                    // Content is not called for an element with child elements, its XmlElement.Content is ""
+                    if (contentTag != null) {
+                        SetContent("");
+                        contentTag = null;
+                    }
+                    break;
+
+                default:
+                    break; // Deeper elements are ignored
+            }
+        }
+
+        @Override
+        public void Content(String content) {
+            if (depth == 4 && contentTag != null) {
+                SetContent(content);
+            }
+        }
+
+        private void SetContent(String content) {
+            switch (contentTag) {
+                case TAG_Description: inspectionTypeInfo.description = content; break;
+                case TAG_Message: inspectionInstance.message = content; break;
+                case TAG_FilePath: inspectionInstance.filePath = content; break;
+            }
+        }
+
+        @Override
+        public void EndElement(String name) throws ModelException {
+            if (depth == 4) {
+                contentTag = null;
+            } else if (depth == 3) {
+                if (attributeException != null) {
+                    throw attributeException;
+                }
+                if (section == TAG_InspectionTypes) {
+                    inspectionsExport.inspectionTypes.add(inspectionTypeInfo);
+                    inspectionTypeInfo = null;
+                } else {
+                    AddInspection(inspectionInstance);
+                    inspectionInstance = null;
+                }
+            }
+            depth--;
+        }
+
+        // Called in document order once an instance is complete
+        void AddInspection(InspectionInstance inspectionInstance) {
+            inspectionsExport.inspections.add(inspectionInstance);
+        }
+
+        private static ModelException BindAttributes(InspectionTypeInfo inspectionTypeInfo, XmlPullParser attributes) {
+            for (int i = 0; i < attributes.getAttributeCount(); i++) {
+                String attrName = attributes.getAttributeName(i);
+                String val = attributes.getAttributeValue(i);
+                switch (attrName) {
+                    case TAG_Id: inspectionTypeInfo.id = val; break;
+                    case TAG_Name: inspectionTypeInfo.name = val; break;
+                    case TAG_Category: inspectionTypeInfo.category = val; break;
+                    default: return new ModelException(ModelException.UnexpectedAttributeMessage(attrName, new String[] {TAG_Id, TAG_Name, TAG_Category}));
+                }
+            }
+            return null;
+        }
+
+        private static ModelException BindAttributes(InspectionInstance inspectionInstance, XmlPullParser attributes) {
+            for (int i = 0; i < attributes.getAttributeCount(); i++) {
+                String attrName = attributes.getAttributeName(i);
+                switch (attrName) {
+                    case TAG_Id: inspectionInstance.id = attributes.getAttributeValue(i); break;
+                    case TAG_Line:
+                        // Parsed in place, the value is only read as a String for the error message
+                        int iVal = attributes.getAttributeInt(i);
+                        if (iVal == Integer.MIN_VALUE) {
+                            return new ModelException("Expected an integer value for attribute "+attrName+", got instead "+attributes.getAttributeValue(i));
+                        }
+                        inspectionInstance.line = iVal;
+                        break;
+                    case TAG_Severity: inspectionInstance.severity = attributes.getAttributeValue(i); break;
+                    default: return new ModelException(ModelException.UnexpectedAttributeMessage(attrName, new String[] {TAG_Id, TAG_Line, TAG_Severity}));
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -3,8 +3,9 @@ package com.ndepend.inspections;
 import jetbrains.buildServer.agent.inspections.InspectionAttributesId;
 
 import java.nio.file.FileSystems;
-import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class InspectionInstance {
     public String id;
@@ -14,10 +15,31 @@ public class InspectionInstance {
     public String severity;
 
     public jetbrains.buildServer.agent.inspections.InspectionInstance ToTeamCityInspection(String checkoutDirectory) {
+        return NewTeamCityInspection(getInspectionPath(checkoutDirectory, filePath));
+    }
+
+    public jetbrains.buildServer.agent.inspections.InspectionInstance ToTeamCityInspection(InspectionPathRelativizer relativizer) {
+        return NewTeamCityInspection(relativizer.getInspectionPath(filePath));
+    }
+
+    // Convert many inspections, the checkout directory is parsed once and each file path is relativized once
+    public static List<jetbrains.buildServer.agent.inspections.InspectionInstance> ToTeamCityInspections(List<InspectionInstance> inspectionInstances, String checkoutDirectory) {
+        return ToTeamCityInspections(inspectionInstances, new InspectionPathRelativizer(checkoutDirectory));
+    }
+
+    public static List<jetbrains.buildServer.agent.inspections.InspectionInstance> ToTeamCityInspections(List<InspectionInstance> inspectionInstances, InspectionPathRelativizer relativizer) {
+        List<jetbrains.buildServer.agent.inspections.InspectionInstance> inspections = new ArrayList<>(inspectionInstances.size());
+        for (InspectionInstance inspectionInstance : inspectionInstances) {
+            inspections.add(inspectionInstance.ToTeamCityInspection(relativizer));
+        }
+        return inspections;
+    }
+
+    private jetbrains.buildServer.agent.inspections.InspectionInstance NewTeamCityInspection(String inspectionPath) {
         jetbrains.buildServer.agent.inspections.InspectionInstance inspection = new jetbrains.buildServer.agent.inspections.InspectionInstance();
         inspection.setInspectionId(id);
         inspection.setMessage(message);
-        inspection.setFilePath(getInspectionPath(checkoutDirectory, filePath));
+        inspection.setFilePath(inspectionPath);
         inspection.setLine(line);
         inspection.addAttribute(InspectionAttributesId.SEVERITY.toString(), Arrays.asList(severity));
         return inspection;
@@ -27,16 +49,7 @@ public class InspectionInstance {
         if (filePath == null || checkoutDirectory == null) {
             return null;
         }
-        String relativePath = getRelativePath(checkoutDirectory, filePath);
+        String relativePath = InspectionPathRelativizer.RelativizeByPath(FileSystems.getDefault().getPath(checkoutDirectory), filePath);
         return relativePath.replace('\\', '/');
     }
-
-    private static String getRelativePath(String absoluteCheckoutDirectory, String absoluteFilePath) {
-        Path checkoutPath = FileSystems.getDefault().getPath(absoluteCheckoutDirectory);
-        Path filePath = FileSystems.getDefault().getPath(absoluteFilePath);
-        if (!filePath.startsWith(checkoutPath)) {
-            return absoluteFilePath;
-        }
-        return checkoutPath.relativize(filePath).toString();
-    }
 }
@@ -0,0 +1,143 @@
+package com.ndepend.inspections;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//
+// Path relativizer
+//   Compute the TeamCity inspection path of many files against the same checkout directory.
+//   The checkout directory is parsed once, and results are memoized by raw file path in a bounded LRU cache
+//   since an export has many inspections per file.
+//   When the default file system uses '/', clean file paths take a string prefix fast path that gives
+//   the same result as Path.startsWith() + Path.relativize(). Other paths, and all paths on Windows
+//   where Path comparison ignores case and accepts both separators, go through the Path logic.
+//   Not thread safe, use one instance per conversion.
+//
+public class InspectionPathRelativizer {
+
+    final static int DEFAULT_MAX_CACHED_PATHS = 4096;
+
+    private final String checkoutDirectory;
+    private Path checkoutPath;             // Parsed on first use, so an invalid directory fails like the Path logic
+    private String checkoutPrefix;         // Normalized checkout directory, null when the fast path is off
+    private final Map<String, String> cache;
+
+    public InspectionPathRelativizer(String checkoutDirectory) {
+        this(checkoutDirectory, DEFAULT_MAX_CACHED_PATHS);
+    }
+
+    public InspectionPathRelativizer(String checkoutDirectory, int maxCachedPaths) {
+        this.checkoutDirectory = checkoutDirectory;
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxCachedPaths;
+            }
+        };
+    }
+
+    public String getCheckoutDirectory() {
+        return checkoutDirectory;
+    }
+
+    // Same result as InspectionInstance.getInspectionPath(checkoutDirectory, filePath)
+    public String getInspectionPath(String filePath) {
+        if (filePath == null || checkoutDirectory == null) {
+            return null;
+        }
+        String inspectionPath = cache.get(filePath);
+        if (inspectionPath == null) {
+            if (checkoutPath == null) {
+                checkoutPath = FileSystems.getDefault().getPath(checkoutDirectory);
+                checkoutPrefix = IsFastPathCheckout(checkoutPath) ? checkoutPath.toString() : null;
+            }
+            String relativePath = checkoutPrefix != null && IsCleanPath(filePath)
+                ? RelativizeByPrefix(filePath)
+                : RelativizeByPath(checkoutPath, filePath);
+            inspectionPath = relativePath.replace('\\', '/');
+            cache.put(filePath, inspectionPath);
+        }
+        return inspectionPath;
+    }
+
+    // For tests, the cache is bounded and evicts the least recently used path
+    int getCachedPathCount() {
+        return cache.size();
+    }
+
+    boolean IsCached(String filePath) {
+        return cache.containsKey(filePath);
+    }
+
+    static String RelativizeByPath(Path checkoutPath, String absoluteFilePath) {
+        Path filePath = FileSystems.getDefault().getPath(absoluteFilePath);
+        if (!filePath.startsWith(checkoutPath)) {
+            return absoluteFilePath;
+        }
+        return checkoutPath.relativize(filePath).toString();
+    }
+
+    //
+    // Fast path
+    //   A clean path is its own Path.toString(), so Path names match string segments between '/'.
+    //
+
+    private String RelativizeByPrefix(String filePath) {
+        int length = checkoutPrefix.length();
+        if (!filePath.startsWith(checkoutPrefix)) {
+            return filePath;
+        }
+        if (filePath.length() == length) {
+            return ""; // Relativizing a path to itself gives the empty path
+        }
+        if (filePath.charAt(length) != '/') {
+            return filePath; // Same prefix but another name, like /work/dir2 for /work/dir
+        }
+        return filePath.substring(length + 1);
+    }
+
+    private static boolean IsFastPathCheckout(Path checkoutPath) {
+        if (!FileSystems.getDefault().getSeparator().equals("/")) {
+            return false;
+        }
+        // The root and the empty path have special startsWith() rules
+        String normalized = checkoutPath.toString();
+        return !normalized.isEmpty() && !normalized.endsWith("/") && IsCleanPath(normalized);
+    }
+
+    // Not empty, ASCII so that any platform encoding accepts it, no repeated or trailing '/', no NUL,
+    // no . or .. name that relativize() could treat specially
+    private static boolean IsCleanPath(String path) {
+        int length = path.length();
+        if (length == 0 || path.charAt(length - 1) == '/') {
+            return false;
+        }
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if (c == '\u0000' || c >= 0x80 || (c == '/' && previous == '/')) {
+                return false;
+            }
+            previous = c;
+        }
+        return !HasDotName(path);
+    }
+
+    private static boolean HasDotName(String path) {
+        int length = path.length();
+        int nameStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                int nameLength = i - nameStart;
+                if ((nameLength == 1 || nameLength == 2) && path.charAt(nameStart) == '.' &&
+                    (nameLength == 1 || path.charAt(nameStart + 1) == '.')) {
+                    return true;
+                }
+                nameStart = i + 1;
+            }
+        }
+        return false;
+    }
+}
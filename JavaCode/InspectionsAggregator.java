@@ -0,0 +1,128 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+//
+// Streaming aggregation
+//   Count the inspections of an export per Severity, per inspection type Id and per FilePath while it is parsed,
+//   no InspectionInstance and no XmlElement is built, see InspectionsSummary.
+//   Only the Id and Severity attributes and the FilePath content are read: <Message> and <InspectionTypeInfo>
+//   elements are skipped with XmlPullParser.SkipElement(), the memory-mapped parser doesn't even decode them.
+//   Element names are checked like FillInspectionsModel does, attribute values are not validated,
+//   so any export FillInspectionsModel accepts gives the counts of its InspectionsExport.
+//   Values are interned by the parser, a repeated Id, Severity or FilePath is found without creating a String.
+//
+public class InspectionsAggregator {
+
+    // A gzip compressed file is inflated on another thread while it is parsed
+    public static InspectionsSummary Go(Path xmlFile) throws XmlException, ModelException {
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            return Go(parser);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    public static InspectionsSummary Go(XmlPullParser parser) throws XmlException, ModelException {
+        parser.setInternValues(true);
+        InspectionsSummary summary = new InspectionsSummary();
+
+        if (!NextChildElement(parser)) {
+            throw new XmlException("'<' expected");
+        }
+        CheckName(parser.getName(), FillInspectionsModel.TAG_InspectionsExport);
+        while (NextChildElement(parser)) {
+            String section = parser.getName();
+            CheckName(section, FillInspectionsModel.TAG_InspectionTypes, FillInspectionsModel.TAG_Inspections);
+            boolean isInspectionTypes = section.equals(FillInspectionsModel.TAG_InspectionTypes);
+            while (NextChildElement(parser)) {
+                if (isInspectionTypes) {
+                    CheckName(parser.getName(), FillInspectionsModel.TAG_InspectionTypeInfo);
+                    summary.inspectionTypeCount++;
+                    parser.SkipElement();
+                } else {
+                    CheckName(parser.getName(), FillInspectionsModel.TAG_InspectionInstance);
+                    AddInspection(parser, summary);
+                }
+            }
+        }
+        return summary;
+    }
+
+    // The parser is on the StartElement of an <InspectionInstance>, it is left on its EndElement
+    private static void AddInspection(XmlPullParser parser, InspectionsSummary summary) throws XmlException, ModelException {
+        String typeId = parser.getAttributeValue(FillInspectionsModel.TAG_Id);
+        String severity = parser.getAttributeValue(FillInspectionsModel.TAG_Severity);
+        String filePath = null;
+        while (NextChildElement(parser)) {
+            String name = parser.getName();
+            if (name.equals(FillInspectionsModel.TAG_FilePath)) {
+                filePath = ReadContent(parser);
+            } else {
+                CheckName(name, FillInspectionsModel.TAG_Message, FillInspectionsModel.TAG_FilePath);
+                parser.SkipElement();
+            }
+        }
+        summary.AddInspection(typeId, severity, filePath);
+    }
+
+    // Move to the StartElement of the next child element of the current element,
+    // false once on the EndElement of the current element. Text between child elements is ignored.
+    private static boolean NextChildElement(XmlPullParser parser) throws XmlException {
+        while (true) {
+            switch (parser.Next()) {
+                case StartElement:
+                    return true;
+                case EndElement:
+                    return false;
+                case EndDocument:
+                    throw new XmlException("'<' expected");
+                default:
+                    break;
+            }
+        }
+    }
+
+    // Content of the element of the current StartElement like XmlElement.Content, the parser is left on its EndElement
+    private static String ReadContent(XmlPullParser parser) throws XmlException {
+        if (parser.isEmptyElement()) {
+            parser.Next();
+            return null; // Case  <xyz/>
+        }
+        String text = null;
+        String cdata = null;
+        int rowCount = 0;   // Child elements and CDATA sections
+        while (true) {
+            switch (parser.Next()) {
+                case Text:
+                    text = text == null ? parser.getText() : text + parser.getText();
+                    break;
+                case CDATA:
+                    cdata = parser.getText();
+                    rowCount++;
+                    break;
+                case StartElement:
+                    rowCount++;
+                    parser.SkipElement();
+                    break;
+                case EndElement:
+                    if (rowCount == 0) {
+                        return text == null ? "" : text;
+                    }
+                    return rowCount == 1 && cdata != null ? cdata : "";
+                case EndDocument:
+                    throw new XmlException("'<' expected");
+            }
+        }
+    }
+
+    private static void CheckName(String name, String... tagsExpected) throws ModelException {
+        for (String tag : tagsExpected) {
+            if (name.equals(tag)) {
+                return;
+            }
+        }
+        throw new ModelException(ModelException.UnexpectedElementMessage(name, tagsExpected));
+    }
+}
@@ -0,0 +1,168 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+//
+// Batch import
+//   Parse many export files concurrently and merge them into a single InspectionsExport.
+//   Files are parsed on virtual threads when the runtime has them (Java 21), else on a fixed pool
+//   of daemon threads. In both cases at most maxConcurrency files are parsed at once.
+//   Inspection types are shared through a concurrent map while parsing: a type identical to one
+//   already parsed is replaced by it, so duplicated descriptions are freed early. The merged export
+//   has one type per id, the first in file order, and the inspections of all files in file order.
+//   A file that cannot be read or parsed is reported in errors, the other files are still merged.
+//
+public class InspectionsBatchImporter {
+
+    public static class Result {
+        public InspectionsExport inspectionsExport;
+        public Map<Path, Exception> errors = new LinkedHashMap<>();   // XmlException or ModelException by file, in file order
+    }
+
+    public static Result Go(List<Path> xmlFiles) throws XmlException {
+        return Go(xmlFiles, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Result Go(List<Path> xmlFiles, int maxConcurrency) throws XmlException {
+        return Go(xmlFiles, maxConcurrency, NewExecutor(Math.max(maxConcurrency, 1)));
+    }
+
+    // The executor is shut down once all files were parsed
+    static Result Go(List<Path> xmlFiles, int maxConcurrency, ExecutorService executor) throws XmlException {
+        int count = xmlFiles.size();
+        InspectionsExport[] exports = new InspectionsExport[count];
+        Exception[] errors = new Exception[count];
+        ConcurrentHashMap<String, InspectionTypeInfo> types = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(Math.max(maxConcurrency, 1));
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int file = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        exports[file] = ShareTypes(Parse(xmlFiles.get(file)), types);
+                    } catch (XmlException | ModelException exc) {
+                        errors[file] = exc;
+                    } catch (RuntimeException exc) {
+                        errors[file] = new XmlException("Cannot import " + xmlFiles.get(file) + ": " + exc, exc);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new XmlException("Import interrupted", exc);
+        } catch (ExecutionException exc) {
+            // Only an Error escapes the task
+            throw (Error) exc.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Result result = new Result();
+        result.inspectionsExport = Merge(exports);
+        for (int i = 0; i < count; i++) {
+            if (errors[i] != null) {
+                result.errors.put(xmlFiles.get(i), errors[i]);
+            }
+        }
+        return result;
+    }
+
+    private static InspectionsExport Parse(Path xmlFile) throws XmlException, ModelException {
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            return FillInspectionsModel.Go(parser);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    // Replace the types already parsed from another file by the shared instance
+    private static InspectionsExport ShareTypes(InspectionsExport inspectionsExport, ConcurrentHashMap<String, InspectionTypeInfo> types) {
+        List<InspectionTypeInfo> inspectionTypes = inspectionsExport.inspectionTypes;
+        for (int i = 0; i < inspectionTypes.size(); i++) {
+            InspectionTypeInfo type = inspectionTypes.get(i);
+            if (type.id == null) {
+                continue;
+            }
+            InspectionTypeInfo shared = types.putIfAbsent(type.id, type);
+            if (shared != null && IsSameType(shared, type)) {
+                inspectionTypes.set(i, shared);
+            }
+        }
+        return inspectionsExport;
+    }
+
+    private static boolean IsSameType(InspectionTypeInfo type1, InspectionTypeInfo type2) {
+        return Objects.equals(type1.id, type2.id) && Objects.equals(type1.name, type2.name) &&
+               Objects.equals(type1.category, type2.category) && Objects.equals(type1.description, type2.description);
+    }
+
+    private static InspectionsExport Merge(InspectionsExport[] exports) {
+        InspectionsExport merged = new InspectionsExport();
+        HashSet<String> typeIds = new HashSet<>();
+        int inspectionCount = 0;
+        for (InspectionsExport inspectionsExport : exports) {
+            if (inspectionsExport != null) {
+                inspectionCount += inspectionsExport.inspections.size();
+            }
+        }
+        merged.inspections = new ArrayList<>(inspectionCount);
+        for (InspectionsExport inspectionsExport : exports) {
+            if (inspectionsExport == null) {
+                continue;
+            }
+            for (InspectionTypeInfo type : inspectionsExport.inspectionTypes) {
+                // Types without id are kept, the model doesn't require an id
+                if (type.id == null || typeIds.add(type.id)) {
+                    merged.inspectionTypes.add(type);
+                }
+            }
+            merged.inspections.addAll(inspectionsExport.inspections);
+        }
+        return merged;
+    }
+
+    //
+    // Executor
+    //   Executors.newVirtualThreadPerTaskExecutor() is looked up by reflection, the code is compiled for Java 11
+    //
+
+    static ExecutorService NewExecutor(int threadCount) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException exc) {
+            // Before Java 21, or virtual threads still in preview and not enabled
+        }
+        return NewPlatformExecutor(threadCount);
+    }
+
+    static ExecutorService NewPlatformExecutor(int threadCount) {
+        return Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "InspectionsBatchImporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
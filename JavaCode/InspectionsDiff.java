@@ -0,0 +1,249 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+//
+// Baseline diff
+//   Tell which inspections are new and which are fixed compared with the export of a previous build.
+//   Only a 64-bit fingerprint (id, relative file path, message) and the line of each baseline inspection
+//   are kept, in an open addressing table with a matched bit: 12 bytes per slot, so 16 bytes per baseline
+//   inspection at the 0.75 maximum load, pass the expected count to start at that load.
+//   A current inspection is unchanged when an unmatched baseline entry has the same fingerprint and a line
+//   within lineTolerance, the closest line wins and then the lowest one, so the result doesn't depend
+//   on the table layout. Duplicates are counted, two identical inspections in the
+//   current export need two in the baseline.
+//   Fixed inspections are found by streaming the baseline again: an entry with the same fingerprint and line
+//   that is still unmatched was fixed.
+//   File paths are made relative to the checkout directory of their export like the TeamCity inspection path,
+//   see InspectionPathRelativizer, so exports built by agents with different checkout directories match.
+//   Without a checkout directory the file path is compared as is. The case is kept, two paths that only differ
+//   by case are different files on a case sensitive file system.
+//
+public class InspectionsDiff {
+
+    private final static long EMPTY = 0;
+    private final static int MIN_CAPACITY = 16;
+
+    private final int lineTolerance;
+    private final InspectionPathRelativizer baselinePaths;    // null: file paths are compared as is
+    private final InspectionPathRelativizer currentPaths;
+
+    private long[] fingerprints;  // EMPTY for a free slot
+    private int[] lines;
+    private long[] matched;
+    private int count;
+
+    private int newCount;
+    private int unchangedCount;
+    private int fixedCount;
+
+    public InspectionsDiff(int lineTolerance) {
+        this(lineTolerance, 0);
+    }
+
+    public InspectionsDiff(int lineTolerance, int expectedBaselineCount) {
+        this(lineTolerance, expectedBaselineCount, null, null);
+    }
+
+    // A null checkout directory compares the file paths of that export as is
+    public InspectionsDiff(int lineTolerance, int expectedBaselineCount,
+                           String baselineCheckoutDirectory, String currentCheckoutDirectory) {
+        this.lineTolerance = Math.max(lineTolerance, 0);
+        this.baselinePaths = baselineCheckoutDirectory != null ? new InspectionPathRelativizer(baselineCheckoutDirectory) : null;
+        this.currentPaths = currentCheckoutDirectory != null ? new InspectionPathRelativizer(currentCheckoutDirectory) : null;
+        int capacity = MIN_CAPACITY;
+        while (capacity < (1 << 30) && capacity * 3L < expectedBaselineCount * 4L) {
+            capacity *= 2;
+        }
+        fingerprints = new long[capacity];
+        lines = new int[capacity];
+        matched = new long[capacity / 64 + 1];
+    }
+
+    public int getBaselineCount() { return count; }
+    public int getNewCount() { return newCount; }
+    public int getUnchangedCount() { return unchangedCount; }
+    public int getFixedCount() { return fixedCount; }
+
+    // Stream both exports, the baseline is read twice
+    public static InspectionsDiff Go(Path baselineFile, Path currentFile, int lineTolerance,
+                                     Consumer<InspectionInstance> newInspections,
+                                     Consumer<InspectionInstance> fixedInspections) throws XmlException, ModelException {
+        return Go(baselineFile, null, currentFile, null, lineTolerance, newInspections, fixedInspections);
+    }
+
+    public static InspectionsDiff Go(Path baselineFile, String baselineCheckoutDirectory,
+                                     Path currentFile, String currentCheckoutDirectory, int lineTolerance,
+                                     Consumer<InspectionInstance> newInspections,
+                                     Consumer<InspectionInstance> fixedInspections) throws XmlException, ModelException {
+        InspectionsDiff diff = new InspectionsDiff(lineTolerance, 0, baselineCheckoutDirectory, currentCheckoutDirectory);
+        Stream(baselineFile, diff::AddBaseline);
+        Stream(currentFile, inspectionInstance -> {
+            if (!diff.IsUnchanged(inspectionInstance)) {
+                newInspections.accept(inspectionInstance);
+            }
+        });
+        Stream(baselineFile, inspectionInstance -> {
+            if (diff.IsFixed(inspectionInstance)) {
+                fixedInspections.accept(inspectionInstance);
+            }
+        });
+        return diff;
+    }
+
+    private static void Stream(Path xmlFile, Consumer<InspectionInstance> consumer) throws XmlException, ModelException {
+        FillInspectionsModel.Binder binder = new FillInspectionsModel.Binder() {
+            @Override
+            void AddInspection(InspectionInstance inspectionInstance) {
+                consumer.accept(inspectionInstance);
+            }
+        };
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            XmlEventDispatcher.Go(parser, binder);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    //
+    // Table
+    //
+
+    public void AddBaseline(InspectionInstance inspectionInstance) {
+        if ((count + 1) * 4L > fingerprints.length * 3L) {
+            Grow();
+        }
+        long fingerprint = Fingerprint(inspectionInstance, baselinePaths);
+        int mask = fingerprints.length - 1;
+        int slot = Slot(fingerprint, mask);
+        while (fingerprints[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        fingerprints[slot] = fingerprint;
+        lines[slot] = inspectionInstance.line;
+        count++;
+    }
+
+    // Match a current inspection against the baseline, false when it is new
+    public boolean IsUnchanged(InspectionInstance inspectionInstance) {
+        long fingerprint = Fingerprint(inspectionInstance, currentPaths);
+        int line = inspectionInstance.line;
+        int mask = fingerprints.length - 1;
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int slot = Slot(fingerprint, mask); fingerprints[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (fingerprints[slot] != fingerprint || IsMatched(slot)) {
+                continue;
+            }
+            long distance = Math.abs((long) lines[slot] - line);
+            if (distance <= lineTolerance &&
+                (distance < bestDistance || (distance == bestDistance && lines[slot] < lines[best]))) {
+                best = slot;
+                bestDistance = distance;
+                if (distance == 0) {
+                    break;
+                }
+            }
+        }
+        if (best < 0) {
+            newCount++;
+            return false;
+        }
+        SetMatched(best);
+        unchangedCount++;
+        return true;
+    }
+
+    // Call for each baseline inspection once all current inspections were matched, true when it was fixed
+    public boolean IsFixed(InspectionInstance inspectionInstance) {
+        long fingerprint = Fingerprint(inspectionInstance, baselinePaths);
+        int line = inspectionInstance.line;
+        int mask = fingerprints.length - 1;
+        for (int slot = Slot(fingerprint, mask); fingerprints[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (fingerprints[slot] == fingerprint && lines[slot] == line && !IsMatched(slot)) {
+                SetMatched(slot); // Reported once
+                fixedCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean IsMatched(int slot) {
+        return (matched[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void SetMatched(int slot) {
+        matched[slot >>> 6] |= 1L << slot;
+    }
+
+    private void Grow() {
+        long[] oldFingerprints = fingerprints;
+        int[] oldLines = lines;
+        long[] oldMatched = matched;
+        int capacity = oldFingerprints.length * 2;
+        fingerprints = new long[capacity];
+        lines = new int[capacity];
+        matched = new long[capacity / 64 + 1];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            long fingerprint = oldFingerprints[i];
+            if (fingerprint == EMPTY) {
+                continue;
+            }
+            int slot = Slot(fingerprint, mask);
+            while (fingerprints[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+            lines[slot] = oldLines[i];
+            if ((oldMatched[i >>> 6] & (1L << i)) != 0) {
+                SetMatched(slot);
+            }
+        }
+    }
+
+    private static int Slot(long fingerprint, int mask) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    //
+    // Fingerprint
+    //   FNV-1a over the chars, fields separated, then the splitmix64 finalizer to spread the bits.
+    //   File paths are relative to the checkout directory when there is one and compared with '/' separators.
+    //
+
+    static long Fingerprint(InspectionInstance inspectionInstance, InspectionPathRelativizer paths) {
+        String filePath = inspectionInstance.filePath;
+        if (paths != null && filePath != null) {
+            filePath = paths.getInspectionPath(filePath);
+        }
+        long hash = 0xcbf29ce484222325L;
+        hash = Hash(hash, inspectionInstance.id, false);
+        hash = Hash(hash, filePath, true);
+        hash = Hash(hash, inspectionInstance.message, false);
+        hash ^= hash >>> 30;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private static long Hash(long hash, String str, boolean normalizePath) {
+        final long prime = 0x100000001b3L;
+        if (str == null) {
+            return (hash ^ 0x10000) * prime; // Not a char value, so null differs from any string
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (normalizePath && c == '\\') {
+                c = '/';
+            }
+            hash = (hash ^ c) * prime;
+        }
+        return (hash ^ 0x10001) * prime; // Field separator
+    }
+}
@@ -0,0 +1,315 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+//
+// Binary snapshot of an InspectionsExport
+//   magic "NDIS", format version, source size, source hash (32 bytes)
+//   string dictionary: count, then each string as its char count and its chars (1 to 3 bytes per char,
+//   like modified UTF-8, so any String round-trips including lone surrogates)
+//   types: count, then id name category description as dictionary refs
+//   inspections: count, then id message filePath as refs, line as zigzag varint, severity as ref
+//   CRC32 of all the previous bytes, 4 bytes big endian
+//   Counts, lengths and refs are unsigned varints. Ref 0 is null, ref n is the string n - 1 of the dictionary.
+//
+class InspectionsSnapshot {
+
+    final static int FORMAT_VERSION = 1;
+    final static int HASH_LENGTH = 32;
+
+    private final static byte[] MAGIC = { 'N', 'D', 'I', 'S' };
+
+    // Thrown on any inconsistency, the caller falls back to a normal parse
+    static class CorruptSnapshotException extends Exception {
+        CorruptSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    //
+    // Write
+    //
+
+    static byte[] Write(InspectionsExport inspectionsExport, long sourceSize, byte[] sourceHash) {
+        // The dictionary is written before the records that refer to it
+        HashMap<String, Integer> refs = new HashMap<>();
+        ArrayList<String> dictionary = new ArrayList<>();
+        Output records = new Output(64 + inspectionsExport.inspections.size() * 8);
+
+        records.WriteVarint(inspectionsExport.inspectionTypes.size());
+        for (InspectionTypeInfo type : inspectionsExport.inspectionTypes) {
+            records.WriteVarint(Ref(type.id, refs, dictionary));
+            records.WriteVarint(Ref(type.name, refs, dictionary));
+            records.WriteVarint(Ref(type.category, refs, dictionary));
+            records.WriteVarint(Ref(type.description, refs, dictionary));
+        }
+        records.WriteVarint(inspectionsExport.inspections.size());
+        for (InspectionInstance inspection : inspectionsExport.inspections) {
+            records.WriteVarint(Ref(inspection.id, refs, dictionary));
+            records.WriteVarint(Ref(inspection.message, refs, dictionary));
+            records.WriteVarint(Ref(inspection.filePath, refs, dictionary));
+            records.WriteVarint((inspection.line << 1) ^ (inspection.line >> 31));
+            records.WriteVarint(Ref(inspection.severity, refs, dictionary));
+        }
+
+        Output output = new Output(records.length + 1024);
+        output.WriteBytes(MAGIC, 0, MAGIC.length);
+        output.WriteVarint(FORMAT_VERSION);
+        output.WriteVarlong(sourceSize);
+        output.WriteBytes(sourceHash, 0, HASH_LENGTH);
+        output.WriteVarint(dictionary.size());
+        for (String str : dictionary) {
+            output.WriteString(str);
+        }
+        output.WriteBytes(records.bytes, 0, records.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(output.bytes, 0, output.length);
+        int value = (int) crc.getValue();
+        output.WriteByte(value >>> 24);
+        output.WriteByte(value >>> 16);
+        output.WriteByte(value >>> 8);
+        output.WriteByte(value);
+        return Arrays.copyOf(output.bytes, output.length);
+    }
+
+    private static int Ref(String str, HashMap<String, Integer> refs, ArrayList<String> dictionary) {
+        if (str == null) {
+            return 0;
+        }
+        Integer ref = refs.get(str);
+        if (ref == null) {
+            dictionary.add(str);
+            ref = dictionary.size();
+            refs.put(str, ref);
+        }
+        return ref;
+    }
+
+    //
+    // Read
+    //
+
+    static InspectionsExport Read(byte[] bytes, long sourceSize, byte[] sourceHash) throws CorruptSnapshotException {
+        if (bytes.length < MAGIC.length + 4) {
+            throw new CorruptSnapshotException("Snapshot too short");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        int length = bytes.length - 4;
+        int expected = ((bytes[length] & 0xFF) << 24) | ((bytes[length + 1] & 0xFF) << 16) |
+                       ((bytes[length + 2] & 0xFF) << 8) | (bytes[length + 3] & 0xFF);
+        if ((int) crc.getValue() != expected) {
+            throw new CorruptSnapshotException("Snapshot checksum mismatch");
+        }
+
+        Input input = new Input(bytes, length);
+        for (byte b : MAGIC) {
+            if (input.ReadByte() != b) {
+                throw new CorruptSnapshotException("Not a snapshot");
+            }
+        }
+        if (input.ReadVarint() != FORMAT_VERSION) {
+            throw new CorruptSnapshotException("Snapshot format version mismatch");
+        }
+        if (input.ReadVarlong() != sourceSize) {
+            throw new CorruptSnapshotException("Snapshot of another source");
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            if (input.ReadByte() != sourceHash[i]) {
+                throw new CorruptSnapshotException("Snapshot of another source");
+            }
+        }
+
+        String[] dictionary = new String[input.ReadCount()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = input.ReadString();
+        }
+
+        InspectionsExport inspectionsExport = new InspectionsExport();
+        int typeCount = input.ReadCount();
+        for (int i = 0; i < typeCount; i++) {
+            InspectionTypeInfo type = new InspectionTypeInfo();
+            type.id = input.ReadRef(dictionary);
+            type.name = input.ReadRef(dictionary);
+            type.category = input.ReadRef(dictionary);
+            type.description = input.ReadRef(dictionary);
+            inspectionsExport.inspectionTypes.add(type);
+        }
+        int inspectionCount = input.ReadCount();
+        List<InspectionInstance> inspections = new ArrayList<>(inspectionCount);
+        for (int i = 0; i < inspectionCount; i++) {
+            InspectionInstance inspection = new InspectionInstance();
+            inspection.id = input.ReadRef(dictionary);
+            inspection.message = input.ReadRef(dictionary);
+            inspection.filePath = input.ReadRef(dictionary);
+            int zigzag = input.ReadVarint();
+            inspection.line = (zigzag >>> 1) ^ -(zigzag & 1);
+            inspection.severity = input.ReadRef(dictionary);
+            inspections.add(inspection);
+        }
+        inspectionsExport.inspections = inspections;
+        if (input.index != length) {
+            throw new CorruptSnapshotException("Unexpected bytes at the end of the snapshot");
+        }
+        return inspectionsExport;
+    }
+
+    //
+    // Byte buffers
+    //
+
+    private static class Output {
+        byte[] bytes;
+        int length;
+
+        Output(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void WriteByte(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        void WriteBytes(byte[] src, int offset, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(src, offset, bytes, length, count);
+            length += count;
+        }
+
+        void WriteVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                WriteByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            WriteByte(value);
+        }
+
+        void WriteVarlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                WriteByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            WriteByte((int) value);
+        }
+
+        void WriteString(String str) {
+            int count = str.length();
+            WriteVarint(count);
+            for (int i = 0; i < count; i++) {
+                char c = str.charAt(i);
+                if (c < 0x80) {
+                    WriteByte(c);
+                } else if (c < 0x800) {
+                    WriteByte(0xC0 | (c >> 6));
+                    WriteByte(0x80 | (c & 0x3F));
+                } else {
+                    WriteByte(0xE0 | (c >> 12));
+                    WriteByte(0x80 | ((c >> 6) & 0x3F));
+                    WriteByte(0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+
+    private static class Input {
+        private final byte[] bytes;
+        private final int length;
+        int index;
+        private char[] chars = new char[256];
+
+        Input(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        int ReadByte() throws CorruptSnapshotException {
+            if (index >= length) {
+                throw new CorruptSnapshotException("Truncated snapshot");
+            }
+            return bytes[index++];
+        }
+
+        int ReadVarint() throws CorruptSnapshotException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = ReadByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new CorruptSnapshotException("Malformed varint");
+        }
+
+        long ReadVarlong() throws CorruptSnapshotException {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                int b = ReadByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new CorruptSnapshotException("Malformed varint");
+        }
+
+        // A count can't be larger than the bytes left, each item takes at least one byte
+        int ReadCount() throws CorruptSnapshotException {
+            int count = ReadVarint();
+            if (count < 0 || count > length - index) {
+                throw new CorruptSnapshotException("Malformed count");
+            }
+            return count;
+        }
+
+        String ReadRef(String[] dictionary) throws CorruptSnapshotException {
+            int ref = ReadVarint();
+            if (ref < 0 || ref > dictionary.length) {
+                throw new CorruptSnapshotException("Malformed string ref");
+            }
+            return ref == 0 ? null : dictionary[ref - 1];
+        }
+
+        String ReadString() throws CorruptSnapshotException {
+            int count = ReadVarint();
+            if (count < 0 || count > length - index) {
+                throw new CorruptSnapshotException("Malformed string length");
+            }
+            if (count > chars.length) {
+                chars = new char[Math.max(count, chars.length * 2)];
+            }
+            for (int i = 0; i < count; i++) {
+                int b = ReadByte() & 0xFF;
+                if (b < 0x80) {
+                    chars[i] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[i] = (char) (((b & 0x1F) << 6) | ReadContinuation());
+                } else if ((b & 0xF0) == 0xE0) {
+                    int high = ReadContinuation();
+                    chars[i] = (char) (((b & 0x0F) << 12) | (high << 6) | ReadContinuation());
+                } else {
+                    throw new CorruptSnapshotException("Malformed string");
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+        private int ReadContinuation() throws CorruptSnapshotException {
+            int b = ReadByte() & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                throw new CorruptSnapshotException("Malformed string");
+            }
+            return b & 0x3F;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//
+// Snapshot cache
+//   Importing the same export again loads a binary snapshot (see InspectionsSnapshot) instead of parsing the XML.
+//   Snapshots are content addressed: the file name is the SHA-256 of the export, so a rebuilt export with the
+//   same content is a hit. Size and last modified time of the export are remembered by path to skip hashing
+//   when the same file is imported again by this cache instance.
+//   The directory is bounded to maxBytes: the least recently used snapshots are deleted first, a hit refreshes
+//   the snapshot last modified time. Snapshots are written to a temporary file then moved, so concurrent
+//   imports never read a partial snapshot.
+//   A corrupt snapshot, a snapshot of another format version or any cache I/O error falls back to a normal parse.
+//   Go() can be called from several threads: only the remembered hashes and the eviction are under a lock,
+//   hashing, parsing, loading and storing run concurrently. Two threads importing the same new export may both
+//   parse it, the second snapshot replaces the first one atomically.
+//
+public class InspectionsSnapshotCache {
+
+    final static long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    final static String SNAPSHOT_EXTENSION = ".snapshot";
+
+    private final static int MAX_REMEMBERED_FILES = 256;
+    private final static char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path cacheDirectory;
+    private final long maxBytes;
+    private final Object evictLock = new Object();
+
+    // "path|size|mtime" -> SHA-256 of the content, accessed under its own lock
+    private final Map<String, byte[]> hashes = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MAX_REMEMBERED_FILES;
+        }
+    };
+
+    public InspectionsSnapshotCache(Path cacheDirectory) {
+        this(cacheDirectory, DEFAULT_MAX_BYTES);
+    }
+
+    public InspectionsSnapshotCache(Path cacheDirectory, long maxBytes) {
+        this.cacheDirectory = cacheDirectory;
+        this.maxBytes = maxBytes;
+    }
+
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    // Same result as Parse(xmlFile): FillInspectionsModel.Go(parser) with the pull parser of XmlParsing.OpenPullParser()
+    public InspectionsExport Go(Path xmlFile) throws XmlException, ModelException {
+        long size;
+        byte[] hash;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(xmlFile, BasicFileAttributes.class);
+            size = attributes.size();
+            String key = xmlFile.toAbsolutePath() + "|" + size + "|" + attributes.lastModifiedTime().toMillis();
+            synchronized (hashes) {
+                hash = hashes.get(key);
+            }
+            if (hash == null) {
+                hash = Hash(xmlFile);
+                synchronized (hashes) {
+                    hashes.put(key, hash);
+                }
+            }
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+
+        Path snapshotFile = cacheDirectory.resolve(ToHex(hash) + SNAPSHOT_EXTENSION);
+        InspectionsExport inspectionsExport = TryLoad(snapshotFile, size, hash);
+        if (inspectionsExport != null) {
+            return inspectionsExport;
+        }
+
+        inspectionsExport = Parse(xmlFile);
+        TryStore(snapshotFile, InspectionsSnapshot.Write(inspectionsExport, size, hash));
+        return inspectionsExport;
+    }
+
+    static InspectionsExport Parse(Path xmlFile) throws XmlException, ModelException {
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            return FillInspectionsModel.Go(parser);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    private InspectionsExport TryLoad(Path snapshotFile, long size, byte[] hash) {
+        try {
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            InspectionsExport inspectionsExport = InspectionsSnapshot.Read(bytes, size, hash);
+            try {
+                Files.setLastModifiedTime(snapshotFile, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException exc) {
+                // Evicted by another import since it was read
+            }
+            return inspectionsExport;
+        } catch (NoSuchFileException exc) {
+            return null;
+        } catch (InspectionsSnapshot.CorruptSnapshotException exc) {
+            DeleteQuietly(snapshotFile);
+            return null;
+        } catch (IOException exc) {
+            return null;
+        }
+    }
+
+    private void TryStore(Path snapshotFile, byte[] bytes) {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        Path tempFile = null;
+        try {
+            Files.createDirectories(cacheDirectory);
+            tempFile = Files.createTempFile(cacheDirectory, "snapshot", ".tmp");
+            Files.write(tempFile, bytes);
+            try {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exc) {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+            synchronized (evictLock) {
+                Evict();
+            }
+        } catch (IOException exc) {
+            // The cache is optional
+        } finally {
+            if (tempFile != null) {
+                DeleteQuietly(tempFile);
+            }
+        }
+    }
+
+    // Delete the least recently used snapshots until the directory fits in maxBytes, called under evictLock
+    private void Evict() throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        ArrayList<BasicFileAttributes> attributes = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory, "*" + SNAPSHOT_EXTENSION)) {
+            for (Path file : stream) {
+                try {
+                    BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(file);
+                    attributes.add(fileAttributes);
+                    total += fileAttributes.size();
+                } catch (NoSuchFileException exc) {
+                    // Evicted by another import
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime()));
+        for (int i = 0; i < order.length && total > maxBytes; i++) {
+            DeleteQuietly(files.get(order[i]));
+            total -= attributes.get(order[i]).size();
+        }
+    }
+
+    private static byte[] Hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc); // Every Java platform provides SHA-256
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream stream = Files.newInputStream(file)) {
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static String ToHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static void DeleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exc) {
+            // Retried at the next eviction
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+//
+// Streaming import
+//   The document is parsed on a producer thread while the caller thread passes the instances
+//   to the consumer, in batches of batchSize in document order.
+//   At most queuedBatches batches wait between both threads: once the queue is full the parser
+//   blocks until the consumer takes a batch, so memory doesn't depend on the export size.
+//   Batches delivered before a parse error are not taken back, the error is thrown after them.
+//   Go() returns or throws only once the producer thread has ended: when the consumer throws or the
+//   caller is interrupted, the producer is cancelled and joined, so the parser is no longer used.
+//
+public class InspectionsStreamer {
+
+    final static int DEFAULT_BATCH_SIZE = 256;
+    final static int DEFAULT_QUEUED_BATCHES = 4;
+
+    // Marks the end of the batches, the list instance is only compared by reference
+    private final static List<InspectionInstance> END = new ArrayList<>();
+
+    // Return the inspection types, the inspections list of the returned export is left empty
+    public static InspectionsExport Go(XmlPullParser parser, Consumer<List<InspectionInstance>> consumer) throws XmlException, ModelException {
+        return Go(parser, DEFAULT_BATCH_SIZE, DEFAULT_QUEUED_BATCHES, consumer);
+    }
+
+    public static InspectionsExport Go(XmlPullParser parser, int batchSize, int queuedBatches,
+                                       Consumer<List<InspectionInstance>> consumer) throws XmlException, ModelException {
+        Producer producer = new Producer(parser, batchSize, queuedBatches);
+        Thread thread = new Thread(producer, "InspectionsStreamer");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            while (true) {
+                List<InspectionInstance> batch = producer.queue.take();
+                if (batch == END) {
+                    break;
+                }
+                consumer.accept(batch);
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new XmlException("Import interrupted", exc);
+        } finally {
+            // Unblock and stop the producer if the consumer failed, then wait for it
+            Stop(producer, thread);
+        }
+
+        if (producer.xmlException != null) {
+            throw producer.xmlException;
+        }
+        if (producer.modelException != null) {
+            throw producer.modelException;
+        }
+        if (producer.runtimeException != null) {
+            throw producer.runtimeException;
+        }
+        if (producer.error instanceof Error) {
+            throw (Error) producer.error;
+        }
+        if (producer.error != null) {
+            throw new IllegalStateException(producer.error);
+        }
+        return producer.inspectionsExport;
+    }
+
+    // Wait for the producer thread even if the caller is interrupted meanwhile
+    private static void Stop(Producer producer, Thread thread) {
+        producer.cancelled = true;
+        thread.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException exc) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Batches are converted with InspectionInstance.ToTeamCityInspections() on the caller thread,
+    // sharing one relativizer for the whole export
+    public static InspectionsExport GoTeamCity(XmlPullParser parser, String checkoutDirectory,
+                                               Consumer<List<jetbrains.buildServer.agent.inspections.InspectionInstance>> consumer) throws XmlException, ModelException {
+        InspectionPathRelativizer relativizer = new InspectionPathRelativizer(checkoutDirectory);
+        return Go(parser, batch -> consumer.accept(InspectionInstance.ToTeamCityInspections(batch, relativizer)));
+    }
+
+    //
+    // Producer
+    //   Bind the parser events on the producer thread and queue full batches
+    //
+
+    private static class Producer extends FillInspectionsModel.Binder implements Runnable {
+
+        // Thrown from AddInspection() when the caller stopped listening
+        private static class Cancelled extends RuntimeException { }
+
+        final BlockingQueue<List<InspectionInstance>> queue;
+        private final XmlPullParser parser;
+        private final int batchSize;
+        private List<InspectionInstance> batch;
+
+        // Set by the caller thread before interrupting the producer. Checked before blocking, in case the
+        // interrupt was consumed meanwhile, by an interruptible channel read for example
+        volatile boolean cancelled;
+
+        // Set by the producer thread before END is queued
+        XmlException xmlException;
+        ModelException modelException;
+        RuntimeException runtimeException;
+        Throwable error;
+
+        Producer(XmlPullParser parser, int batchSize, int queuedBatches) {
+            this.parser = parser;
+            this.batchSize = Math.max(batchSize, 1);
+            this.queue = new ArrayBlockingQueue<>(Math.max(queuedBatches, 1));
+            this.batch = new ArrayList<>(this.batchSize);
+        }
+
+        @Override
+        public void run() {
+            boolean stopped = false;
+            try {
+                XmlEventDispatcher.Go(parser, this);
+                if (!batch.isEmpty()) {
+                    Put(batch);
+                }
+            } catch (Cancelled exc) {
+                stopped = true; // Nobody is waiting for END
+            } catch (XmlException exc) {
+                xmlException = exc;
+            } catch (ModelException exc) {
+                modelException = exc;
+            } catch (RuntimeException exc) {
+                runtimeException = exc;
+            } catch (Throwable exc) {
+                error = exc;    // OutOfMemoryError, StackOverflowError...
+            } finally {
+                // END is always queued, or the caller would wait for it forever
+                if (!stopped) {
+                    try {
+                        Put(END);
+                    } catch (Cancelled exc) {
+                        // The caller is gone
+                    }
+                }
+            }
+        }
+
+        @Override
+        void AddInspection(InspectionInstance inspectionInstance) {
+            batch.add(inspectionInstance);
+            if (batch.size() == batchSize) {
+                Put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        // Block while the queue is full
+        private void Put(List<InspectionInstance> list) {
+            if (cancelled) {
+                throw new Cancelled();
+            }
+            try {
+                queue.put(list);
+            } catch (InterruptedException exc) {
+                throw new Cancelled();
+            }
+        }
+    }
+}
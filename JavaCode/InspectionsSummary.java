@@ -0,0 +1,160 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//
+// Inspections summary
+//   Group-by counts of an export computed by InspectionsAggregator: per Severity, per inspection type Id
+//   and per FilePath. Each group keeps one interned String and one int per distinct key, keys are indexed
+//   from 0 in the order they were first found, no InspectionInstance is kept.
+//   An inspection without the attribute or element of a group is only counted in the other groups.
+//
+public class InspectionsSummary {
+
+    public static class Counts {
+        private final XmlSymbolTable keys = new XmlSymbolTable(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        private int[] counts = new int[16];     // By key index
+
+        void Add(String key) {
+            if (key == null) {
+                return;
+            }
+            int index = keys.Id(key, 0, key.length());
+            if (index == counts.length) {
+                counts = Arrays.copyOf(counts, 2 * counts.length);
+            }
+            counts[index]++;
+        }
+
+        // Number of distinct keys
+        public int size() {
+            return keys.getCount();
+        }
+
+        public String getKey(int index) {
+            return keys.get(index);
+        }
+
+        public int getCount(int index) {
+            return counts[index];
+        }
+
+        // 0 for a key never found
+        public int getCount(String key) {
+            int index = keys.Find(key);
+            return index == XmlSymbolTable.NO_ID ? 0 : counts[index];
+        }
+
+        // Indexes of the n largest counts, largest first, equal counts in first found order.
+        // A min-heap of n indexes is kept while scanning, so the cost is size() * log(n)
+        public int[] Top(int n) {
+            n = Math.max(Math.min(n, size()), 0);
+            int[] heap = new int[n];
+            int heapSize = 0;
+            for (int index = 0; index < size(); index++) {
+                if (heapSize < n) {
+                    heap[heapSize++] = index;
+                    SiftUp(heap, heapSize - 1);
+                } else if (heapSize > 0 && IsLess(heap[0], index)) {
+                    heap[0] = index;
+                    SiftDown(heap, heapSize);
+                }
+            }
+            // Pop the smallest to the end
+            for (int end = heapSize - 1; end > 0; end--) {
+                int smallest = heap[0];
+                heap[0] = heap[end];
+                heap[end] = smallest;
+                SiftDown(heap, end);
+            }
+            return heap;
+        }
+
+        // Order of Top(): a smaller count, or the same count found later
+        private boolean IsLess(int index1, int index2) {
+            return counts[index1] < counts[index2] || (counts[index1] == counts[index2] && index1 > index2);
+        }
+
+        private void SiftUp(int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!IsLess(heap[i], heap[parent])) {
+                    return;
+                }
+                int swap = heap[i]; heap[i] = heap[parent]; heap[parent] = swap;
+                i = parent;
+            }
+        }
+
+        private void SiftDown(int[] heap, int heapSize) {
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < heapSize && IsLess(heap[left], heap[smallest])) { smallest = left; }
+                if (right < heapSize && IsLess(heap[right], heap[smallest])) { smallest = right; }
+                if (smallest == i) {
+                    return;
+                }
+                int swap = heap[i]; heap[i] = heap[smallest]; heap[smallest] = swap;
+                i = smallest;
+            }
+        }
+
+        // Keys in first found order, values are boxed here only
+        public Map<String, Integer> ToMap() {
+            LinkedHashMap<String, Integer> map = new LinkedHashMap<>();
+            for (int index = 0; index < size(); index++) {
+                map.put(keys.get(index), counts[index]);
+            }
+            return map;
+        }
+    }
+
+    int inspectionCount;
+    int inspectionTypeCount;
+    final Counts bySeverity = new Counts();
+    final Counts byTypeId = new Counts();
+    final Counts byFilePath = new Counts();
+
+    void AddInspection(String typeId, String severity, String filePath) {
+        inspectionCount++;
+        byTypeId.Add(typeId);
+        bySeverity.Add(severity);
+        byFilePath.Add(filePath);
+    }
+
+    public int getInspectionCount() {
+        return inspectionCount;
+    }
+
+    public int getInspectionTypeCount() {
+        return inspectionTypeCount;
+    }
+
+    public Counts getBySeverity() {
+        return bySeverity;
+    }
+
+    public Counts getByTypeId() {
+        return byTypeId;
+    }
+
+    public Counts getByFilePath() {
+        return byFilePath;
+    }
+
+    // The n files with the most inspections, most first
+    public List<String> TopFilePaths(int n) {
+        ArrayList<String> filePaths = new ArrayList<>();
+        for (int index : byFilePath.Top(n)) {
+            filePaths.add(byFilePath.getKey(index));
+        }
+        return filePaths;
+    }
+}
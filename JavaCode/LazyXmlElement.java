@@ -0,0 +1,306 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Lazy XML DOM
+//   An element only stores offsets in the xml content. Name, content, attributes and child
+//   elements are parsed the first time they are read, and then cached.
+//   The structure of the whole document (tags, names of close tags, comments, CDATA) is checked
+//   when the root element is created, content and attributes errors are reported when read.
+//   This structural scan reads each char once and keeps the offsets of every element and CDATA section
+//   in a Structure, so reading the child elements never scans the document again whatever the depth.
+//
+class LazyXmlElement {
+
+    private final Structure structure;
+    private final int id;               // Index of the element in structure, in document order
+
+    private String name;
+    private String content;
+    private ArrayList<XmlAttribute> attributes;
+    private ArrayList<LazyXmlElement> elements;
+
+    private LazyXmlElement(Structure structure, int id) {
+        this.structure = structure;
+        this.id = id;
+    }
+
+    public static LazyXmlElement Go(String xmlContent) throws XmlException {
+        int index = xmlContent.indexOf("xml");
+        if (index == -1) {
+            throw new XmlException("'xml' expected");
+        }
+        while (true) {
+            int indexOpenChar = xmlContent.indexOf('<', index);
+            if (indexOpenChar == -1) {
+                throw new XmlException("'<' expected"); // At least one element must have been found!
+            }
+            if (xmlContent.startsWith(TreeScanner.COMMENT_OPEN, indexOpenChar)) {
+                index = SkipComment(xmlContent, indexOpenChar);
+                continue;
+            }
+            if (xmlContent.startsWith("<!", indexOpenChar)) {
+                SkipCDATA(xmlContent, indexOpenChar);
+                throw new XmlException("CDATA section outside of any element");
+            }
+            if (xmlContent.startsWith("</", indexOpenChar)) {
+                int indexCloseChar = IndexOfOrThrow(xmlContent, '>', indexOpenChar + 2, "'>' expected");
+                throw new XmlException("No open elem <" + TreeScanner.ParseName(xmlContent, indexOpenChar + 2, indexCloseChar) + ">");
+            }
+            Structure structure = new Structure(xmlContent);
+            structure.Scan(indexOpenChar);
+            return new LazyXmlElement(structure, 0);
+        }
+    }
+
+    public String getName() {
+        if (name == null) {
+            name = TreeScanner.ParseName(structure.xmlContent, structure.index[id], structure.indexTagEnd[id]);
+        }
+        return name;
+    }
+
+    // null for  <xyz/>  like XmlElement.Content
+    public String getContent() throws XmlException {
+        if (content == null && structure.indexContentEnd[id] != -1) {
+            getElements();
+        }
+        return content;
+    }
+
+    public ArrayList<XmlAttribute> getAttributes() throws XmlException {
+        if (attributes == null) {
+            int index = structure.index[id];
+            attributes = TreeScanner.ParseAttributes(structure.xmlContent, index, structure.indexTagEnd[id] + 1 - index);
+        }
+        return attributes;
+    }
+
+    // null if there is no such attribute
+    public String getAttributeValue(String attrName) throws XmlException {
+        for (XmlAttribute attr : getAttributes()) {
+            if (attr.Name.equals(attrName)) {
+                return attr.Value;
+            }
+        }
+        return null;
+    }
+
+    // null for  <xyz/>  like XmlElement.Elements
+    public ArrayList<LazyXmlElement> getElements() throws XmlException {
+        int indexContentEnd = structure.indexContentEnd[id];
+        if (elements != null || indexContentEnd == -1) {
+            return elements;
+        }
+
+        // Direct children are found from the structure, from the first one to the end of this element subtree
+        ArrayList<LazyXmlElement> children = new ArrayList<>();
+        int subtreeEnd = structure.subtreeEnd[id];
+        for (int child = id + 1; child < subtreeEnd; child = structure.subtreeEnd[child]) {
+            children.add(new LazyXmlElement(structure, child));
+        }
+
+        String xmlContent = structure.xmlContent;
+        int cdataIndex = structure.cdataIndex[id];
+        if (cdataIndex == -1 && children.isEmpty()) {
+            // case  <Row>content</Row>
+            content = TreeScanner.ParseContent(xmlContent, structure.indexTagEnd[id] + 1, indexContentEnd);
+        } else if (cdataIndex == -1) {
+            // case  <Row> <Child /><Child /> </Row>
+            content = "";
+        } else if (children.isEmpty() && structure.cdataLength[id] != -1) {
+            // CDATA row is not kept, we only grab its content
+            content = xmlContent.substring(cdataIndex, cdataIndex + structure.cdataLength[id]);
+        } else {
+            throw new XmlException("CDATA section mixed with child elements in <" + getName() + ">");
+        }
+        elements = children;
+        return elements;
+    }
+
+    // Parse this element and all its descendants into a regular XmlElement hierarchy.
+    // Elements are visited in document order with an explicit stack, so depth is not bounded by the call stack.
+    public XmlElement ToXmlElement() throws XmlException {
+        XmlElement root = null;
+        ArrayList<LazyXmlElement> pending = new ArrayList<>();
+        ArrayList<XmlElement> parents = new ArrayList<>();
+        pending.add(this);
+        parents.add(null);
+        while (!pending.isEmpty()) {
+            LazyXmlElement lazy = pending.remove(pending.size() - 1);
+            XmlElement parent = parents.remove(parents.size() - 1);
+            XmlElement elem = new XmlElement();
+            elem.Name = lazy.getName();
+            elem.Attributes = lazy.getAttributes();
+            elem.Content = lazy.getContent();
+            if (lazy.structure.indexContentEnd[lazy.id] != -1) {
+                ArrayList<LazyXmlElement> children = lazy.getElements();
+                elem.Elements = new ArrayList<>(children.size());
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.add(children.get(i));
+                    parents.add(elem);
+                }
+            }
+            if (parent == null) {
+                root = elem;
+            } else {
+                parent.Elements.add(elem);
+            }
+        }
+        return root;
+    }
+
+    //
+    // Structural scan
+    //   Find the tags of every element without parsing names, content or attributes.
+    //   Close tag names are compared in place with the open tag names kept in nameRanges.
+    //   Elements are numbered in document order, the descendants of an element are the ones numbered
+    //   from id + 1 to subtreeEnd[id] excluded, so its first child is id + 1 and the next sibling of
+    //   a child is subtreeEnd[child]. For each element the first CDATA section is kept, its length is
+    //   -1 when the element has several.
+    //
+    private static class Structure {
+        final String xmlContent;
+        int count;
+        int[] index = new int[64];              // Index of char after <$
+        int[] indexTagEnd = new int[64];        // Index of >$ of the open tag
+        int[] indexContentEnd = new int[64];    // Index of <$ of the close tag, -1 for  <xyz/>
+        int[] subtreeEnd = new int[64];         // Id of the first element after this one and its descendants
+        int[] cdataIndex = new int[64];         // Index of the first char of the CDATA content, -1 if none
+        int[] cdataLength = new int[64];
+
+        Structure(String xmlContent) {
+            this.xmlContent = xmlContent;
+        }
+
+        // indexOpenChar is the index of <$ of the root open tag, return once the root is closed
+        void Scan(int indexOpenChar) throws XmlException {
+            int[] openIds = new int[16];
+            int[] nameRanges = new int[2 * 16];
+            int depth = 0;
+            while (true) {
+                if (xmlContent.startsWith(TreeScanner.COMMENT_OPEN, indexOpenChar)) {
+                    indexOpenChar = NextOpenChar(SkipComment(xmlContent, indexOpenChar), depth, nameRanges);
+                    continue;
+                }
+                if (xmlContent.startsWith("<!", indexOpenChar)) {
+                    int indexCDATAEnd = SkipCDATA(xmlContent, indexOpenChar);
+                    AddCDATA(openIds[depth - 1], indexOpenChar + TreeScanner.CDATA_OPEN.length(), indexCDATAEnd - TreeScanner.CDATA_CLOSE.length());
+                    indexOpenChar = NextOpenChar(indexCDATAEnd, depth, nameRanges);
+                    continue;
+                }
+                if (xmlContent.startsWith("</", indexOpenChar)) {
+                    int indexCloseChar = IndexOfOrThrow(xmlContent, '>', indexOpenChar + 2, "'>' expected");
+                    int nameStart = TreeScanner.NameStart(xmlContent, indexOpenChar + 2, indexCloseChar);
+                    int nameEnd = TreeScanner.NameEnd(xmlContent, nameStart, indexCloseChar);
+                    int openNameStart = nameRanges[2 * depth - 2];
+                    int openNameEnd = nameRanges[2 * depth - 1];
+                    if (nameEnd - nameStart != openNameEnd - openNameStart ||
+                        !xmlContent.regionMatches(nameStart, xmlContent, openNameStart, nameEnd - nameStart)) {
+                        throw new XmlException("No close elem </" + xmlContent.substring(openNameStart, openNameEnd) + ">");
+                    }
+                    int id = openIds[--depth];
+                    indexContentEnd[id] = indexOpenChar;
+                    subtreeEnd[id] = count;
+                    if (depth == 0) {
+                        return;
+                    }
+                    indexOpenChar = NextOpenChar(indexCloseChar + 1, depth, nameRanges);
+                    continue;
+                }
+                int indexFound = TreeScanner.IndexOfTagEndNotInAttribute(xmlContent, indexOpenChar + 1);
+                if (indexFound == -1) {
+                    throw new XmlException("'>' or '/' expected");
+                }
+                if (xmlContent.charAt(indexFound) == '/') {
+                    int indexCloseChar = IndexOfOrThrow(xmlContent, '>', indexFound + 1, "'>' expected");
+                    int id = Add(indexOpenChar + 1, indexCloseChar, -1);
+                    subtreeEnd[id] = count;
+                    if (depth == 0) {
+                        return; // Case  <root/>
+                    }
+                    indexOpenChar = NextOpenChar(indexCloseChar + 1, depth, nameRanges);
+                    continue;
+                }
+                if (depth == openIds.length) {
+                    openIds = Arrays.copyOf(openIds, 2 * depth);
+                    nameRanges = Arrays.copyOf(nameRanges, 4 * depth);
+                }
+                int nameStart = TreeScanner.NameStart(xmlContent, indexOpenChar + 1, indexFound);
+                nameRanges[2 * depth] = nameStart;
+                nameRanges[2 * depth + 1] = TreeScanner.NameEnd(xmlContent, nameStart, indexFound);
+                openIds[depth++] = Add(indexOpenChar + 1, indexFound, 0); // Content end set by the close tag
+                indexOpenChar = NextOpenChar(indexFound + 1, depth, nameRanges);
+            }
+        }
+
+        private int NextOpenChar(int i, int depth, int[] nameRanges) throws XmlException {
+            int indexOpenChar = xmlContent.indexOf('<', i);
+            if (indexOpenChar == -1) {
+                throw new XmlException("No close elem </" + xmlContent.substring(nameRanges[2 * depth - 2], nameRanges[2 * depth - 1]) + ">");
+            }
+            return indexOpenChar;
+        }
+
+        private int Add(int elemIndex, int elemIndexTagEnd, int elemIndexContentEnd) {
+            if (count == index.length) {
+                int capacity = 2 * count;
+                index = Arrays.copyOf(index, capacity);
+                indexTagEnd = Arrays.copyOf(indexTagEnd, capacity);
+                indexContentEnd = Arrays.copyOf(indexContentEnd, capacity);
+                subtreeEnd = Arrays.copyOf(subtreeEnd, capacity);
+                cdataIndex = Arrays.copyOf(cdataIndex, capacity);
+                cdataLength = Arrays.copyOf(cdataLength, capacity);
+            }
+            index[count] = elemIndex;
+            indexTagEnd[count] = elemIndexTagEnd;
+            indexContentEnd[count] = elemIndexContentEnd;
+            cdataIndex[count] = -1;
+            return count++;
+        }
+
+        private void AddCDATA(int id, int contentIndex, int contentEnd) {
+            if (cdataIndex[id] == -1) {
+                cdataIndex[id] = contentIndex;
+                cdataLength[id] = contentEnd - contentIndex;
+            } else {
+                cdataLength[id] = -1; // Several CDATA sections
+            }
+        }
+    }
+
+    // Return the index of the char after -->$
+    private static int SkipComment(String xmlContent, int indexOpenChar) throws XmlException {
+        int commentCloseIndex = xmlContent.indexOf(TreeScanner.COMMENT_CLOSE, indexOpenChar + TreeScanner.COMMENT_OPEN.length());
+        if (commentCloseIndex == -1) {
+            throw new XmlException("wrongly formatted xml comment");
+        }
+        return commentCloseIndex + TreeScanner.COMMENT_CLOSE.length();
+    }
+
+    // Return the index of the char after ]]>$
+    private static int SkipCDATA(String xmlContent, int indexOpenChar) throws XmlException {
+        if (!xmlContent.startsWith("<![", indexOpenChar)) {
+            throw new XmlException("wrongly formatted xml comment");
+        }
+        if (!xmlContent.startsWith(TreeScanner.CDATA_OPEN, indexOpenChar)) {
+            String cdataOpenStr = xmlContent.substring(indexOpenChar, Math.min(xmlContent.length(), indexOpenChar + TreeScanner.CDATA_OPEN.length()));
+            throw new XmlException("wrongly formatted CDATA open section, " + cdataOpenStr + " instead of " + TreeScanner.CDATA_OPEN);
+        }
+        int cdataCloseIndex = xmlContent.indexOf(TreeScanner.CDATA_CLOSE, indexOpenChar + TreeScanner.CDATA_OPEN.length());
+        if (cdataCloseIndex == -1) {
+            throw new XmlException("CDATA open section " + TreeScanner.CDATA_OPEN + " without close section " + TreeScanner.CDATA_CLOSE);
+        }
+        return cdataCloseIndex + TreeScanner.CDATA_CLOSE.length();
+    }
+
+    private static int IndexOfOrThrow(String xmlContent, char c, int index, String message) throws XmlException {
+        int indexFound = xmlContent.indexOf(c, index);
+        if (indexFound == -1) {
+            throw new XmlException(message);
+        }
+        return indexFound;
+    }
+}
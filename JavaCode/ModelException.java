@@ -2,17 +2,25 @@ package com.ndepend.inspections;
 
 public class ModelException extends Exception {
     public ModelException(XmlElement xmlElement, String[] tagsExpected) {
-        super("Expected "+Aggregate(tagsExpected)+" tag but xml element name was "+xmlElement.Name);
+        this(UnexpectedElementMessage(xmlElement.Name, tagsExpected));
     }
 
     public ModelException(XmlAttribute xmlAttribute, String[] tagsExpected) {
-        super("Expected "+Aggregate(tagsExpected)+" tag but xml attribute name was "+xmlAttribute.Name);
+        this(UnexpectedAttributeMessage(xmlAttribute.Name, tagsExpected));
     }
 
     public ModelException(String message) {
         super(message);
     }
 
+    static String UnexpectedElementMessage(String elementName, String[] tagsExpected) {
+        return "Expected "+Aggregate(tagsExpected)+" tag but xml element name was "+elementName;
+    }
+
+    static String UnexpectedAttributeMessage(String attributeName, String[] tagsExpected) {
+        return "Expected "+Aggregate(tagsExpected)+" tag but xml attribute name was "+attributeName;
+    }
+
     private static String Aggregate(String[] arr) {
         StringBuilder sb = new StringBuilder(arr[0]);
         for (int i = 1; i < arr.length; i++) {
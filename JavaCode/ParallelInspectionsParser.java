@@ -0,0 +1,219 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//
+// Parallel parsing
+//   A structural pre-scan finds the <InspectionInstance> children of each <Inspections> section,
+//   skipping comments, CDATA sections and attribute values. Runs of instances are then parsed
+//   on a ForkJoinPool, each task writes its instances at their document index.
+//   The rest of the document, with the instances cut out, is parsed sequentially.
+//   On any error, or if the document doesn't have the expected shape, the whole document
+//   is parsed sequentially so that the result and the exceptions are the ones of
+//   FillInspectionsModel.Go(XmlParsing.Go(xmlContent)).
+//
+class ParallelInspectionsParser {
+
+    final static int MIN_TASK_INSTANCES = 256;   // Fewer instances are not worth a task
+
+    private final String xmlContent;
+    private int instanceCount;
+    private int[] instanceStarts = new int[1024]; // Index of <$ of each instance
+    private int[] instanceEnds = new int[1024];   // Index after >$ of each instance
+    private final ArrayList<int[]> sections = new ArrayList<>(); // First and last instance index of each section
+
+    private ParallelInspectionsParser(String xmlContent) {
+        this.xmlContent = xmlContent;
+    }
+
+    static InspectionsExport Go(String xmlContent, ForkJoinPool pool) throws XmlException, ModelException {
+        ParallelInspectionsParser parser = new ParallelInspectionsParser(xmlContent);
+        if (!parser.PreScan() || parser.instanceCount < 2 * MIN_TASK_INSTANCES) {
+            return GoSequential(xmlContent);
+        }
+        try {
+            InspectionsExport inspectionsExport = FillInspectionsModel.Go(XmlParsing.Go(parser.WithoutInstances()));
+            if (!inspectionsExport.inspections.isEmpty()) {
+                return GoSequential(xmlContent);
+            }
+            InspectionInstance[] instances = new InspectionInstance[parser.instanceCount];
+            int taskInstances = Math.max(MIN_TASK_INSTANCES, parser.instanceCount / (4 * pool.getParallelism()));
+            pool.invoke(new ParseTask(parser, instances, 0, parser.instanceCount, taskInstances));
+            inspectionsExport.inspections.addAll(Arrays.asList(instances));
+            return inspectionsExport;
+        } catch (XmlException | ModelException | TaskFailedException exc) {
+            return GoSequential(xmlContent);
+        }
+    }
+
+    private static InspectionsExport GoSequential(String xmlContent) throws XmlException, ModelException {
+        return FillInspectionsModel.Go(XmlParsing.Go(xmlContent));
+    }
+
+    //
+    // Parse tasks
+    //
+
+    private static class ParseTask extends RecursiveAction {
+        private final ParallelInspectionsParser parser;
+        private final InspectionInstance[] instances;
+        private final int first;
+        private final int end;
+        private final int taskInstances;
+
+        ParseTask(ParallelInspectionsParser parser, InspectionInstance[] instances, int first, int end, int taskInstances) {
+            this.parser = parser;
+            this.instances = instances;
+            this.first = first;
+            this.end = end;
+            this.taskInstances = taskInstances;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - first > taskInstances) {
+                int middle = (first + end) >>> 1;
+                invokeAll(new ParseTask(parser, instances, first, middle, taskInstances),
+                          new ParseTask(parser, instances, middle, end, taskInstances));
+                return;
+            }
+            try {
+                parser.Parse(instances, first, end);
+            } catch (XmlException | ModelException exc) {
+                throw new TaskFailedException(exc); // Caught by Go(), the document is then parsed sequentially
+            }
+        }
+    }
+
+    // An XmlException or ModelException of a task, other exceptions are bugs and are not caught by Go()
+    private static class TaskFailedException extends RuntimeException {
+        TaskFailedException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // Parse instances [first, end), they are all in the same section
+    private void Parse(InspectionInstance[] instances, int first, int end) throws XmlException, ModelException {
+        ArrayList<XmlElement> elems = TreeBuilder.GoSiblings(xmlContent, instanceStarts[first], instanceEnds[end - 1]);
+        if (elems.size() != end - first) {
+            throw new XmlException("Unexpected elements between InspectionInstance elements");
+        }
+        for (int i = 0; i < elems.size(); i++) {
+            InspectionInstance instance = FillInspectionsModel.GetInspectionInstance(elems.get(i));
+            if (instance == null) {
+                throw new ModelException(elems.get(i), new String[] { FillInspectionsModel.TAG_InspectionInstance });
+            }
+            instances[first + i] = instance;
+        }
+    }
+
+    // The xml content with the instances of each section removed
+    private String WithoutInstances() {
+        StringBuilder sb = new StringBuilder(xmlContent.length() - (instanceEnds[instanceCount - 1] - instanceStarts[0]));
+        int index = 0;
+        for (int[] section : sections) {
+            sb.append(xmlContent, index, instanceStarts[section[0]]);
+            index = instanceEnds[section[1]];
+        }
+        sb.append(xmlContent, index, xmlContent.length());
+        return sb.toString();
+    }
+
+    //
+    // Pre-scan
+    //   Only tags are looked at, names of close tags are not checked since all elements are
+    //   parsed afterwards. Return false if the document cannot be split.
+    //
+
+    private boolean PreScan() {
+        int index = xmlContent.indexOf("xml");
+        if (index == -1) {
+            return false;
+        }
+        int depth = 0;
+        boolean inSection = false;    // Within  <Inspections>  child of the root element
+        int sectionFirst = 0;
+        while (true) {
+            int indexOpenChar = xmlContent.indexOf('<', index);
+            if (indexOpenChar == -1) {
+                return false;
+            }
+            if (xmlContent.startsWith(TreeScanner.COMMENT_OPEN, indexOpenChar)) {
+                int commentCloseIndex = xmlContent.indexOf(TreeScanner.COMMENT_CLOSE, indexOpenChar + TreeScanner.COMMENT_OPEN.length());
+                if (commentCloseIndex == -1) {
+                    return false;
+                }
+                index = commentCloseIndex + TreeScanner.COMMENT_CLOSE.length();
+                continue;
+            }
+            if (xmlContent.startsWith("<!", indexOpenChar)) {
+                if (inSection && depth == 2) {
+                    return false; // CDATA mixed with the instances
+                }
+                int cdataCloseIndex = xmlContent.indexOf(TreeScanner.CDATA_CLOSE, indexOpenChar);
+                if (cdataCloseIndex == -1) {
+                    return false;
+                }
+                index = cdataCloseIndex + TreeScanner.CDATA_CLOSE.length();
+                continue;
+            }
+            if (xmlContent.startsWith("</", indexOpenChar)) {
+                int indexCloseChar = xmlContent.indexOf('>', indexOpenChar + 2);
+                if (indexCloseChar == -1 || depth == 0) {
+                    return false;
+                }
+                depth--;
+                index = indexCloseChar + 1;
+                if (depth == 0) {
+                    return true; // Content after the root element is ignored, like TreeScanner does
+                }
+                if (inSection && depth == 2) {
+                    instanceEnds[instanceCount++] = index;
+                } else if (inSection && depth == 1) {
+                    if (instanceCount > sectionFirst) {
+                        sections.add(new int[] { sectionFirst, instanceCount - 1 });
+                    }
+                    inSection = false;
+                }
+                continue;
+            }
+
+            int indexFound = TreeScanner.IndexOfTagEndNotInAttribute(xmlContent, indexOpenChar + 1);
+            if (indexFound == -1) {
+                return false;
+            }
+            boolean isOpenClose = xmlContent.charAt(indexFound) == '/';
+            int indexCloseChar = isOpenClose ? xmlContent.indexOf('>', indexFound + 1) : indexFound;
+            if (indexCloseChar == -1) {
+                return false;
+            }
+            if (inSection && depth == 2) {
+                if (instanceCount == instanceStarts.length) {
+                    instanceStarts = Arrays.copyOf(instanceStarts, 2 * instanceCount);
+                    instanceEnds = Arrays.copyOf(instanceEnds, 2 * instanceCount);
+                }
+                instanceStarts[instanceCount] = indexOpenChar;
+                if (isOpenClose) {
+                    instanceEnds[instanceCount++] = indexCloseChar + 1;
+                }
+            } else if (depth == 1 && !isOpenClose) {
+                int nameStart = TreeScanner.NameStart(xmlContent, indexOpenChar + 1, indexFound);
+                int nameEnd = TreeScanner.NameEnd(xmlContent, nameStart, indexFound);
+                if (xmlContent.regionMatches(nameStart, FillInspectionsModel.TAG_Inspections, 0, nameEnd - nameStart) &&
+                    nameEnd - nameStart == FillInspectionsModel.TAG_Inspections.length()) {
+                    inSection = true;
+                    sectionFirst = instanceCount;
+                }
+            }
+            if (!isOpenClose) {
+                depth++;
+            } else if (depth == 0) {
+                return true;
+            }
+            index = indexCloseChar + 1;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Attribute cursor
+//   Scan the  name="value"  or  name='value'  pairs of a tag in place, only their ranges are kept.
+//   Names and values are Strings only when read through getName() and getValue(),
+//   typed accessors parse straight from the xml content.
+//   The same cursor is reset for each tag, so scanning allocates nothing once the ranges array fits.
+//
+class XmlAttributeCursor {
+
+    private final XmlSymbolTable symbols;   // null: names are not interned
+    private final XmlSymbolTable values;    // null: values are not interned
+
+    private String xmlContent;
+    private int count;
+    private int[] ranges = new int[4 * 8];  // nameStart, nameEnd, valueStart, valueEnd per attribute
+
+    XmlAttributeCursor() {
+        this(null, null);
+    }
+
+    XmlAttributeCursor(XmlSymbolTable symbols, XmlSymbolTable values) {
+        this.symbols = symbols;
+        this.values = values;
+    }
+
+    // index and indexEnd span the attributes in  <xyz attr="...">, after the element name
+    void Reset(String xmlContent, int index, int indexEnd) throws XmlException {
+        this.xmlContent = xmlContent;
+        this.count = 0;
+        while (true) {
+            int indexEqual = IndexOf(xmlContent, '=', index, indexEnd);
+            if (indexEqual == -1) {
+                return;
+            }
+            int indexQuoteOpen = IndexOfQuote(xmlContent, indexEqual, indexEnd);
+            if (indexQuoteOpen == -1) {
+                throw new XmlException("'\"' open expected");
+            }
+            int indexQuoteEnd = IndexOf(xmlContent, xmlContent.charAt(indexQuoteOpen), indexQuoteOpen + 1, indexEnd);
+            if (indexQuoteEnd == -1) {
+                throw new XmlException("'\"' close expected");
+            }
+
+            int nameStart = index;
+            int nameEnd = indexEqual;
+            while (nameStart < nameEnd && xmlContent.charAt(nameStart) <= ' ') { nameStart++; }
+            while (nameEnd > nameStart && xmlContent.charAt(nameEnd - 1) <= ' ') { nameEnd--; }
+
+            int offset = 4 * count;
+            if (offset == ranges.length) {
+                ranges = Arrays.copyOf(ranges, 2 * offset);
+            }
+            ranges[offset] = nameStart;
+            ranges[offset + 1] = nameEnd;
+            ranges[offset + 2] = indexQuoteOpen + 1;
+            ranges[offset + 3] = indexQuoteEnd;
+            count++;
+
+            index = indexQuoteEnd + 1; // Prepare next attribute
+        }
+    }
+
+    // Forget the xml content but keep the ranges array
+    void Clear() {
+        xmlContent = null;
+        count = 0;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getNameStart(int index) { return ranges[4 * index]; }
+    int getNameEnd(int index) { return ranges[4 * index + 1]; }
+    int getValueStart(int index) { return ranges[4 * index + 2]; }
+    int getValueEnd(int index) { return ranges[4 * index + 3]; }
+
+    String getName(int index) {
+        int offset = 4 * index;
+        return symbols != null
+            ? symbols.Intern(xmlContent, ranges[offset], ranges[offset + 1])
+            : xmlContent.substring(ranges[offset], ranges[offset + 1]);
+    }
+
+    String getValue(int index) {
+        int offset = 4 * index;
+        return values != null
+            ? values.Intern(xmlContent, ranges[offset + 2], ranges[offset + 3])
+            : xmlContent.substring(ranges[offset + 2], ranges[offset + 3]);
+    }
+
+    // -1 if there is no such attribute
+    int IndexOf(String name) {
+        for (int i = 0; i < count; i++) {
+            int offset = 4 * i;
+            if (ranges[offset + 1] - ranges[offset] == name.length() &&
+                xmlContent.regionMatches(ranges[offset], name, 0, name.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // null if there is no such attribute
+    String getValue(String name) {
+        int index = IndexOf(name);
+        return index == -1 ? null : getValue(index);
+    }
+
+    // Integer.MIN_VALUE if the value is not an int, like FillInspectionsModel.tryParseInt()
+    int getInt(int index) {
+        return ParseInt(xmlContent, ranges[4 * index + 2], ranges[4 * index + 3]);
+    }
+
+    // Integer.MIN_VALUE if there is no such attribute or if the value is not an int
+    int getInt(String name) {
+        int index = IndexOf(name);
+        return index == -1 ? Integer.MIN_VALUE : getInt(index);
+    }
+
+    // The constant whose name() is the value, null if there is no such attribute or constant
+    <E extends Enum<E>> E getEnum(String name, E[] constants) {
+        int index = IndexOf(name);
+        if (index == -1) {
+            return null;
+        }
+        int start = ranges[4 * index + 2];
+        int length = ranges[4 * index + 3] - start;
+        for (E constant : constants) {
+            String constantName = constant.name();
+            if (constantName.length() == length && xmlContent.regionMatches(start, constantName, 0, length)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    // Attributes as XmlAttribute objects, as found in XmlElement.Attributes
+    ArrayList<XmlAttribute> ToXmlAttributes() {
+        ArrayList<XmlAttribute> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            XmlAttribute attr = new XmlAttribute();
+            attr.Name = getName(i);
+            attr.Value = getValue(i);
+            list.add(attr);
+        }
+        return list;
+    }
+
+    //
+    // Helpers shared with the pull parsers
+    //
+
+    // Same result as Integer.parseInt() on the chars, Integer.MIN_VALUE if they are not an int
+    static int ParseInt(CharSequence chars, int start, int end) {
+        if (start == end) {
+            return Integer.MIN_VALUE;
+        }
+        boolean negative = chars.charAt(start) == '-';
+        int i = negative || chars.charAt(start) == '+' ? start + 1 : start;
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(chars.charAt(i), 10);
+            if (digit == -1) {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return Integer.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? Integer.MIN_VALUE : (int) value;
+    }
+
+    // Same loop on a char[], wrapping it in a CharBuffer would allocate for each attribute
+    static int ParseInt(char[] chars, int start, int end) {
+        if (start == end) {
+            return Integer.MIN_VALUE;
+        }
+        boolean negative = chars[start] == '-';
+        int i = negative || chars[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(chars[i], 10);
+            if (digit == -1) {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return Integer.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? Integer.MIN_VALUE : (int) value;
+    }
+
+    // First c from index, the search stops at indexEnd: a tag without attributes must not scan the rest of the document
+    private static int IndexOf(String xmlContent, char c, int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (xmlContent.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // First  "  or  '  from index
+    private static int IndexOfQuote(String xmlContent, int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            char c = xmlContent.charAt(i);
+            if (c == '"' || c == '\'') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
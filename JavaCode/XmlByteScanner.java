@@ -0,0 +1,161 @@
+package com.ndepend.inspections;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+//
+// Byte scanner
+//   Find structural bytes of UTF-8 xml in a ByteBuffer 8 bytes per step (SWAR: SIMD within a register).
+//   Each step reads a long and computes a mask whose high bit is set for every byte equal to the target,
+//   the first match is given by the trailing zeros of the mask. The zero byte test used is exact, there
+//   is no false positive to filter. Bytes of multi-byte UTF-8 chars are all >= 0x80, so they never match
+//   an ASCII target. The buffer order must be little endian so the first byte is the lowest one, see Prepare().
+//   The tail shorter than 8 bytes is scanned one byte at a time.
+//
+class XmlByteScanner {
+
+    private final static long ONES = 0x0101010101010101L;
+    private final static long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private final static long HIGHS = 0x8080808080808080L;
+
+    private final static long GT = ONES * '>';
+    private final static long SLASH = ONES * '/';
+    private final static long DOUBLE_QUOTE = ONES * '"';
+    private final static long SINGLE_QUOTE = ONES * '\'';
+
+    // Same content, position and limit, little endian order, the caller buffer is left as is
+    static ByteBuffer Prepare(ByteBuffer bytes) {
+        return bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // High bit set in each byte of word that is zero
+    private static long ZeroBytes(long word) {
+        long t = (word & LOW7) + LOW7;
+        return ~(t | word | LOW7);
+    }
+
+    // High bit set in each byte of word equal to the byte repeated in pattern
+    private static long EqualBytes(long word, long pattern) {
+        return ZeroBytes(word ^ pattern);
+    }
+
+    // First index of b in [index, indexEnd) or -1
+    static int IndexOf(ByteBuffer bytes, byte b, int index, int indexEnd) {
+        long pattern = ONES * (b & 0xFF);
+        int i = index;
+        for (; i + 8 <= indexEnd; i += 8) {
+            long mask = EqualBytes(bytes.getLong(i), pattern);
+            if (mask != 0) {
+                return i + (Long.numberOfTrailingZeros(mask) >>> 3);
+            }
+        }
+        for (; i < indexEnd; i++) {
+            if (bytes.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // First '>' or '/' that is not in a "value" or 'value', or -1.
+    // Quotes are found in the same pass, then the value is skipped with a single byte search.
+    static int IndexOfTagEndNotInAttribute(ByteBuffer bytes, int index, int indexEnd) {
+        int i = index;
+        while (true) {
+            int found = IndexOfStructural(bytes, i, indexEnd);
+            if (found == -1) {
+                return -1;
+            }
+            byte b = bytes.get(found);
+            if (b == '>' || b == '/') {
+                return found;
+            }
+            int quoteEnd = IndexOf(bytes, b, found + 1, indexEnd);
+            if (quoteEnd == -1) {
+                return -1;
+            }
+            i = quoteEnd + 1;
+        }
+    }
+
+    // First  >  /  "  or  '  from index
+    private static int IndexOfStructural(ByteBuffer bytes, int index, int indexEnd) {
+        int i = index;
+        for (; i + 8 <= indexEnd; i += 8) {
+            long word = bytes.getLong(i);
+            long mask = EqualBytes(word, GT) | EqualBytes(word, SLASH) |
+                        EqualBytes(word, DOUBLE_QUOTE) | EqualBytes(word, SINGLE_QUOTE);
+            if (mask != 0) {
+                return i + (Long.numberOfTrailingZeros(mask) >>> 3);
+            }
+        }
+        for (; i < indexEnd; i++) {
+            byte b = bytes.get(i);
+            if (b == '>' || b == '/' || b == '"' || b == '\'') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // true if all bytes in [index, indexEnd) are <= ' ', like the trim of the text decoder
+    static boolean IsBlank(ByteBuffer bytes, int index, int indexEnd) {
+        int i = index;
+        for (; i + 8 <= indexEnd; i += 8) {
+            long word = bytes.getLong(i);
+            // A byte > 0x20 either has its high bit set or gets it once 0x5F is added, no carry for bytes < 0x80
+            if (((((word & LOW7) + ONES * 0x5F) | word) & HIGHS) != 0) {
+                return false;
+            }
+        }
+        for (; i < indexEnd; i++) {
+            if ((bytes.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //
+    // Scalar versions, the reference for tests and benchmarks
+    //
+
+    static int IndexOfScalar(ByteBuffer bytes, byte b, int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (bytes.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int IndexOfTagEndNotInAttributeScalar(ByteBuffer bytes, int index, int indexEnd) {
+        byte quote = 0;     // Quote of the value being scanned
+        for (int i = index; i < indexEnd; i++) {
+            byte b = bytes.get(i);
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (b == '"' || b == '\'') {
+                quote = b;
+                continue;
+            }
+            if (b == '>' || b == '/') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean IsBlankScalar(ByteBuffer bytes, int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if ((bytes.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
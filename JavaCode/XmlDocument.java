@@ -0,0 +1,304 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Compact XML document
+//   The tree is stored in primitive arrays indexed by node, nodes are numbered in document order
+//   and the root node is 0. There is no object per node: read nodes through the methods below.
+//   Names are stored once in a name table, content and attribute values are kept as offsets
+//   in the xml content and only decoded when read.
+//   The arrays are filled by a TreeScanner kept private to the build, a document is read only once built.
+//
+public class XmlDocument {
+
+    final static int NONE = -1;
+
+    final static int MAX_NAMES = 64 * 1024;  // Distinct element and attribute names
+
+    final static byte CONTENT_NONE = 0;      // <xyz/>
+    final static byte CONTENT_TEXT = 1;
+    final static byte CONTENT_CDATA = 2;
+    final static byte CONTENT_ELEMENTS = 3;
+
+    private int nodeCount;
+    private int[] parent = new int[64];
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private int[] nameId = new int[64];
+    private int[] contentStart = new int[64];
+    private int[] contentEnd = new int[64];
+    private byte[] contentKind = new byte[64];
+    private int[] firstAttribute = new int[64];
+
+    private final String xmlContent;
+
+    private int attributeCount;
+    private int[] attributeNameId = new int[64];
+    private int[] attributeValueStart = new int[64];
+    private int[] attributeValueEnd = new int[64];
+
+    // Name ids are the symbol ids, names can be of any length but their number is bounded
+    private final XmlSymbolTable names = new XmlSymbolTable(MAX_NAMES, Integer.MAX_VALUE);
+
+    private XmlDocument(String xmlContent) {
+        this.xmlContent = xmlContent;
+    }
+
+    public static XmlDocument Go(String xmlContent) throws XmlException {
+        XmlDocument document = new XmlDocument(xmlContent);
+        document.new Builder().Scan(xmlContent);
+        document.Trim();
+        return document;
+    }
+
+    //
+    // Navigation
+    //
+
+    public int getRoot() {
+        return 0;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    // NONE for the root node
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    // NONE if the node has no child element
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    // NONE for the last child element
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    // First child element with this name id, or NONE
+    public int getFirstChild(int node, int childNameId) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (nameId[child] == childNameId) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    //
+    // Names
+    //
+
+    public int getNameId(int node) {
+        return nameId[node];
+    }
+
+    public String getName(int node) {
+        return names.get(nameId[node]);
+    }
+
+    // NONE if no element or attribute has this name in the document
+    public int getNameId(String name) {
+        return names.Find(name);
+    }
+
+    public String getNameFromId(int id) {
+        return names.get(id);
+    }
+
+    //
+    // Content and attributes
+    //
+
+    // Same value as XmlElement.Content, decoded at each call, text without entity nor line to trim is not copied twice
+    public String getContent(int node) {
+        switch (contentKind[node]) {
+            case CONTENT_TEXT: return TreeScanner.ParseContent(xmlContent, contentStart[node], contentEnd[node]);
+            case CONTENT_CDATA: return xmlContent.substring(contentStart[node], contentEnd[node]);
+            case CONTENT_ELEMENTS: return "";
+            default: return null;
+        }
+    }
+
+    public int getAttributeCount(int node) {
+        return AttributesEnd(node) - firstAttribute[node];
+    }
+
+    public String getAttributeName(int node, int index) {
+        return names.get(attributeNameId[firstAttribute[node] + index]);
+    }
+
+    public String getAttributeValue(int node, int index) {
+        int attribute = firstAttribute[node] + index;
+        return xmlContent.substring(attributeValueStart[attribute], attributeValueEnd[attribute]);
+    }
+
+    // null if the node has no such attribute
+    public String getAttributeValue(int node, String name) {
+        int id = getNameId(name);
+        for (int attribute = firstAttribute[node]; id != NONE && attribute < AttributesEnd(node); attribute++) {
+            if (attributeNameId[attribute] == id) {
+                return xmlContent.substring(attributeValueStart[attribute], attributeValueEnd[attribute]);
+            }
+        }
+        return null;
+    }
+
+    private int AttributesEnd(int node) {
+        return node + 1 < nodeCount ? firstAttribute[node + 1] : attributeCount;
+    }
+
+    // Decode the node and its descendants into a regular XmlElement hierarchy.
+    // Nodes are numbered in document order and each node follows its parent, so one loop over
+    // [node, end of its subtree) builds the hierarchy without recursion.
+    public XmlElement ToXmlElement(int node) {
+        XmlElement[] elems = new XmlElement[SubtreeEnd(node) - node];
+        XmlTextDecoder decoder = new XmlTextDecoder();  // One buffer for all the texts of the subtree
+        for (int n = node; n < node + elems.length; n++) {
+            XmlElement elem = new XmlElement();
+            elem.Name = getName(n);
+            elem.Content = contentKind[n] == CONTENT_TEXT ? decoder.Decode(xmlContent, contentStart[n], contentEnd[n]) : getContent(n);
+            elem.Attributes = new ArrayList<>(getAttributeCount(n));
+            for (int i = 0; i < getAttributeCount(n); i++) {
+                XmlAttribute attr = new XmlAttribute();
+                attr.Name = getAttributeName(n, i);
+                attr.Value = getAttributeValue(n, i);
+                elem.Attributes.add(attr);
+            }
+            if (contentKind[n] != CONTENT_NONE) {
+                elem.Elements = new ArrayList<>();
+            }
+            if (n != node) {
+                elems[parent[n] - node].Elements.add(elem);
+            }
+            elems[n - node] = elem;
+        }
+        return elems[0];
+    }
+
+    // First node after the subtree of node: the next sibling of node or of its closest ancestor that has one
+    private int SubtreeEnd(int node) {
+        for (int n = node; n != NONE; n = parent[n]) {
+            if (nextSibling[n] != NONE) {
+                return nextSibling[n];
+            }
+        }
+        return nodeCount;
+    }
+
+    //
+    // Build
+    //   Node and last child node of open elements by depth and the attributes of the tag are only needed while scanning
+    //
+
+    private class Builder extends TreeScanner {
+
+        private int[] openNodes = new int[16];
+        private int[] lastChildren = new int[16];
+        private final XmlAttributeCursor attributes = new XmlAttributeCursor();
+
+        @Override
+        protected void OpenElement(int index, int nameStart, int nameEnd, int indexTagEnd, int indexCloseChar, boolean isOpenClose) throws XmlException {
+            if (nodeCount == parent.length) {
+                Grow();
+            }
+            int node = nodeCount++;
+            nameId[node] = NameId(nameStart, nameEnd);
+            firstChild[node] = NONE;
+            nextSibling[node] = NONE;
+            contentKind[node] = CONTENT_NONE;
+            firstAttribute[node] = attributeCount;
+            ParseAttributeRanges(nameEnd, indexTagEnd);
+
+            if (depth == 0) {
+                parent[node] = NONE;
+            } else {
+                int parentNode = openNodes[depth - 1];
+                parent[node] = parentNode;
+                int lastChild = lastChildren[depth - 1];
+                if (lastChild == NONE) {
+                    firstChild[parentNode] = node;
+                } else {
+                    nextSibling[lastChild] = node;
+                }
+                lastChildren[depth - 1] = node;
+            }
+
+            if (!isOpenClose) {
+                if (depth == openNodes.length) {
+                    openNodes = Arrays.copyOf(openNodes, 2 * depth);
+                    lastChildren = Arrays.copyOf(lastChildren, 2 * depth);
+                }
+                openNodes[depth] = node;
+                lastChildren[depth] = NONE;
+            }
+        }
+
+        @Override
+        protected void CloseElement(ContentKind kind, int start, int end) {
+            int node = openNodes[depth];
+            contentStart[node] = start;
+            contentEnd[node] = end;
+            switch (kind) {
+                case Text: contentKind[node] = CONTENT_TEXT; break;
+                case CDATA: contentKind[node] = CONTENT_CDATA; break;
+                default: contentKind[node] = CONTENT_ELEMENTS; break;
+            }
+        }
+
+        private void ParseAttributeRanges(int index, int indexEnd) throws XmlException {
+            attributes.Reset(xmlContent, index, indexEnd);
+            for (int i = 0; i < attributes.getCount(); i++) {
+                if (attributeCount == attributeNameId.length) {
+                    attributeNameId = Arrays.copyOf(attributeNameId, 2 * attributeCount);
+                    attributeValueStart = Arrays.copyOf(attributeValueStart, 2 * attributeCount);
+                    attributeValueEnd = Arrays.copyOf(attributeValueEnd, 2 * attributeCount);
+                }
+                attributeNameId[attributeCount] = NameId(attributes.getNameStart(i), attributes.getNameEnd(i));
+                attributeValueStart[attributeCount] = attributes.getValueStart(i);
+                attributeValueEnd[attributeCount] = attributes.getValueEnd(i);
+                attributeCount++;
+            }
+        }
+
+        private int NameId(int nameStart, int nameEnd) throws XmlException {
+            int id = names.Id(xmlContent, nameStart, nameEnd);
+            if (id == XmlSymbolTable.NO_ID) {
+                throw new XmlException("More than " + MAX_NAMES + " distinct element and attribute names");
+            }
+            return id;
+        }
+    }
+
+    private void Grow() {
+        int length = 2 * parent.length;
+        parent = Arrays.copyOf(parent, length);
+        firstChild = Arrays.copyOf(firstChild, length);
+        nextSibling = Arrays.copyOf(nextSibling, length);
+        nameId = Arrays.copyOf(nameId, length);
+        contentStart = Arrays.copyOf(contentStart, length);
+        contentEnd = Arrays.copyOf(contentEnd, length);
+        contentKind = Arrays.copyOf(contentKind, length);
+        firstAttribute = Arrays.copyOf(firstAttribute, length);
+    }
+
+    // Release the unused capacity once built
+    private void Trim() {
+        parent = Arrays.copyOf(parent, nodeCount);
+        firstChild = Arrays.copyOf(firstChild, nodeCount);
+        nextSibling = Arrays.copyOf(nextSibling, nodeCount);
+        nameId = Arrays.copyOf(nameId, nodeCount);
+        contentStart = Arrays.copyOf(contentStart, nodeCount);
+        contentEnd = Arrays.copyOf(contentEnd, nodeCount);
+        contentKind = Arrays.copyOf(contentKind, nodeCount);
+        firstAttribute = Arrays.copyOf(firstAttribute, nodeCount);
+        attributeNameId = Arrays.copyOf(attributeNameId, attributeCount);
+        attributeValueStart = Arrays.copyOf(attributeValueStart, attributeCount);
+        attributeValueEnd = Arrays.copyOf(attributeValueEnd, attributeCount);
+    }
+}
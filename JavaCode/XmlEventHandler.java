@@ -0,0 +1,146 @@
+package com.ndepend.inspections;
+
+import java.util.ArrayList;
+
+//
+// Callback API
+//   XmlEventDispatcher reads an XmlPullParser and calls the handler back.
+//   Content is computed the same way as XmlElement.Content, no XmlElement is built.
+//
+interface XmlEventHandler {
+
+    // Attributes of the element can be read from the parser during the call
+    void StartElement(String name, XmlPullParser attributes) throws ModelException;
+
+    // Called before EndElement for an element without child elements, not called for  <xyz/>
+    void Content(String content) throws ModelException;
+
+    void EndElement(String name) throws ModelException;
+}
+
+
+class XmlEventDispatcher {
+
+    // An element whose StartElement has been read and EndElement not yet
+    static class Frame {
+        String name;
+        String text;         // Text events of an element without child elements
+        int rowCount;        // Number of child elements and CDATA sections
+        int cdataCount;
+        String cdata;
+    }
+
+    public static void Go(XmlPullParser parser, XmlEventHandler handler) throws XmlException, ModelException {
+        Go(parser, handler, XmlParseLimits.NONE);
+    }
+
+    // The document size is only checked by the callers that know it, see XmlParsing.Go(Path, limits)
+    public static void Go(XmlPullParser parser, XmlEventHandler handler, XmlParseLimits limits) throws XmlException, ModelException {
+        Go(parser, handler, limits, new ArrayList<>());
+    }
+
+    // frames are reused between calls by parsers that parse many documents, see XmlParser
+    static void Go(XmlPullParser parser, XmlEventHandler handler, XmlParseLimits limits, ArrayList<Frame> frames) throws XmlException, ModelException {
+        XmlParseMetrics metrics = XmlInstrumentation.Start(XmlParseMetrics.Phase.PullParse);
+        Go(parser, handler, limits, metrics, false, frames);
+        if (metrics != null) {
+            XmlInstrumentation.End(metrics);
+        }
+    }
+
+    // Dispatch the element of the current StartElement, the parser is left on its EndElement
+    static void GoElement(XmlPullParser parser, XmlEventHandler handler) throws XmlException, ModelException {
+        if (parser.getEvent() != XmlPullEvent.StartElement) {
+            throw new IllegalStateException("GoElement() called on " + parser.getEvent());
+        }
+        Go(parser, handler, XmlParseLimits.NONE, null, true, new ArrayList<>());
+    }
+
+    // metrics is null unless instrumented, with fromCurrentEvent the first event is the current one
+    private static void Go(XmlPullParser parser, XmlEventHandler handler, XmlParseLimits limits, XmlParseMetrics metrics,
+                           boolean fromCurrentEvent, ArrayList<Frame> stack) throws XmlException, ModelException {
+        int depth = 0;
+        int elementCount = 0;
+
+        while (true) {
+            XmlPullEvent event = fromCurrentEvent ? parser.getEvent() : parser.Next();
+            fromCurrentEvent = false;
+            switch (event) {
+                case StartElement: {
+                    elementCount++;
+                    if (depth >= limits.maxDepth || elementCount > limits.maxElementCount) {
+                        limits.CheckElement(depth + 1, elementCount, parser.getName());
+                    }
+                    if (parser.getAttributeCount() > limits.maxAttributesPerElement) {
+                        limits.CheckAttributes(parser.getAttributeCount(), parser.getName());
+                    }
+                    if (depth > 0) {
+                        stack.get(depth - 1).rowCount++;
+                    }
+                    if (depth == stack.size()) {
+                        stack.add(new Frame());
+                    }
+                    Frame frame = stack.get(depth++);
+                    frame.name = parser.getName();
+                    frame.text = null;
+                    frame.rowCount = 0;
+                    frame.cdataCount = 0;
+                    frame.cdata = null;
+                    if (metrics != null) {
+                        metrics.elementCount++;
+                        metrics.attributeCount += parser.getAttributeCount();
+                        metrics.maxDepth = Math.max(metrics.maxDepth, depth);
+                    }
+                    handler.StartElement(parser.getName(), parser);
+                    break;
+                }
+                case Text: {
+                    Frame frame = stack.get(depth - 1);
+                    String text = parser.getText();
+                    int textLength = (frame.text == null ? 0 : frame.text.length()) + text.length();
+                    if (textLength > limits.maxContentLength) {
+                        limits.CheckContent(textLength, frame.name);
+                    }
+                    frame.text = frame.text == null ? text : frame.text + text;
+                    break;
+                }
+                case CDATA: {
+                    Frame frame = stack.get(depth - 1);
+                    frame.rowCount++;
+                    frame.cdataCount++;
+                    frame.cdata = parser.getText();
+                    if (frame.cdata.length() > limits.maxContentLength) {
+                        limits.CheckContent(frame.cdata.length(), frame.name);
+                    }
+                    if (metrics != null) {
+                        metrics.cdataCount++;
+                    }
+                    break;
+                }
+                case EndElement: {
+                    Frame frame = stack.get(--depth);
+                    if (parser.isEmptyElement()) {
+                        // Case  <xyz/>  has neither content nor child elements
+                    } else if (frame.rowCount == 0) {
+                        // case  <Row>content</Row>
+                        handler.Content(frame.text == null ? "" : frame.text);
+                    } else if (frame.cdataCount == 1 && frame.rowCount == 1) {
+                        // CDATA row is not kept, we only grab its content
+                        handler.Content(frame.cdata);
+                    } else if (frame.cdataCount > 0) {
+                        throw new XmlException("CDATA section mixed with child elements in <" + parser.getName() + ">");
+                    }
+                    frame.text = null;
+                    frame.cdata = null;
+                    handler.EndElement(parser.getName());
+                    if (depth == 0) {
+                        return; // Done with the root element
+                    }
+                    break;
+                }
+                case EndDocument:
+                    throw new XmlException("'<' expected");
+            }
+        }
+    }
+}
@@ -4,4 +4,8 @@ public class XmlException extends  Exception {
     public XmlException(String message) {
         super(message);
     }
+
+    public XmlException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
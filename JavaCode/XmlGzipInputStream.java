@@ -0,0 +1,198 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+//
+// Gzip input
+//   Inflate a gzip compressed export on a producer thread while the caller thread parses it.
+//   Inflated bytes go through a fixed ring of chunkCount reused chunks: the producer fills a free chunk
+//   and queues it, the reader hands it back once read. When all chunks are full the producer blocks,
+//   so memory doesn't depend on the inflated size and no inflated copy of the whole document exists.
+//   The inflated size is checked against the limits as it grows, a gzip bomb fails early.
+//   An inflate error, an exceeded limit or an Error of the producer thread is thrown by read() once the chunks
+//   before it were read, an exceeded limit is an IOException whose cause is the XmlException of XmlParseLimits.
+//
+class XmlGzipInputStream extends InputStream {
+
+    final static int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    final static int DEFAULT_CHUNK_COUNT = 4;
+
+    private final static int GZIP_MAGIC_1 = 0x1F;
+    private final static int GZIP_MAGIC_2 = 0x8B;
+
+    private static class Chunk {
+        final byte[] bytes;
+        int length;
+
+        Chunk(int size) {
+            bytes = new byte[size];
+        }
+    }
+
+    // Marks the end of the inflated bytes, only compared by reference
+    private final static Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> freeChunks;
+    private final BlockingQueue<Chunk> filledChunks;
+    private final Thread thread;
+    private volatile IOException producerException;   // Set by the producer thread before END is queued
+    private volatile Error producerError;             // Same, thrown as is by read()
+
+    private Chunk chunk;    // Chunk being read, null when a new one must be taken
+    private int pos;
+    private boolean ended;
+
+    XmlGzipInputStream(InputStream compressed, XmlParseLimits limits) {
+        this(compressed, limits, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_COUNT);
+    }
+
+    XmlGzipInputStream(InputStream compressed, XmlParseLimits limits, int chunkSize, int chunkCount) {
+        chunkCount = Math.max(chunkCount, 2);
+        freeChunks = new ArrayBlockingQueue<>(chunkCount);
+        filledChunks = new ArrayBlockingQueue<>(chunkCount + 1); // END always fits
+        for (int i = 0; i < chunkCount; i++) {
+            freeChunks.add(new Chunk(Math.max(chunkSize, 1024)));
+        }
+        thread = new Thread(() -> Inflate(compressed, limits), "XmlGzipInputStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static XmlGzipInputStream Open(Path gzipFile, XmlParseLimits limits) throws IOException {
+        return new XmlGzipInputStream(Files.newInputStream(gzipFile), limits);
+    }
+
+    // true if the file starts with the gzip magic bytes, whatever its extension
+    static boolean IsGzip(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return stream.read() == GZIP_MAGIC_1 && stream.read() == GZIP_MAGIC_2;
+        }
+    }
+
+    //
+    // Producer
+    //
+
+    private void Inflate(InputStream compressed, XmlParseLimits limits) {
+        boolean interrupted = false;
+        try (GZIPInputStream gzip = new GZIPInputStream(compressed, 64 * 1024)) {
+            long total = 0;
+            while (true) {
+                Chunk free = freeChunks.take();
+                int length = 0;
+                int read = 0;
+                while (length < free.bytes.length && (read = gzip.read(free.bytes, length, free.bytes.length - length)) > 0) {
+                    length += read;
+                }
+                total += length;
+                if (total > limits.maxTotalBytes) {
+                    try {
+                        limits.CheckTotalBytes(total);
+                    } catch (XmlException exc) {
+                        throw new IOException(exc.getMessage(), exc);
+                    }
+                }
+                if (length > 0) {
+                    free.length = length;
+                    filledChunks.put(free);
+                }
+                if (read < 0 || length == 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException exc) {
+            interrupted = true; // Closed, nobody is waiting for END
+        } catch (IOException exc) {
+            producerException = exc;
+        } catch (Error exc) {
+            producerError = exc;
+        } catch (Throwable exc) {
+            producerException = new IOException(exc.toString(), exc);
+        } finally {
+            // END is always queued, or the reader would wait for it forever
+            if (!interrupted) {
+                filledChunks.add(END);
+            }
+        }
+    }
+
+    //
+    // Reader
+    //
+
+    @Override
+    public int read() throws IOException {
+        if (!NextChunk()) {
+            return -1;
+        }
+        return chunk.bytes[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!NextChunk()) {
+            return -1;
+        }
+        int count = Math.min(length, chunk.length - pos);
+        System.arraycopy(chunk.bytes, pos, bytes, offset, count);
+        pos += count;
+        return count;
+    }
+
+    // Make sure chunk has bytes left to read, false at the end of the inflated bytes
+    private boolean NextChunk() throws IOException {
+        if (chunk != null && pos < chunk.length) {
+            return true;
+        }
+        if (chunk != null) {
+            freeChunks.add(chunk);
+            chunk = null;
+        }
+        if (ended) {
+            return false;
+        }
+        Chunk next;
+        try {
+            next = filledChunks.take();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Inflate interrupted");
+        }
+        if (next == END) {
+            ended = true;
+            if (producerError != null) {
+                throw producerError;
+            }
+            if (producerException != null) {
+                throw producerException;
+            }
+            return false;
+        }
+        chunk = next;
+        pos = 0;
+        return true;
+    }
+
+    // Stop the producer and wait for it, so the compressed file is closed when close() returns
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        chunk = null;
+        ended = true;
+    }
+}
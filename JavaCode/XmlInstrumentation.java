@@ -0,0 +1,130 @@
+package com.ndepend.inspections;
+
+import java.lang.management.ManagementFactory;
+
+//
+// Instrumentation
+//   Opt-in metrics of the parse phases, reported to the listener and as JFR events
+//   (com.ndepend.inspections.Parse, disabled unless a recording enables it).
+//   When no listener is set and no recording wants the event, Start() returns null and the parsers
+//   skip all the measuring: one volatile read and one JFR enabled check on the cached event type per phase,
+//   no event is allocated and nothing is done per element.
+//   JFR and per thread allocation counters are optional, runtimes without them only lose these metrics.
+//
+public class XmlInstrumentation {
+
+    private static volatile XmlParseListener listener;
+
+    private final static boolean JFR_AVAILABLE = IsClassAvailable("jdk.jfr.Event");
+    private final static boolean ALLOCATION_AVAILABLE = IsClassAvailable("com.sun.management.ThreadMXBean") && Allocation.IsSupported();
+
+    public static void setListener(XmlParseListener parseListener) {
+        listener = parseListener;
+    }
+
+    public static XmlParseListener getListener() {
+        return listener;
+    }
+
+    // null when nobody listens
+    static XmlParseMetrics Start(XmlParseMetrics.Phase phase) {
+        boolean recorded = JFR_AVAILABLE && Jfr.IsEnabled();
+        if (!recorded && listener == null) {
+            return null;
+        }
+        ParseEvent event = recorded ? new ParseEvent() : null;
+        XmlParseMetrics metrics = new XmlParseMetrics(phase);
+        metrics.event = event;
+        metrics.startAllocatedBytes = ALLOCATION_AVAILABLE ? Allocation.CurrentThread() : -1;
+        if (event != null) {
+            event.begin();
+        }
+        metrics.startNanos = System.nanoTime();
+        return metrics;
+    }
+
+    static void End(XmlParseMetrics metrics) {
+        metrics.wallNanos = System.nanoTime() - metrics.startNanos;
+        if (ALLOCATION_AVAILABLE) {
+            metrics.allocatedBytes = Allocation.CurrentThread() - metrics.startAllocatedBytes;
+        }
+        if (metrics.event != null) {
+            ((ParseEvent) metrics.event).Commit(metrics);
+        }
+        XmlParseListener parseListener = listener;
+        if (parseListener != null) {
+            parseListener.PhaseCompleted(metrics);
+        }
+    }
+
+    private static boolean IsClassAvailable(String className) {
+        try {
+            Class.forName(className, false, XmlInstrumentation.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError exc) {
+            return false;
+        }
+    }
+
+    // Only loaded when com.sun.management is there
+    private static class Allocation {
+        static boolean IsSupported() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            return bean instanceof com.sun.management.ThreadMXBean &&
+                   ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() &&
+                   ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled();
+        }
+
+        static long CurrentThread() {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    //
+    // JFR event, only loaded when jdk.jfr is there
+    //
+
+    // The event type is looked up once, its enabled state follows the running recordings
+    private static class Jfr {
+        private final static jdk.jfr.EventType PARSE_EVENT = jdk.jfr.EventType.getEventType(ParseEvent.class);
+
+        static boolean IsEnabled() {
+            return PARSE_EVENT.isEnabled();
+        }
+    }
+
+    @jdk.jfr.Name("com.ndepend.inspections.Parse")
+    @jdk.jfr.Label("Xml Parse Phase")
+    @jdk.jfr.Category({ "NDepend", "Inspections" })
+    @jdk.jfr.Enabled(false)
+    static class ParseEvent extends jdk.jfr.Event {
+        @jdk.jfr.Label("Phase") String phase;
+        @jdk.jfr.Label("Content Decoding") @jdk.jfr.Timespan long contentNanos;
+        @jdk.jfr.Label("Attribute Parsing") @jdk.jfr.Timespan long attributeNanos;
+        @jdk.jfr.Label("Bytes Scanned") @jdk.jfr.DataAmount long bytesScanned;
+        @jdk.jfr.Label("Elements") int elementCount;
+        @jdk.jfr.Label("Attributes") int attributeCount;
+        @jdk.jfr.Label("Entities") int entityCount;
+        @jdk.jfr.Label("CDATA Sections") int cdataCount;
+        @jdk.jfr.Label("Maximum Depth") int maxDepth;
+        @jdk.jfr.Label("Allocated") @jdk.jfr.DataAmount long allocatedBytes;
+
+        void Commit(XmlParseMetrics metrics) {
+            end();
+            if (!shouldCommit()) {
+                return;
+            }
+            phase = metrics.phase.name();
+            contentNanos = metrics.contentNanos;
+            attributeNanos = metrics.attributeNanos;
+            bytesScanned = metrics.bytesScanned;
+            elementCount = metrics.elementCount;
+            attributeCount = metrics.attributeCount;
+            entityCount = metrics.entityCount;
+            cdataCount = metrics.cdataCount;
+            maxDepth = metrics.maxDepth;
+            allocatedBytes = metrics.allocatedBytes;
+            commit();
+        }
+    }
+}
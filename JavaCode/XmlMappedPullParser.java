@@ -0,0 +1,605 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//
+// Pull parser over the UTF-8 bytes of a memory-mapped file
+//   The structural chars  < > / " =  are ASCII and a UTF-8 multi-bytes sequence never contains
+//   an ASCII byte, so bytes are scanned directly without decoding the file.
+//   Only the names, attribute values and text actually read through the getters are decoded.
+//
+public class XmlMappedPullParser implements XmlPullParser {
+
+    final static byte[] CDATA_OPEN = "<![CDATA[".getBytes(StandardCharsets.US_ASCII);
+    final static byte[] CDATA_CLOSE = "]]>".getBytes(StandardCharsets.US_ASCII);
+    final static byte[] COMMENT_OPEN = "<!--".getBytes(StandardCharsets.US_ASCII);
+    final static byte[] COMMENT_CLOSE = "-->".getBytes(StandardCharsets.US_ASCII);
+    final static byte[] PI_CLOSE = "?>".getBytes(StandardCharsets.US_ASCII);
+
+    private final static ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private FileChannel channel;
+    private ByteBuffer bytes;
+    private int limit;
+    private int pos;
+    private byte[] scratch = new byte[256]; // Bytes to decode are copied here
+    private final char[] digits = new char[32]; // ASCII int values are widened here to be parsed
+
+    private XmlPullEvent event;
+    private int[] nameRanges = new int[2 * 16]; // nameStart, nameEnd of the open elements
+    private int depth;
+    private boolean pendingEndElement;          // Set after the StartElement of  <xyz/>
+    private boolean emptyElement;               // Set on the EndElement of  <xyz/>
+
+    private int nameStart;
+    private int nameEnd;
+    private String name;
+    private int textStart;
+    private int textEnd;
+    private String text;
+
+    private int attributeCount;
+    private int[] attributeRanges = new int[4 * 8]; // nameStart, nameEnd, valueStart, valueEnd per attribute
+
+    private final XmlSymbolTable symbols = new XmlSymbolTable(); // Element and attribute names
+    private XmlSymbolTable values;                               // null unless values are interned
+    private final XmlTextDecoder textDecoder = new XmlTextDecoder();
+
+    public XmlMappedPullParser(ByteBuffer bytes) {
+        this(null, bytes);
+    }
+
+    private XmlMappedPullParser(FileChannel channel, ByteBuffer bytes) {
+        this.channel = channel;
+        this.bytes = XmlByteScanner.Prepare(bytes);
+        this.pos = bytes.position();
+        this.limit = bytes.limit();
+    }
+
+    public static XmlMappedPullParser Open(Path xmlFile) throws IOException {
+        XmlMappedPullParser parser = new XmlMappedPullParser(EMPTY);
+        parser.Reset(xmlFile);
+        return parser;
+    }
+
+    //
+    // Reuse
+    //   A parser can read several documents one after the other, its arrays, decoder buffer
+    //   and symbol table of names are kept. Interned values are not shared between documents.
+    //
+
+    // Map xmlFile, the file previously mapped must have been closed
+    void Reset(Path xmlFile) throws IOException {
+        FileChannel fileChannel = FileChannel.open(xmlFile, StandardOpenOption.READ);
+        try {
+            long size = fileChannel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to be mapped: " + xmlFile);
+            }
+            Reset(fileChannel, fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException exc) {
+            fileChannel.close();
+            throw exc;
+        }
+    }
+
+    // Close the file and drop the mapped buffer, so the file isn't kept mapped until the parser is reused
+    void Release() throws IOException {
+        try {
+            close();
+        } finally {
+            Reset(null, EMPTY);
+        }
+    }
+
+    private void Reset(FileChannel channel, ByteBuffer bytes) {
+        this.channel = channel;
+        this.bytes = XmlByteScanner.Prepare(bytes);
+        this.pos = bytes.position();
+        this.limit = bytes.limit();
+        event = null;
+        depth = 0;
+        pendingEndElement = false;
+        emptyElement = false;
+        attributeCount = 0;
+        name = null;
+        text = null;
+        if (values != null) {
+            values.Clear();
+        }
+    }
+
+    @Override
+    public XmlPullEvent Next() throws XmlException {
+        attributeCount = 0;
+        name = null;
+        text = null;
+        emptyElement = false;
+
+        if (pendingEndElement) {
+            // Case  <xyz/>  second event
+            pendingEndElement = false;
+            emptyElement = true;
+            depth--;
+            return event = XmlPullEvent.EndElement;
+        }
+        if (event == XmlPullEvent.EndDocument ||
+            (event == XmlPullEvent.EndElement && depth == 0)) {
+            return event = XmlPullEvent.EndDocument;
+        }
+
+        while (true) {
+            int indexOpenChar = IndexOf('<', pos);
+            if (indexOpenChar == -1) {
+                if (depth > 0) {
+                    throw new XmlException("No close elem </" + Decode(nameRanges[2 * depth - 2], nameRanges[2 * depth - 1]) + ">");
+                }
+                throw new XmlException("'<' expected"); // At least one element must have been found!
+            }
+
+            if (indexOpenChar > pos && depth > 0 && !IsBlank(pos, indexOpenChar)) {
+                // Text between tags, the '<' will be parsed by the next call
+                textStart = pos;
+                textEnd = indexOpenChar;
+                pos = indexOpenChar;
+                return event = XmlPullEvent.Text;
+            }
+
+            pos = indexOpenChar;
+            int nextChar = indexOpenChar + 1 < limit ? bytes.get(indexOpenChar + 1) : -1;
+
+            if (nextChar == '!') {
+                if (StartsWith(COMMENT_OPEN, indexOpenChar)) {
+                    // case <!--xyz-->  comments are skipped
+                    int commentCloseIndex = IndexOf(COMMENT_CLOSE, indexOpenChar + COMMENT_OPEN.length);
+                    if (commentCloseIndex == -1) {
+                        throw new XmlException("wrongly formatted xml comment");
+                    }
+                    pos = commentCloseIndex + COMMENT_CLOSE.length;
+                    continue;
+                }
+                if (indexOpenChar + 2 >= limit || bytes.get(indexOpenChar + 2) != '[') {
+                    throw new XmlException("wrongly formatted xml comment");
+                }
+                return ParseCDATA(indexOpenChar);
+            }
+
+            if (nextChar == '?') {
+                // case <?xyz?>  processing instructions like the xml declaration are skipped
+                int piCloseIndex = IndexOf(PI_CLOSE, indexOpenChar + 2);
+                if (piCloseIndex == -1) {
+                    throw new XmlException("'?>' expected");
+                }
+                pos = piCloseIndex + PI_CLOSE.length;
+                continue;
+            }
+
+            if (nextChar == '/') {
+                return ParseCloseTag(indexOpenChar);
+            }
+
+            return ParseOpenTag(indexOpenChar);
+        }
+    }
+
+    // case  <![CDATA[xyz]]>
+    private XmlPullEvent ParseCDATA(int indexOpenChar) throws XmlException {
+        if (!StartsWith(CDATA_OPEN, indexOpenChar)) {
+            String cdataOpenStr = Decode(indexOpenChar, Math.min(limit, indexOpenChar + CDATA_OPEN.length));
+            throw new XmlException("wrongly formatted CDATA open section, " + cdataOpenStr + " instead of <![CDATA[");
+        }
+        int cdataCloseIndex = IndexOf(CDATA_CLOSE, indexOpenChar + CDATA_OPEN.length);
+        if (cdataCloseIndex == -1) {
+            throw new XmlException("CDATA open section <![CDATA[ without close section ]]>");
+        }
+        if (depth == 0) {
+            throw new XmlException("CDATA section outside of any element");
+        }
+        textStart = indexOpenChar + CDATA_OPEN.length;
+        textEnd = cdataCloseIndex;
+        pos = cdataCloseIndex + CDATA_CLOSE.length;
+        return event = XmlPullEvent.CDATA;
+    }
+
+    // case </xyz>
+    private XmlPullEvent ParseCloseTag(int indexOpenChar) throws XmlException {
+        int indexCloseChar = IndexOf('>', indexOpenChar + 2);
+        if (indexCloseChar == -1) {
+            throw new XmlException("'>' expected");
+        }
+        ParseNameRange(indexOpenChar + 2, indexCloseChar);
+        if (depth == 0) {
+            throw new XmlException("No open elem <" + Decode(nameStart, nameEnd) + ">");
+        }
+        int openNameStart = nameRanges[2 * depth - 2];
+        int openNameEnd = nameRanges[2 * depth - 1];
+        if (!RegionEquals(openNameStart, openNameEnd, nameStart, nameEnd)) {
+            throw new XmlException("No close elem </" + Decode(openNameStart, openNameEnd) + ">");
+        }
+        depth--;
+        pos = indexCloseChar + 1;
+        return event = XmlPullEvent.EndElement;
+    }
+
+    // case <xyz>  or  <xyz/>
+    private XmlPullEvent ParseOpenTag(int indexOpenChar) throws XmlException {
+        int indexFound = IndexOfTagEndNotInAttribute(indexOpenChar + 1);
+        if (indexFound == -1) {
+            throw new XmlException("'>' or '/' expected");
+        }
+        int indexCloseChar = indexFound;
+        boolean isOpenClose = bytes.get(indexFound) == '/';
+        if (isOpenClose) {
+            indexCloseChar = IndexOf('>', indexFound + 1);
+            if (indexCloseChar == -1) {
+                throw new XmlException("'>' expected");
+            }
+        }
+
+        ParseNameRange(indexOpenChar + 1, indexFound);
+        ParseAttributes(nameEnd, indexFound);
+
+        if (2 * depth == nameRanges.length) {
+            nameRanges = Arrays.copyOf(nameRanges, 4 * depth);
+        }
+        nameRanges[2 * depth] = nameStart;
+        nameRanges[2 * depth + 1] = nameEnd;
+        depth++;
+        pendingEndElement = isOpenClose;
+        pos = indexCloseChar + 1;
+        return event = XmlPullEvent.StartElement;
+    }
+
+    private void ParseAttributes(int index, int indexEnd) throws XmlException {
+        while (true) {
+            int indexEqual = IndexOf('=', index, indexEnd);
+            if (indexEqual == -1) {
+                return;
+            }
+            int indexQuoteOpen = IndexOfQuote(indexEqual, indexEnd);
+            if (indexQuoteOpen == -1) {
+                throw new XmlException("'\"' open expected");
+            }
+            char quote = (char) bytes.get(indexQuoteOpen++);
+            int indexQuoteEnd = IndexOf(quote, indexQuoteOpen, indexEnd);
+            if (indexQuoteEnd == -1) {
+                throw new XmlException("'\"' close expected");
+            }
+
+            int attrNameStart = index;
+            int attrNameEnd = indexEqual;
+            while (attrNameStart < attrNameEnd && IsWhitespace(bytes.get(attrNameStart))) { attrNameStart++; }
+            while (attrNameEnd > attrNameStart && IsWhitespace(bytes.get(attrNameEnd - 1))) { attrNameEnd--; }
+
+            int offset = 4 * attributeCount;
+            if (offset == attributeRanges.length) {
+                attributeRanges = Arrays.copyOf(attributeRanges, offset * 2);
+            }
+            attributeRanges[offset] = attrNameStart;
+            attributeRanges[offset + 1] = attrNameEnd;
+            attributeRanges[offset + 2] = indexQuoteOpen;
+            attributeRanges[offset + 3] = indexQuoteEnd;
+            attributeCount++;
+
+            index = indexQuoteEnd + 1; // Prepare next attribute
+        }
+    }
+
+    // Name of  <xyz attr="...">  is the first word after  <  or  </
+    private void ParseNameRange(int index, int indexEnd) {
+        while (index < indexEnd && IsWhitespace(bytes.get(index))) {
+            index++;
+        }
+        nameStart = index;
+        while (index < indexEnd) {
+            byte b = bytes.get(index);
+            if (b == '/' || b == '>' || IsWhitespace(b)) {
+                break;
+            }
+            index++;
+        }
+        nameEnd = index;
+    }
+
+    @Override
+    public XmlPullEvent getEvent() {
+        return event;
+    }
+
+    // Only tags are scanned, with the byte kernels: the names of the skipped elements are not compared,
+    // their attributes and text are not parsed. The closing tag of the skipped element is parsed as usual.
+    @Override
+    public void SkipElement() throws XmlException {
+        if (event != XmlPullEvent.StartElement) {
+            throw new IllegalStateException("SkipElement() called on " + event);
+        }
+        if (pendingEndElement) {
+            Next(); // Case  <xyz/>
+            return;
+        }
+        attributeCount = 0;
+        name = null;
+        text = null;
+        int nesting = 1; // Elements opened since the skipped element, itself included
+        while (true) {
+            int indexOpenChar = IndexOf('<', pos);
+            if (indexOpenChar == -1) {
+                throw new XmlException("No close elem </" + Decode(nameRanges[2 * depth - 2], nameRanges[2 * depth - 1]) + ">");
+            }
+            int nextChar = indexOpenChar + 1 < limit ? bytes.get(indexOpenChar + 1) : -1;
+
+            if (nextChar == '!') {
+                boolean isComment = StartsWith(COMMENT_OPEN, indexOpenChar);
+                if (!isComment && !StartsWith(CDATA_OPEN, indexOpenChar)) {
+                    throw new XmlException("wrongly formatted xml comment or CDATA section");
+                }
+                byte[] close = isComment ? COMMENT_CLOSE : CDATA_CLOSE;
+                int closeIndex = IndexOf(close, indexOpenChar + (isComment ? COMMENT_OPEN.length : CDATA_OPEN.length));
+                if (closeIndex == -1) {
+                    throw new XmlException(isComment ? "wrongly formatted xml comment" : "CDATA open section <![CDATA[ without close section ]]>");
+                }
+                pos = closeIndex + close.length;
+                continue;
+            }
+
+            if (nextChar == '?') {
+                int piCloseIndex = IndexOf(PI_CLOSE, indexOpenChar + 2);
+                if (piCloseIndex == -1) {
+                    throw new XmlException("'?>' expected");
+                }
+                pos = piCloseIndex + PI_CLOSE.length;
+                continue;
+            }
+
+            if (nextChar == '/') {
+                if (--nesting == 0) {
+                    ParseCloseTag(indexOpenChar);
+                    return;
+                }
+                int indexCloseChar = IndexOf('>', indexOpenChar + 2);
+                if (indexCloseChar == -1) {
+                    throw new XmlException("'>' expected");
+                }
+                pos = indexCloseChar + 1;
+                continue;
+            }
+
+            int indexFound = IndexOfTagEndNotInAttribute(indexOpenChar + 1);
+            if (indexFound == -1) {
+                throw new XmlException("'>' or '/' expected");
+            }
+            int indexCloseChar = indexFound;
+            if (bytes.get(indexFound) == '/') {
+                indexCloseChar = IndexOf('>', indexFound + 1); // Case  <xyz/>  doesn't change the nesting
+                if (indexCloseChar == -1) {
+                    throw new XmlException("'>' expected");
+                }
+            } else {
+                nesting++;
+            }
+            pos = indexCloseChar + 1;
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isEmptyElement() {
+        return pendingEndElement || (event == XmlPullEvent.EndElement && emptyElement);
+    }
+
+    @Override
+    public String getName() {
+        if (name == null) {
+            // The EndElement name is the one of the element just closed, still in nameRanges
+            int index = event == XmlPullEvent.EndElement ? depth : depth - 1;
+            name = symbols.Intern(bytes, nameRanges[2 * index], nameRanges[2 * index + 1]);
+        }
+        return name;
+    }
+
+    @Override
+    public String getText() {
+        if (text == null) {
+            text = event == XmlPullEvent.CDATA
+                ? Decode(textStart, textEnd)
+                : textDecoder.Decode(bytes, textStart, textEnd);
+            if (values != null) {
+                text = values.Intern(text);
+            }
+        }
+        return text;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        return symbols.Intern(bytes, attributeRanges[4 * index], attributeRanges[4 * index + 1]);
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        if (values != null) {
+            return values.Intern(bytes, attributeRanges[4 * index + 2], attributeRanges[4 * index + 3]);
+        }
+        return Decode(attributeRanges[4 * index + 2], attributeRanges[4 * index + 3]);
+    }
+
+    @Override
+    public String getAttributeValue(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? null : getAttributeValue(index);
+    }
+
+    @Override
+    public int getAttributeInt(int index) {
+        int start = attributeRanges[4 * index + 2];
+        int length = attributeRanges[4 * index + 3] - start;
+        if (length > digits.length) {
+            return Integer.MIN_VALUE; // Longer than any int
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.get(start + i);
+            if (b < 0) {
+                String value = getAttributeValue(index); // Non ASCII digits
+                return XmlAttributeCursor.ParseInt(value, 0, value.length());
+            }
+            digits[i] = (char) b;
+        }
+        return XmlAttributeCursor.ParseInt(digits, 0, length);
+    }
+
+    @Override
+    public int getAttributeInt(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? Integer.MIN_VALUE : getAttributeInt(index);
+    }
+
+    @Override
+    public <E extends Enum<E>> E getAttributeEnum(String attrName, E[] constants) {
+        int index = IndexOfAttribute(attrName);
+        if (index == -1) {
+            return null;
+        }
+        for (E constant : constants) {
+            if (RegionEquals(attributeRanges[4 * index + 2], attributeRanges[4 * index + 3], constant.name())) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    private int IndexOfAttribute(String attrName) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (RegionEquals(attributeRanges[4 * i], attributeRanges[4 * i + 1], attrName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setInternValues(boolean internValues) {
+        values = internValues ? new XmlSymbolTable() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    //
+    // Bytes helpers
+    //
+
+    private String Decode(int index, int indexEnd) {
+        int length = indexEnd - index;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = bytes.get(index + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean RegionEquals(int index1, int indexEnd1, int index2, int indexEnd2) {
+        if (indexEnd1 - index1 != indexEnd2 - index2) {
+            return false;
+        }
+        for (int i = 0; i < indexEnd1 - index1; i++) {
+            if (bytes.get(index1 + i) != bytes.get(index2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean RegionEquals(int index, int indexEnd, String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) >= 0x80) {
+                return Decode(index, indexEnd).equals(str); // Non ASCII names are compared once decoded
+            }
+        }
+        if (indexEnd - index != str.length()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (bytes.get(index + i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean StartsWith(byte[] prefix, int index) {
+        if (index + prefix.length > limit) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes.get(index + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int IndexOf(char c, int index) {
+        return IndexOf(c, index, limit);
+    }
+
+    // First  "  or  '  from index
+    private int IndexOfQuote(int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (bytes.get(i) == '"' || bytes.get(i) == '\'') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int IndexOf(char c, int index, int indexEnd) {
+        return XmlByteScanner.IndexOf(bytes, (byte) c, index, indexEnd);
+    }
+
+    private int IndexOf(byte[] str, int index) {
+        while (true) {
+            index = IndexOf((char) str[0], index);
+            if (index == -1) {
+                return -1;
+            }
+            if (StartsWith(str, index)) {
+                return index;
+            }
+            index++;
+        }
+    }
+
+    // Find the first '>' or '/' that is not in a "value" or 'value'
+    private int IndexOfTagEndNotInAttribute(int index) {
+        return XmlByteScanner.IndexOfTagEndNotInAttribute(bytes, index, limit);
+    }
+
+    private boolean IsBlank(int index, int indexEnd) {
+        return XmlByteScanner.IsBlank(bytes, index, indexEnd);
+    }
+
+    private static boolean IsWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
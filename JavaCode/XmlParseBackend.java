@@ -0,0 +1,72 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//
+// Parse backend
+//   An engine that reads a file as XmlPullParser events. The XmlElement tree and the InspectionsExport are built
+//   from the events by PullTreeBuilder and FillInspectionsModel.Binder, so every backend gives the same result.
+//   BUILT_IN is the memory-mapped or Reader based parser of XmlParsing.OpenPullParser(),
+//   STAX is the JDK javax.xml.stream parser, see XmlStaxPullParser for the few documents where it differs.
+//   XmlParseBackendPolicy chooses the backend of each file.
+//
+public interface XmlParseBackend {
+
+    XmlParseBackend BUILT_IN = new BuiltInParseBackend();
+    XmlParseBackend STAX = new StaxParseBackend();
+
+    String getName();
+
+    // limits bound the inflated size of a gzip compressed file
+    XmlPullParser OpenPullParser(Path xmlFile, XmlParseLimits limits) throws IOException, XmlException;
+}
+
+
+class BuiltInParseBackend implements XmlParseBackend {
+
+    @Override
+    public String getName() {
+        return "BuiltIn";
+    }
+
+    @Override
+    public XmlPullParser OpenPullParser(Path xmlFile, XmlParseLimits limits) throws IOException {
+        return XmlParsing.OpenPullParser(xmlFile, limits);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
+
+
+class StaxParseBackend implements XmlParseBackend {
+
+    @Override
+    public String getName() {
+        return "StAX";
+    }
+
+    // A gzip compressed file is inflated on another thread like with the built-in backend
+    @Override
+    public XmlPullParser OpenPullParser(Path xmlFile, XmlParseLimits limits) throws IOException, XmlException {
+        InputStream stream = XmlGzipInputStream.IsGzip(xmlFile)
+            ? XmlGzipInputStream.Open(xmlFile, limits)
+            : Files.newInputStream(xmlFile);
+        try {
+            return new XmlStaxPullParser(stream);
+        } catch (XmlException exc) {
+            stream.close();
+            throw exc;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,63 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//
+// Backend policy
+//   Choose the XmlParseBackend of each file: files of at least staxMinBytes, as stored on disk, are read
+//   with STAX and smaller ones with BUILT_IN, unless a backend is set for every file.
+//   By default STAX is never chosen: XmlParseBackendBenchmark measures the built-in parser faster
+//   at every size, so the threshold is only worth lowering when measured otherwise on the target JDK.
+//
+public class XmlParseBackendPolicy {
+
+    public long staxMinBytes = Long.MAX_VALUE;
+    public XmlParseBackend backend;     // When set, used whatever the size
+
+    public static XmlParseBackendPolicy Always(XmlParseBackend backend) {
+        XmlParseBackendPolicy policy = new XmlParseBackendPolicy();
+        policy.backend = backend;
+        return policy;
+    }
+
+    public XmlParseBackend Select(Path xmlFile) throws IOException {
+        if (backend != null) {
+            return backend;
+        }
+        return Files.size(xmlFile) >= staxMinBytes ? XmlParseBackend.STAX : XmlParseBackend.BUILT_IN;
+    }
+
+    public XmlElement Go(Path xmlFile) throws XmlException {
+        return Go(xmlFile, XmlParseLimits.NONE);
+    }
+
+    // Same result as XmlParsing.Go(xmlFile, limits) whatever the backend
+    public XmlElement Go(Path xmlFile, XmlParseLimits limits) throws XmlException {
+        try {
+            limits.CheckTotalBytes(Files.size(xmlFile));
+            try (XmlPullParser parser = Select(xmlFile).OpenPullParser(xmlFile, limits)) {
+                return PullTreeBuilder.Go(parser, limits);
+            }
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    public InspectionsExport GoInspections(Path xmlFile) throws XmlException, ModelException {
+        return GoInspections(xmlFile, XmlParseLimits.NONE);
+    }
+
+    // The model is filled from the parser events, no XmlElement hierarchy is built
+    public InspectionsExport GoInspections(Path xmlFile, XmlParseLimits limits) throws XmlException, ModelException {
+        try {
+            limits.CheckTotalBytes(Files.size(xmlFile));
+            try (XmlPullParser parser = Select(xmlFile).OpenPullParser(xmlFile, limits)) {
+                return FillInspectionsModel.Go(parser, limits);
+            }
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+}
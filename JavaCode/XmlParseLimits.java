@@ -0,0 +1,81 @@
+package com.ndepend.inspections;
+
+//
+// Resource limits
+//   Bound what one document can make the parser allocate. Each limit is checked before the structure
+//   it protects is built and fails with an XmlException. Limits not set are unbounded.
+//   maxContentLength applies to the raw text or CDATA between the tags, the decoded text is never longer.
+//   Pull parsers decode the text before the dispatcher sees it, so there it applies to the decoded text,
+//   and the Reader parser also checks the raw text each time its buffer has to grow for a longer text.
+//   maxTotalBytes is the length of the String, or the size of the file for XmlParsing.Go(Path, limits).
+//   A gzip compressed file is checked both compressed and inflated.
+//   Instances are immutable, start from NONE and set each limit:  XmlParseLimits.NONE.WithMaxDepth(64)
+//
+public class XmlParseLimits {
+
+    // Used when no limits are given
+    public final static XmlParseLimits NONE = new XmlParseLimits(Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    public final int maxDepth;
+    public final long maxTotalBytes;
+    public final int maxAttributesPerElement;
+    public final int maxContentLength;
+    public final int maxElementCount;
+
+    private XmlParseLimits(int maxDepth, long maxTotalBytes, int maxAttributesPerElement, int maxContentLength, int maxElementCount) {
+        this.maxDepth = maxDepth;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxAttributesPerElement = maxAttributesPerElement;
+        this.maxContentLength = maxContentLength;
+        this.maxElementCount = maxElementCount;
+    }
+
+    // Same limits but this one
+    public XmlParseLimits WithMaxDepth(int maxDepth) {
+        return new XmlParseLimits(maxDepth, maxTotalBytes, maxAttributesPerElement, maxContentLength, maxElementCount);
+    }
+
+    public XmlParseLimits WithMaxTotalBytes(long maxTotalBytes) {
+        return new XmlParseLimits(maxDepth, maxTotalBytes, maxAttributesPerElement, maxContentLength, maxElementCount);
+    }
+
+    public XmlParseLimits WithMaxAttributesPerElement(int maxAttributesPerElement) {
+        return new XmlParseLimits(maxDepth, maxTotalBytes, maxAttributesPerElement, maxContentLength, maxElementCount);
+    }
+
+    public XmlParseLimits WithMaxContentLength(int maxContentLength) {
+        return new XmlParseLimits(maxDepth, maxTotalBytes, maxAttributesPerElement, maxContentLength, maxElementCount);
+    }
+
+    public XmlParseLimits WithMaxElementCount(int maxElementCount) {
+        return new XmlParseLimits(maxDepth, maxTotalBytes, maxAttributesPerElement, maxContentLength, maxElementCount);
+    }
+
+    void CheckTotalBytes(long totalBytes) throws XmlException {
+        if (totalBytes > maxTotalBytes) {
+            throw new XmlException("Document of " + totalBytes + " bytes exceeds the limit of " + maxTotalBytes + " bytes");
+        }
+    }
+
+    // depth is 1 for the root element, elementCount counts this element
+    void CheckElement(int depth, int elementCount, String name) throws XmlException {
+        if (depth > maxDepth) {
+            throw new XmlException("Element <" + name + "> nested deeper than the limit of " + maxDepth + " levels");
+        }
+        if (elementCount > maxElementCount) {
+            throw new XmlException("More than " + maxElementCount + " elements, limit reached at <" + name + ">");
+        }
+    }
+
+    void CheckAttributes(int attributeCount, String name) throws XmlException {
+        if (attributeCount > maxAttributesPerElement) {
+            throw new XmlException("Element <" + name + "> has " + attributeCount + " attributes, more than the limit of " + maxAttributesPerElement);
+        }
+    }
+
+    void CheckContent(int contentLength, String name) throws XmlException {
+        if (contentLength > maxContentLength) {
+            throw new XmlException("Content of <" + name + "> is " + contentLength + " chars long, more than the limit of " + maxContentLength);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ndepend.inspections;
+
+//
+// Instrumentation listener
+//   Registered with XmlInstrumentation.setListener(), called on the parsing thread once a phase succeeded.
+//   The metrics instance is not reused, it can be kept.
+//   An exception thrown by the listener is thrown by the parse call instead of its result,
+//   the parsers are left usable for the next document.
+//
+public interface XmlParseListener {
+
+    void PhaseCompleted(XmlParseMetrics metrics);
+}
@@ -0,0 +1,41 @@
+package com.ndepend.inspections;
+
+//
+// Metrics of one parse phase, see XmlInstrumentation
+//   Counters a phase doesn't measure stay 0, sizes and allocations it can't measure are -1.
+//
+public class XmlParseMetrics {
+
+    public enum Phase {
+        Parse,      // XmlParsing.Go(String), single pass scan building the XmlElement hierarchy
+        PullParse,  // XmlEventDispatcher over an XmlPullParser, including the handler: binder or tree builder
+        Fill        // FillInspectionsModel.Go(XmlElement)
+    }
+
+    public final Phase phase;
+    public long wallNanos;
+    public long contentNanos;       // Decoding element texts, included in wallNanos
+    public long attributeNanos;     // Parsing attributes, included in wallNanos
+    public long bytesScanned = -1;  // Chars of the String for Parse
+    public int elementCount;
+    public int attributeCount;
+    public int entityCount;
+    public int cdataCount;
+    public int maxDepth;
+    public long allocatedBytes = -1; // By the parsing thread during the phase
+
+    long startNanos;
+    long startAllocatedBytes;
+    Object event;                    // XmlInstrumentation.ParseEvent when JFR records it
+
+    XmlParseMetrics(Phase phase) {
+        this.phase = phase;
+    }
+
+    @Override
+    public String toString() {
+        return phase + " " + wallNanos / 1000 + "us content " + contentNanos / 1000 + "us attributes " + attributeNanos / 1000 +
+               "us bytes " + bytesScanned + " elements " + elementCount + " attributes " + attributeCount +
+               " entities " + entityCount + " cdata " + cdataCount + " depth " + maxDepth + " allocated " + allocatedBytes;
+    }
+}
@@ -0,0 +1,134 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//
+// Reusable parser
+//   Same results as the static XmlParsing.Go() methods, but the scanners are kept from one document to the next:
+//   tag stacks, attribute ranges, decoder and read buffers and the symbol table of element and attribute names.
+//   Long running processes that import many documents then mostly allocate the resulting XmlElement tree.
+//   No reference to a parsed document or to a mapped file is kept once Go() returns.
+//   An instance parses one document at a time, ForCurrentThread() gives each thread its own instance.
+//   Virtual threads are usually not reused, so a task running on one should create its XmlParser instead.
+//
+public class XmlParser {
+
+    private final static ThreadLocal<XmlParser> THREAD_PARSER = ThreadLocal.withInitial(XmlParser::new);
+
+    private final boolean internValues;
+    private final TreeBuilder treeBuilder;
+    private final PullTreeBuilder pullTreeBuilder = new PullTreeBuilder();
+    private XmlMappedPullParser mappedParser;   // Created on first use
+    private XmlReaderPullParser readerParser;   // Created on first use
+    private boolean parsing;
+
+    public XmlParser() {
+        this(false);
+    }
+
+    // With internValues, equal attribute values and contents of a document share a single String
+    public XmlParser(boolean internValues) {
+        this.internValues = internValues;
+        this.treeBuilder = new TreeBuilder(internValues);
+    }
+
+    // The parser of the calling thread, created on first use
+    public static XmlParser ForCurrentThread() {
+        return THREAD_PARSER.get();
+    }
+
+    public XmlElement Go(String xmlContent) throws XmlException {
+        return Go(xmlContent, XmlParseLimits.NONE);
+    }
+
+    public XmlElement Go(String xmlContent, XmlParseLimits limits) throws XmlException {
+        Enter();
+        try {
+            return treeBuilder.Parse(xmlContent, limits);
+        } finally {
+            parsing = false;
+        }
+    }
+
+    // The UTF-8 file is memory-mapped like XmlParsing.Go(Path), or read through a Reader when too large or gzip compressed
+    public XmlElement Go(Path xmlFile) throws XmlException {
+        return Go(xmlFile, XmlParseLimits.NONE);
+    }
+
+    public XmlElement Go(Path xmlFile, XmlParseLimits limits) throws XmlException {
+        Enter();
+        try {
+            long size = Files.size(xmlFile);
+            limits.CheckTotalBytes(size);
+            if (XmlGzipInputStream.IsGzip(xmlFile)) {
+                return Parse(new InputStreamReader(XmlGzipInputStream.Open(xmlFile, limits), StandardCharsets.UTF_8), limits);
+            }
+            if (size > Integer.MAX_VALUE) {
+                return Parse(Files.newBufferedReader(xmlFile, StandardCharsets.UTF_8), limits);
+            }
+            if (mappedParser == null) {
+                mappedParser = new XmlMappedPullParser(ByteBuffer.allocate(0));
+                mappedParser.setInternValues(internValues);
+            }
+            mappedParser.Reset(xmlFile);
+            try {
+                return pullTreeBuilder.Parse(mappedParser, limits);
+            } finally {
+                mappedParser.Release();
+            }
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        } finally {
+            parsing = false;
+        }
+    }
+
+    // The reader is closed once the document is parsed
+    public XmlElement Go(Reader reader) throws XmlException {
+        return Go(reader, XmlParseLimits.NONE);
+    }
+
+    public XmlElement Go(Reader reader, XmlParseLimits limits) throws XmlException {
+        Enter();
+        try {
+            return Parse(reader, limits);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read document: " + exc.getMessage(), exc);
+        } finally {
+            parsing = false;
+        }
+    }
+
+    private XmlElement Parse(Reader reader, XmlParseLimits limits) throws XmlException, IOException {
+        if (readerParser == null) {
+            readerParser = new XmlReaderPullParser(reader);
+            readerParser.setInternValues(internValues);
+        } else {
+            readerParser.Reset(reader);
+        }
+        readerParser.setLimits(limits);
+        try {
+            return pullTreeBuilder.Parse(readerParser, limits);
+        } finally {
+            try {
+                readerParser.close();
+            } finally {
+                readerParser.Reset(null);
+            }
+        }
+    }
+
+    // A nested call, from a metrics listener for example, would corrupt the state of the current parse
+    private void Enter() {
+        if (parsing) {
+            throw new IllegalStateException("XmlParser is already parsing a document");
+        }
+        parsing = true;
+    }
+}
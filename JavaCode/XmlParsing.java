@@ -1,20 +1,79 @@
 package com.ndepend.inspections;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 
 public class XmlParsing {
 
     public static XmlElement Go(String xmlContent) throws XmlException {
 
-        ArrayList<XmlRow> rows = Pass1.Go(xmlContent);
+        return TreeBuilder.Go(xmlContent, false);
+    }
+
+    // With internValues, equal attribute values and contents share a single String
+    public static XmlElement Go(String xmlContent, boolean internValues) throws XmlException {
+        return TreeBuilder.Go(xmlContent, internValues);
+    }
+
+    // Fail with an XmlException as soon as the document exceeds one of the limits
+    public static XmlElement Go(String xmlContent, XmlParseLimits limits) throws XmlException {
+        return TreeBuilder.Go(xmlContent, false, limits);
+    }
 
-        ArrayList<XmlElement> elems = Pass2.Go(rows, xmlContent, 0);
+    // Elements are only parsed when read, see LazyXmlElement
+    public static LazyXmlElement GoLazy(String xmlContent) throws XmlException {
+        return LazyXmlElement.Go(xmlContent);
+    }
+
+    // Compact array based tree, see XmlDocument
+    public static XmlDocument GoDocument(String xmlContent) throws XmlException {
+        return XmlDocument.Go(xmlContent);
+    }
+
+    // The UTF-8 file is memory-mapped and parsed without being decoded as a whole.
+    // Read with a pull parser, so a document without the 'xml' declaration is accepted and a comment
+    // in a text is dropped rather than kept in the Content like Go(String) does, see XmlPullParser
+    public static XmlElement Go(Path xmlFile) throws XmlException {
+        return Go(xmlFile, XmlParseLimits.NONE);
+    }
 
-        return elems.get(0);
+    // The file size is checked before the file is opened
+    public static XmlElement Go(Path xmlFile, XmlParseLimits limits) throws XmlException {
+        try {
+            limits.CheckTotalBytes(Files.size(xmlFile));
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+        try (XmlPullParser parser = OpenPullParser(xmlFile, limits)) {
+            return PullTreeBuilder.Go(parser, limits);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    // A gzip compressed file is inflated on another thread while it is parsed, see XmlGzipInputStream.
+    // Documents without the 'xml' declaration and comments in a text are not read like Go(String), see XmlPullParser
+    public static XmlPullParser OpenPullParser(Path xmlFile) throws IOException {
+        return OpenPullParser(xmlFile, XmlParseLimits.NONE);
+    }
+
+    // limits bound the inflated size of a gzip compressed file and the texts buffered by the Reader parser
+    public static XmlPullParser OpenPullParser(Path xmlFile, XmlParseLimits limits) throws IOException {
+        XmlReaderPullParser parser;
+        if (XmlGzipInputStream.IsGzip(xmlFile)) {
+            parser = new XmlReaderPullParser(XmlGzipInputStream.Open(xmlFile, limits));
+        } else if (Files.size(xmlFile) > Integer.MAX_VALUE) {
+            // Too large to be mapped in a single ByteBuffer
+            parser = new XmlReaderPullParser(Files.newBufferedReader(xmlFile, StandardCharsets.UTF_8));
+        } else {
+            return XmlMappedPullParser.Open(xmlFile);
+        }
+        parser.setLimits(limits);
+        return parser;
     }
 
 }
@@ -36,353 +95,523 @@ class XmlElement {
     public ArrayList<XmlElement> Elements;
 }
 
-//
-// Pass 1
-//   Get all Open Close and OpenClose elements listed
-//
-class XmlRow {
-    public String Name;
-    public int Index;  // Index of char after <$ or </$
-    public int Length;  // Length from Index till just after >$ or />$
-    public XmlRowKind Kind;
-}
 
-enum XmlRowKind {
-    Open,      // <xyz>
-    Close,     // </xyz>
-    OpenClose, // <xyz/>
-    Comment,   // <!--xyz-->
-    CDATA      // <![CDATA[xyz]]>
-}
 
-class Pass1 {
+//
+// Single pass
+//   Scan tags from left to right, open elements are kept on an explicit stack,
+//   so each char is visited a bounded number of times and no intermediate row list is needed.
+//   Subclasses are called back for each element and build their own representation.
+//
+abstract class TreeScanner {
 
     final static String CDATA_OPEN = "<![CDATA[";
     final static String CDATA_CLOSE = "]]>";
+    final static String COMMENT_OPEN = "<!--";
+    final static String COMMENT_CLOSE = "-->";
+
+    // What XmlElement.Content is made of
+    enum ContentKind {
+        Text,      // <Row>content</Row>
+        CDATA,     // <Row><![CDATA[content]]></Row>
+        Elements   // <Row> <Child /><Child /> </Row>
+    }
+
+    // An element opened with <xyz> and not yet closed with </xyz>
+    static class Frame {
+        int nameStart;
+        int nameEnd;
+        int contentStart;    // Index of char after >$ of the open tag
+        int rowCount;        // Number of child elements and CDATA sections, comments excluded
+        int cdataCount;
+        int cdataIndex;      // Index and length of xyz in <![CDATA[xyz]]>
+        int cdataLength;
+    }
+
+    protected String xmlContent;
+    protected int depth;     // Number of open elements
+    private final ArrayList<Frame> stack = new ArrayList<>();
+    protected XmlParseLimits limits = XmlParseLimits.NONE;
+    private int elementCount;
+
+    // <xyz ...>  or  <xyz/>  opened at depth (0 for the root element).
+    // index is the index of char after <$, indexTagEnd the index of the first '>' or '/' not in an attribute
+    // and indexCloseChar the index of >$
+    protected abstract void OpenElement(int index, int nameStart, int nameEnd, int indexTagEnd, int indexCloseChar, boolean isOpenClose) throws XmlException;
 
-    public static ArrayList<XmlRow> Go(String xmlContent) throws XmlException {
+    // </xyz>  closing the element opened at depth, contentStart and contentEnd are only relevant for Text and CDATA
+    protected abstract void CloseElement(ContentKind kind, int contentStart, int contentEnd) throws XmlException;
+
+    // Return once the root element has been scanned
+    protected void Scan(String xmlContent) throws XmlException {
         int index = xmlContent.indexOf("xml");
         if (index == -1) {
             throw new XmlException("'xml' expected");
         }
+        limits.CheckTotalBytes(xmlContent.length());
+        Scan(xmlContent, index, xmlContent.length(), false);
+    }
 
-        ArrayList<XmlRow> list = new ArrayList<>();
-        while (true) {
-            int indexOpenChar = xmlContent.indexOf("<", index);
-            if (indexOpenChar == -1) {
-                if (list.size() == 0) {
-                    throw new XmlException("'<' expected");
-                } // At least one element must have been found!
+    // Scan all the elements found in [index, indexEnd), they are all opened at depth 0.
+    // Used to parse a run of sibling elements cut from a larger document.
+    protected void ScanSiblings(String xmlContent, int index, int indexEnd) throws XmlException {
+        Scan(xmlContent, index, indexEnd, true);
+    }
 
-                return list;
-            }
+    private void Scan(String xmlContent, int index, int indexEnd, boolean siblings) throws XmlException {
+        this.xmlContent = xmlContent;
+        this.depth = 0;
+        this.elementCount = 0;
+        int length = xmlContent.length();
 
-            // parse  <xyz>   </xyz>   <xyz/>   <!--xyz-->   <![CDATA[xyz]]>
-            XmlRowKind rowKind;
-            int rowIndex = indexOpenChar + 1;
-            int indexCloseChar;
-            int indexFound = GetFirstCharIndexNotInAttribute(xmlContent, indexOpenChar, new char[] { '>', '/' });
-            if (indexFound == -1) {
-                throw new XmlException("'>' or '/' expected");
+        while (true) {
+            int indexOpenChar = xmlContent.indexOf('<', index);
+            if (indexOpenChar == -1 || indexOpenChar >= indexEnd) {
+                if (depth > 0) {
+                    throw new XmlException("No close elem </" + OpenName(depth - 1) + ">");
+                }
+                if (siblings) {
+                    return;
+                }
+                throw new XmlException("'<' expected"); // At least one element must have been found!
             }
-
-            char nextChar = xmlContent.charAt(indexFound);
-            if (nextChar == '>') {
-                indexCloseChar = indexFound;
-
-                if (xmlContent.charAt(indexOpenChar + 1) == '!') {
-
-                    if (xmlContent.charAt(indexOpenChar + 2) == '[') {
-                        // case  <![CDATA[xyz]]>
-                        rowKind = XmlRowKind.CDATA;
-
-                        String cdataOpenStr = xmlContent.substring(indexOpenChar, indexOpenChar + CDATA_OPEN.length());
-                        if (!cdataOpenStr.equals(CDATA_OPEN)) {
-                            throw new XmlException("wrongly formatted CDATA open section, "+cdataOpenStr+" instead of "+ CDATA_OPEN);
-                        }
-                        int cdataCloseIndex = xmlContent.indexOf(CDATA_CLOSE, indexOpenChar + CDATA_OPEN.length());
-                        if (cdataCloseIndex == -1) {
-                            throw new XmlException("CDATA open section " + CDATA_OPEN + " without close section " + CDATA_CLOSE);
-                        }
-                        // Compute the inside of CDATA section only  xyz  in   <![CDATA[xyz]]>
-                        rowIndex += CDATA_OPEN.length() - 1;   // -1 coz   rowIndex   is index just after   '<'
-                        indexCloseChar = cdataCloseIndex -1; // -1 to compensate the +1 in the rowLength formula below
-
-                    } else {
-
-                        // case <!--xyz-->
-                        rowKind = XmlRowKind.Comment;
-
-                        for (int i : new Integer[]{indexOpenChar + 2, indexOpenChar + 3, indexCloseChar - 1, indexCloseChar - 2}) {
-                            if ((xmlContent.charAt(i) != '-')) {
-                                throw new XmlException("wrongly formatted xml comment");
-                            }
-                        }
+            char nextChar = indexOpenChar + 1 < length ? xmlContent.charAt(indexOpenChar + 1) : '\0';
+
+            if (nextChar == '!') {
+                if (xmlContent.startsWith(COMMENT_OPEN, indexOpenChar)) {
+                    // case <!--xyz-->  comments are skipped
+                    int commentCloseIndex = xmlContent.indexOf(COMMENT_CLOSE, indexOpenChar + COMMENT_OPEN.length());
+                    if (commentCloseIndex == -1) {
+                        throw new XmlException("wrongly formatted xml comment");
                     }
+                    index = commentCloseIndex + COMMENT_CLOSE.length();
+                    continue;
+                }
+                if (indexOpenChar + 2 >= length || xmlContent.charAt(indexOpenChar + 2) != '[') {
+                    throw new XmlException("wrongly formatted xml comment");
+                }
 
+                // case  <![CDATA[xyz]]>
+                if (!xmlContent.startsWith(CDATA_OPEN, indexOpenChar)) {
+                    String cdataOpenStr = xmlContent.substring(indexOpenChar, Math.min(length, indexOpenChar + CDATA_OPEN.length()));
+                    throw new XmlException("wrongly formatted CDATA open section, " + cdataOpenStr + " instead of " + CDATA_OPEN);
                 }
-                else {
-                    // case <xyz>
-                    rowKind = XmlRowKind.Open;
+                int cdataIndex = indexOpenChar + CDATA_OPEN.length();
+                int cdataCloseIndex = xmlContent.indexOf(CDATA_CLOSE, cdataIndex);
+                if (cdataCloseIndex == -1) {
+                    throw new XmlException("CDATA open section " + CDATA_OPEN + " without close section " + CDATA_CLOSE);
                 }
+                if (depth == 0) {
+                    throw new XmlException("CDATA section outside of any element");
+                }
+                Frame parent = stack.get(depth - 1);
+                parent.rowCount++;
+                parent.cdataCount++;
+                parent.cdataIndex = cdataIndex;
+                parent.cdataLength = cdataCloseIndex - cdataIndex;
+                index = cdataCloseIndex + CDATA_CLOSE.length();
+                continue;
+            }
 
-            } else {
-                //Debug.Assert(nextChar == '/');
-                if (indexFound == indexOpenChar + 1) {
-                    rowKind = XmlRowKind.Close; // </xyz>
-                    rowIndex += 1;
+            if (nextChar == '/') {
+                // case </xyz>
+                int indexCloseChar = xmlContent.indexOf('>', indexOpenChar + 2);
+                if (indexCloseChar == -1) {
+                    throw new XmlException("'>' expected");
+                }
+                int nameStart = NameStart(xmlContent, indexOpenChar + 2, indexCloseChar);
+                int nameEnd = NameEnd(xmlContent, nameStart, indexCloseChar);
+                if (depth == 0) {
+                    throw new XmlException("No open elem <" + xmlContent.substring(nameStart, nameEnd) + ">");
+                }
+                Frame frame = stack.get(depth - 1);
+                if (nameEnd - nameStart != frame.nameEnd - frame.nameStart ||
+                    !xmlContent.regionMatches(nameStart, xmlContent, frame.nameStart, nameEnd - nameStart)) {
+                    throw new XmlException("No close elem </" + OpenName(depth - 1) + ">");
+                }
+                depth--;
+
+                if (frame.rowCount == 0) {
+                    if (indexOpenChar - frame.contentStart > limits.maxContentLength) {
+                        limits.CheckContent(indexOpenChar - frame.contentStart, OpenName(depth));
+                    }
+                    CloseElement(ContentKind.Text, frame.contentStart, indexOpenChar);
+                } else if (frame.cdataCount == 1 && frame.rowCount == 1) {
+                    if (frame.cdataLength > limits.maxContentLength) {
+                        limits.CheckContent(frame.cdataLength, OpenName(depth));
+                    }
+                    CloseElement(ContentKind.CDATA, frame.cdataIndex, frame.cdataIndex + frame.cdataLength);
+                } else if (frame.cdataCount > 0) {
+                    throw new XmlException("CDATA section mixed with child elements in <" + OpenName(depth) + ">");
                 } else {
-                    rowKind = XmlRowKind.OpenClose; // <xyz/>
+                    CloseElement(ContentKind.Elements, frame.contentStart, indexOpenChar);
+                }
+                if (depth == 0 && !siblings) {
+                    return; // Done with the root element
                 }
+                index = indexCloseChar + 1;
+                continue;
+            }
 
-                indexCloseChar = xmlContent.indexOf(">", indexFound + 1);
+            // case <xyz>  or  <xyz/>
+            int rowIndex = indexOpenChar + 1;
+            int indexFound = IndexOfTagEndNotInAttribute(xmlContent, rowIndex);
+            if (indexFound == -1) {
+                throw new XmlException("'>' or '/' expected");
+            }
+            int indexCloseChar = indexFound;
+            boolean isOpenClose = xmlContent.charAt(indexFound) == '/';
+            if (isOpenClose) {
+                indexCloseChar = xmlContent.indexOf('>', indexFound + 1);
                 if (indexCloseChar == -1) {
                     throw new XmlException("'>' expected");
                 }
             }
-
-            int rowLength = indexCloseChar + 1 - rowIndex;
-
-            // Parse elemName
-            String rowName = xmlContent.substring(rowIndex, rowIndex+rowLength);
-            rowName = rowName.replace(">", "");
-            rowName = rowName.replace("/", "");
-            rowName = rowName.trim();
-            int spaceIndex = rowName.indexOf(' '); // In case of attribute
-            if (spaceIndex > 0) {
-                rowName = rowName.substring(0, spaceIndex);
+            int nameStart = NameStart(xmlContent, rowIndex, indexCloseChar);
+            int nameEnd = NameEnd(xmlContent, nameStart, indexCloseChar);
+            if (depth > 0) {
+                stack.get(depth - 1).rowCount++;
             }
+            elementCount++;
+            if (depth >= limits.maxDepth || elementCount > limits.maxElementCount) {
+                limits.CheckElement(depth + 1, elementCount, xmlContent.substring(nameStart, nameEnd));
+            }
+            OpenElement(rowIndex, nameStart, nameEnd, indexFound, indexCloseChar, isOpenClose);
+            index = indexCloseChar + 1;
 
-            // We're done with XmlRow, add it to list except if it is a comment row
-            if (rowKind != XmlRowKind.Comment) {
-                XmlRow elem = new XmlRow();
-                elem.Name = rowName;
-                elem.Index = rowIndex;
-                elem.Length = rowLength;
-                elem.Kind = rowKind;
-
-                list.add(elem);
+            if (isOpenClose) {
+                // Case  <xyz/>  has neither content nor child elements
+                if (depth == 0 && !siblings) {
+                    return;
+                }
+                continue;
             }
 
-            // Now try find the next XmlRow after the one just found!
-            index = rowIndex + rowLength;
+            // Case  <xyz>...</xyz>
+            if (depth == stack.size()) {
+                stack.add(new Frame());
+            }
+            Frame frame = stack.get(depth++);
+            frame.nameStart = nameStart;
+            frame.nameEnd = nameEnd;
+            frame.contentStart = index;
+            frame.rowCount = 0;
+            frame.cdataCount = 0;
         }
     }
 
-    public static int GetFirstCharIndexNotInAttribute(String xmlContent, int index, char[] chars) {
-        int indexFound = Integer.MAX_VALUE;
-        for (char c : chars) {
-            int indexChar = IndexOfNotInAttribute(xmlContent, c, index);
-            if (indexChar == -1) { continue; }
-            if (indexChar < indexFound) {
-                indexFound = indexChar;
-            }
-        }
-        return indexFound < Integer.MAX_VALUE ? indexFound : -1;
+    // Name of the element open at depth
+    protected String OpenName(int depth) {
+        Frame frame = stack.get(depth);
+        return xmlContent.substring(frame.nameStart, frame.nameEnd);
     }
 
-    private static int IndexOfNotInAttribute(String xmlContent, char charToFind, int index) {
-        Boolean inAttribute = false;
+    // Find the first '>' or '/' that is not in a "value" or 'value', in a single scan
+    static int IndexOfTagEndNotInAttribute(String xmlContent, int index) {
+        char quote = 0;     // Quote of the value being scanned
         for (int i = index; i < xmlContent.length(); i++) {
             char c = xmlContent.charAt(i);
-            if (c == '"') {
-                inAttribute = !inAttribute;
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
                 continue;
             }
-            if (inAttribute) {
+            if (c == '"' || c == '\'') {
+                quote = c;
                 continue;
             }
-            if (c == charToFind) {
+            if (c == '>' || c == '/') {
                 return i;
             }
         }
         return -1;
     }
-}
 
+    // Name of  <xyz attr="...">  is the first word after  <  or  </
+    static String ParseName(String xmlContent, int index, int indexEnd) {
+        int nameStart = NameStart(xmlContent, index, indexEnd);
+        return xmlContent.substring(nameStart, NameEnd(xmlContent, nameStart, indexEnd));
+    }
 
-//
-// Pass 2
-//   Build a hierarchy from Open Close and openClose element
-//   + parse attributes
-//   + parse content
-//
-class Pass2 {
-    public static ArrayList<XmlElement> Go(ArrayList<XmlRow> rows, String xmlContent, int indexRow) throws XmlException {
-        ArrayList<XmlElement> list = new ArrayList<>();
+    static int NameStart(String xmlContent, int index, int indexEnd) {
+        while (index < indexEnd && Character.isWhitespace(xmlContent.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
 
-        while (true) {
-            if (indexRow == rows.size()) {
-                // We reached the end of rows
-                return list;
+    static int NameEnd(String xmlContent, int index, int indexEnd) {
+        while (index < indexEnd) {
+            char c = xmlContent.charAt(index);
+            if (c == '/' || c == '>' || Character.isWhitespace(c)) {
+                break;
             }
+            index++;
+        }
+        return index;
+    }
 
-            XmlRow row = rows.get(indexRow);
-            XmlElement elem;
-            int nextRowIndex;
+    // See XmlTextDecoder, scanners decoding many texts keep their own decoder to reuse its buffer.
+    // A text without entity nor line to trim is a substring, no decoder is allocated.
+    static String ParseContent(String xmlContent, int indexContentStart, int indexContentEnd) {
+        if (!XmlTextDecoder.NeedsDecoding(xmlContent, indexContentStart, indexContentEnd)) {
+            return xmlContent.substring(indexContentStart, indexContentEnd);
+        }
+        return new XmlTextDecoder().Decode(xmlContent, indexContentStart, indexContentEnd);
+    }
 
-            if (row.Kind == XmlRowKind.Close) {
-                // Ok we finished parsing these siblings row
-                return list;
-            }
+    // index and length span  xyz attr="..."/>  in  <xyz attr="..."/>
+    static ArrayList<XmlAttribute> ParseAttributes(String xmlContent, int index, int length) throws XmlException {
+        return ParseAttributes(new XmlAttributeCursor(), xmlContent, index, length);
+    }
 
-            if (row.Kind == XmlRowKind.OpenClose) {
-                // Case  <xyz/>
-                elem = new XmlElement();
-                elem.Name = row.Name;
-                elem.Attributes = ParseAttributes(row, xmlContent);
-                nextRowIndex = indexRow + 1;
+    static ArrayList<XmlAttribute> ParseAttributes(XmlAttributeCursor cursor, String xmlContent, int index, int length) throws XmlException {
+        return ParseAttributes(cursor, xmlContent, index, length, XmlParseLimits.NONE);
+    }
 
-            } else {
-                // Case  <xyz>...</xyz>
-                //Debug.Assert(row.Kind == XmlRowKind.Open);
-
-                // Search for matching close row
-                XmlRow rowClose = null;
-                int indexRowClose = 0;
-                for (int i = indexRow + 1; i < rows.size(); i++) {
-                    XmlRow rowTmp = rows.get(i);
-                    if (rowTmp.Kind != XmlRowKind.Close ||
-                        !rowTmp.Name.equals(row.Name)) {
-                        continue;
-                    }
-                    rowClose = rowTmp;
-                    indexRowClose = i;
-                    break;
-                }
+    static ArrayList<XmlAttribute> ParseAttributes(XmlAttributeCursor cursor, String xmlContent, int index, int length, XmlParseLimits limits) throws XmlException {
+        int indexEnd = index + length - 1;
+        int nameStart = NameStart(xmlContent, index, indexEnd);
+        int nameEnd = NameEnd(xmlContent, nameStart, indexEnd);
+        cursor.Reset(xmlContent, nameEnd, indexEnd);
+        if (cursor.getCount() > limits.maxAttributesPerElement) {
+            limits.CheckAttributes(cursor.getCount(), xmlContent.substring(nameStart, nameEnd));
+        }
+        return cursor.ToXmlAttributes();
+    }
+}
 
-                if (rowClose == null) {
-                    throw new XmlException("No close elem </" + row.Name + ">");
-                }
-                nextRowIndex = indexRowClose + 1;
-
-                String content;
-                ArrayList<XmlElement> childElems;
-                if (indexRowClose == indexRow + 1) {
-                    // case  <Row>content</Row>
-                    content = ParseContent(row, rowClose, xmlContent);
-                    childElems = new ArrayList<>(); // remain empty
-                } else if (indexRowClose == indexRow + 2 &&
-                        rows.get(indexRow+1).Kind == XmlRowKind.CDATA) {
-                    // CDATA row is not kept, we only grab its content
-                    content = ParseCDATAContent(rows.get(indexRow + 1), xmlContent);
-                    childElems = new ArrayList<XmlElement>(); // remain empty
 
-                } else {
-                    // case  <Row> <Child /><Child /> </Row>
-                    content = "";
-                    childElems = Go(rows, xmlContent, indexRow + 1);
-                }
+//
+// Tree builder
+//   Build the XmlElement hierarchy on the fly while scanning
+//
+class TreeBuilder extends TreeScanner {
+
+    private final ArrayList<XmlElement> elems = new ArrayList<>();         // Open elements
+    private final ArrayList<ArrayList<XmlElement>> children = new ArrayList<>();
+    private XmlElement root;
+    private ArrayList<XmlElement> siblings;    // Elements at depth 0, only in sibling mode
+
+    private final XmlSymbolTable symbols = new XmlSymbolTable(); // Element and attribute names
+    private final XmlSymbolTable values;                         // null unless values are interned
+    private final XmlTextDecoder textDecoder = new XmlTextDecoder();
+    private final XmlAttributeCursor attributes;
+    private XmlParseMetrics metrics;           // null unless instrumented
+
+    TreeBuilder(boolean internValues) {
+        values = internValues ? new XmlSymbolTable() : null;
+        attributes = new XmlAttributeCursor(symbols, values);
+    }
 
-                elem = new XmlElement();
-                elem.Name = row.Name;
-                elem.Content = content;
-                elem.Elements = childElems;
-                elem.Attributes = ParseAttributes(row, xmlContent);
+    public static XmlElement Go(String xmlContent, boolean internValues) throws XmlException {
+        return Go(xmlContent, internValues, XmlParseLimits.NONE);
+    }
 
-            }
+    static XmlElement Go(String xmlContent, boolean internValues, XmlParseLimits limits) throws XmlException {
+        return new TreeBuilder(internValues).Parse(xmlContent, limits);
+    }
 
-            list.add(elem);
-            indexRow = nextRowIndex;
+    // A builder can parse several documents, one at a time: the stacks, the decoder buffer and the
+    // element and attribute names are kept, interned values are not shared between documents
+    XmlElement Parse(String xmlContent, XmlParseLimits limits) throws XmlException {
+        this.limits = limits;
+        this.root = null;
+        textDecoder.entityCount = 0;
+        if (values != null) {
+            values.Clear();
+        }
+        XmlParseMetrics metrics = this.metrics = XmlInstrumentation.Start(XmlParseMetrics.Phase.Parse);
+        try {
+            Scan(xmlContent);
+        } finally {
+            // Don't retain the document, nor the elements of a failed parse
+            this.xmlContent = null;
+            attributes.Clear();
+            Collections.fill(elems, null);
+            Collections.fill(children, null);
         }
+        XmlElement result = root;
+        root = null;
+        if (metrics != null) {
+            metrics.bytesScanned = xmlContent.length();
+            metrics.entityCount = textDecoder.entityCount;
+            XmlInstrumentation.End(metrics);
+        }
+        return result;
     }
 
+    // Elements found in [index, indexEnd), see ScanSiblings()
+    static ArrayList<XmlElement> GoSiblings(String xmlContent, int index, int indexEnd) throws XmlException {
+        TreeBuilder builder = new TreeBuilder(false);
+        builder.siblings = new ArrayList<>();
+        builder.ScanSiblings(xmlContent, index, indexEnd);
+        return builder.siblings;
+    }
 
-    static String ParseContent(XmlRow elem1, XmlRow elem1Close, String xmlContent) {
-        int indexContentStart = elem1.Index + elem1.Length;
-        int indexContentEnd = xmlContent.lastIndexOf('<', elem1Close.Index);
-        //Debug.Assert(indexContentEnd >= indexContentStart);
-        String untrimmedContent = xmlContent.substring(indexContentStart, indexContentEnd);
-
-        // Trim each line of  untrimmedContent and remove first empty line(s)
+    @Override
+    protected void OpenElement(int index, int nameStart, int nameEnd, int indexTagEnd, int indexCloseChar, boolean isOpenClose) throws XmlException {
+        XmlElement elem = new XmlElement();
+        elem.Name = symbols.Intern(xmlContent, nameStart, nameEnd);
+        if (metrics == null) {
+            elem.Attributes = ParseAttributes(attributes, xmlContent, index, indexCloseChar + 1 - index, limits);
+        } else {
+            long start = System.nanoTime();
+            elem.Attributes = ParseAttributes(attributes, xmlContent, index, indexCloseChar + 1 - index, limits);
+            metrics.attributeNanos += System.nanoTime() - start;
+            metrics.elementCount++;
+            metrics.attributeCount += elem.Attributes.size();
+            metrics.maxDepth = Math.max(metrics.maxDepth, depth + 1);
+        }
+        if (isOpenClose) {
+            AddChild(elem);
+            return;
+        }
+        if (depth == elems.size()) {
+            elems.add(null);
+            children.add(null);
+        }
+        elems.set(depth, elem);
+        children.set(depth, null);
+    }
 
-        ArrayList<String> list = new ArrayList<>();
-        Boolean bANonEmptyLineHasBeenFound = false;
-        try (BufferedReader reader = new BufferedReader(new StringReader(untrimmedContent))) {
-            String line = reader.readLine();
-            while (line != null) {
-                line = line.trim();
-                // Don't add first empty line(s)
-                if (line.length() > 0) {
-                    bANonEmptyLineHasBeenFound = true;
+    @Override
+    protected void CloseElement(ContentKind kind, int contentStart, int contentEnd) {
+        XmlElement elem = elems.get(depth);
+        switch (kind) {
+            case Text:
+                if (metrics == null) {
+                    elem.Content = textDecoder.Decode(xmlContent, contentStart, contentEnd);
+                } else {
+                    long start = System.nanoTime();
+                    elem.Content = textDecoder.Decode(xmlContent, contentStart, contentEnd);
+                    metrics.contentNanos += System.nanoTime() - start;
                 }
-                if (bANonEmptyLineHasBeenFound) {
-                    list.add(line);
+                if (values != null) {
+                    elem.Content = values.Intern(elem.Content);
                 }
-                line = reader.readLine();
-            }
-        } catch (IOException exc) {
-        }
-
-        // Remove last empty line(s)
-        for (int i = list.size() - 1; i >= 0; i--) {
-            if (list.get(i).length() > 0) { break; }
-            list.remove(i);
+                elem.Elements = new ArrayList<>(); // remain empty
+                break;
+            case CDATA:
+                if (metrics != null) {
+                    metrics.cdataCount++;
+                }
+                // CDATA row is not kept, we only grab its content
+                elem.Content = values != null
+                    ? values.Intern(xmlContent, contentStart, contentEnd)
+                    : xmlContent.substring(contentStart, contentEnd);
+                elem.Elements = new ArrayList<>(); // remain empty
+                break;
+            default:
+                elem.Content = "";
+                elem.Elements = children.get(depth);
+                break;
         }
+        elems.set(depth, null);
+        children.set(depth, null);
+        AddChild(elem);
+    }
 
-        // Concatenate lines
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < list.size(); i++) {
-            sb.append(list.get(i));
-            if (i < list.size() - 1) {
-                sb.append("\n");
+    private void AddChild(XmlElement elem) {
+        if (depth == 0) {
+            if (siblings != null) {
+                siblings.add(elem);
+            } else {
+                root = elem;
             }
+            return;
         }
-        String content = sb.toString();
-
-        // Special XML char
-        content = content.replace("&gt;", ">");
-        content = content.replace("&lt;", "<");
-        content = content.replace("&quot;", "\"");
-        content = content.replace("&#13;", "\r");
-        content = content.replace("&#10;", "\n");
-        content = content.replace("&amp;", "&");
-        return content;
+        ArrayList<XmlElement> list = children.get(depth - 1);
+        if (list == null) {
+            list = new ArrayList<>();
+            children.set(depth - 1, list);
+        }
+        list.add(elem);
     }
+}
 
-    static String ParseCDATAContent(XmlRow rowCDATA, String xmlContent) {
-        //Debug.Assert(rowCDATA.Kind == XmlRowKind.CDATA);
-        return xmlContent.substring(rowCDATA.Index, rowCDATA.Index + rowCDATA.Length);
-    }
 
-    static ArrayList<XmlAttribute> ParseAttributes(XmlRow elem, String xmlContent) throws XmlException {
-        ArrayList<XmlAttribute> list = new ArrayList<>();
+//
+// Pull tree builder
+//   Build the same XmlElement hierarchy as TreeBuilder from the events of an XmlPullParser
+//
+class PullTreeBuilder implements XmlEventHandler {
 
-        String elemContent = xmlContent.substring(elem.Index, elem.Index + elem.Length - 1);
-        elemContent = elemContent.replace(elem.Name, "");
+    private final ArrayList<XmlElement> stack = new ArrayList<>();
+    private final ArrayList<XmlEventDispatcher.Frame> frames = new ArrayList<>();
+    private XmlElement root;
 
-        int indexLastQuoteEnd = 0;
-        while (true) {
-            int indexEqual = elemContent.indexOf('=', indexLastQuoteEnd);
-            if (indexEqual == -1) {
-                break;
-            }
-
-            int indexQuoteOpen = elemContent.indexOf('"', indexEqual);
-            if (indexQuoteOpen == -1) {
-                throw new XmlException("'\"' open expected");
-            }
+    public static XmlElement Go(XmlPullParser parser) throws XmlException {
+        return Go(parser, XmlParseLimits.NONE);
+    }
 
-            indexQuoteOpen++;
+    public static XmlElement Go(XmlPullParser parser, XmlParseLimits limits) throws XmlException {
+        return new PullTreeBuilder().Parse(parser, limits);
+    }
 
-            int indexQuoteEnd = elemContent.indexOf('"', indexQuoteOpen);
-            if (indexQuoteEnd == -1) {
-                throw new XmlException("'\"' close expected");
-            }
+    // A builder can parse several documents, one at a time, its stacks are reused
+    XmlElement Parse(XmlPullParser parser, XmlParseLimits limits) throws XmlException {
+        try {
+            XmlEventDispatcher.Go(parser, this, limits, frames);
+            return root;
+        } catch (ModelException exc) {
+            throw new IllegalStateException(exc); // Never thrown by PullTreeBuilder
+        } finally {
+            stack.clear(); // Elements of a failed parse
+            root = null;   // Not retained, even when a metrics listener throws
+        }
+    }
 
-            String attrValue = elemContent.substring(indexQuoteOpen, indexQuoteEnd);
-            String attrName = elemContent.substring(indexLastQuoteEnd, indexEqual);
-            attrName = attrName.trim();
+    // Element of the current StartElement, the parser is left on its EndElement
+    public static XmlElement GoElement(XmlPullParser parser) throws XmlException {
+        PullTreeBuilder builder = new PullTreeBuilder();
+        try {
+            XmlEventDispatcher.GoElement(parser, builder);
+        } catch (ModelException exc) {
+            throw new IllegalStateException(exc); // Never thrown by PullTreeBuilder
+        }
+        return builder.root;
+    }
 
+    @Override
+    public void StartElement(String name, XmlPullParser attributes) {
+        XmlElement elem = new XmlElement();
+        elem.Name = name;
+        elem.Attributes = new ArrayList<>(attributes.getAttributeCount());
+        for (int i = 0; i < attributes.getAttributeCount(); i++) {
             XmlAttribute attr = new XmlAttribute();
-            attr.Name = attrName;
-            attr.Value = attrValue;
+            attr.Name = attributes.getAttributeName(i);
+            attr.Value = attributes.getAttributeValue(i);
+            elem.Attributes.add(attr);
+        }
+        if (!stack.isEmpty()) {
+            XmlElement parent = stack.get(stack.size() - 1);
+            if (parent.Elements == null) {
+                parent.Elements = new ArrayList<>();
+            }
+            parent.Elements.add(elem);
+        }
+        stack.add(elem);
+    }
 
-            list.add(attr);
+    @Override
+    public void Content(String content) {
+        XmlElement elem = stack.get(stack.size() - 1);
+        elem.Content = content;
+        elem.Elements = new ArrayList<>(); // remain empty
+    }
 
-            indexLastQuoteEnd = indexQuoteEnd + 1; // Prepare next attribute
+    @Override
+    public void EndElement(String name) {
+        XmlElement elem = stack.remove(stack.size() - 1);
+        if (elem.Content == null && elem.Elements != null) {
+            // case  <Row> <Child /><Child /> </Row>
+            elem.Content = "";
+        }
+        // Else case  <xyz/>  keeps null Content and Elements
+        if (stack.isEmpty()) {
+            root = elem;
         }
-
-        return list;
     }
 }
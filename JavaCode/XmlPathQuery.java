@@ -0,0 +1,178 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+//
+// Path query
+//   Select elements of a document streamed by an XmlPullParser with an absolute path of child steps like
+//     InspectionsExport/Inspections/InspectionInstance[@Severity='Critical']
+//   A step is an element name or * for any name, followed by zero or more  [@name='value']  predicates,
+//   the value may also be in double quotes and is compared with the attribute value as found in the document.
+//   The first step matches the root element, a leading '/' is optional.
+//   An element that doesn't match its step can't have a matching descendant, so its subtree is skipped
+//   with XmlPullParser.SkipElement(): the memory-mapped parser only scans tags there, without decoding
+//   names, attributes or text. Matching elements are built as XmlElement, like XmlParsing.Go() does.
+//
+public class XmlPathQuery {
+
+    static class Step {
+        String name;                 // null for *
+        ArrayList<String> attributeNames = new ArrayList<>();
+        ArrayList<String> attributeValues = new ArrayList<>();
+    }
+
+    private final String path;
+    private final Step[] steps;
+
+    private XmlPathQuery(String path, Step[] steps) {
+        this.path = path;
+        this.steps = steps;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    //
+    // Compiler
+    //
+
+    public static XmlPathQuery Compile(String path) throws XmlException {
+        ArrayList<Step> steps = new ArrayList<>();
+        int index = path.startsWith("/") ? 1 : 0;
+        while (true) {
+            Step step = new Step();
+            int nameEnd = index;
+            while (nameEnd < path.length() && path.charAt(nameEnd) != '/' && path.charAt(nameEnd) != '[') {
+                nameEnd++;
+            }
+            String name = path.substring(index, nameEnd).trim();
+            if (name.isEmpty()) {
+                throw new XmlException("Element name or '*' expected at " + index + " in path " + path);
+            }
+            step.name = name.equals("*") ? null : name;
+            index = nameEnd;
+
+            while (index < path.length() && path.charAt(index) == '[') {
+                index = CompilePredicate(path, index, step);
+            }
+            steps.add(step);
+
+            if (index == path.length()) {
+                break;
+            }
+            if (path.charAt(index) != '/') {
+                throw new XmlException("'/' expected at " + index + " in path " + path);
+            }
+            index++;
+        }
+        return new XmlPathQuery(path, steps.toArray(new Step[0]));
+    }
+
+    // [@name='value']  at index, return the index after ']'
+    private static int CompilePredicate(String path, int index, Step step) throws XmlException {
+        int indexEqual = path.indexOf('=', index);
+        if (indexEqual == -1 || path.charAt(index + 1) != '@') {
+            throw new XmlException("Predicate [@name='value'] expected at " + index + " in path " + path);
+        }
+        String attributeName = path.substring(index + 2, indexEqual).trim();
+        if (attributeName.isEmpty() || attributeName.indexOf(']') != -1 || attributeName.indexOf('/') != -1) {
+            throw new XmlException("Attribute name expected at " + (index + 2) + " in path " + path);
+        }
+        int indexQuoteOpen = indexEqual + 1;
+        while (indexQuoteOpen < path.length() && path.charAt(indexQuoteOpen) == ' ') {
+            indexQuoteOpen++;
+        }
+        char quote = indexQuoteOpen < path.length() ? path.charAt(indexQuoteOpen) : '\0';
+        if (quote != '\'' && quote != '"') {
+            throw new XmlException("Quoted value expected at " + indexQuoteOpen + " in path " + path);
+        }
+        int indexQuoteEnd = path.indexOf(quote, indexQuoteOpen + 1);
+        if (indexQuoteEnd == -1) {
+            throw new XmlException("Close quote expected at " + indexQuoteOpen + " in path " + path);
+        }
+        int indexClose = indexQuoteEnd + 1;
+        while (indexClose < path.length() && path.charAt(indexClose) == ' ') {
+            indexClose++;
+        }
+        if (indexClose == path.length() || path.charAt(indexClose) != ']') {
+            throw new XmlException("']' expected at " + indexClose + " in path " + path);
+        }
+        step.attributeNames.add(attributeName);
+        step.attributeValues.add(path.substring(indexQuoteOpen + 1, indexQuoteEnd));
+        return indexClose + 1;
+    }
+
+    //
+    // Evaluation
+    //
+
+    public List<XmlElement> Go(Path xmlFile) throws XmlException {
+        ArrayList<XmlElement> elements = new ArrayList<>();
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            Go(parser, elements::add);
+        } catch (IOException exc) {
+            throw new XmlException("Cannot read " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+        return elements;
+    }
+
+    public List<XmlElement> Go(XmlPullParser parser) throws XmlException {
+        ArrayList<XmlElement> elements = new ArrayList<>();
+        Go(parser, elements::add);
+        return elements;
+    }
+
+    // Matching elements are passed in document order, the parser is read up to the end of the root element
+    public void Go(XmlPullParser parser, Consumer<XmlElement> elements) throws XmlException {
+        int matchedDepth = 0; // Open elements that matched their step, all the open elements when not skipping
+        while (true) {
+            switch (parser.Next()) {
+                case StartElement: {
+                    int depth = parser.getDepth();
+                    if (depth - 1 != matchedDepth || !IsMatch(steps[depth - 1], parser)) {
+                        parser.SkipElement();
+                        if (depth == 1) {
+                            return; // Root element doesn't match
+                        }
+                    } else if (depth == steps.length) {
+                        elements.accept(PullTreeBuilder.GoElement(parser));
+                        if (depth == 1) {
+                            return;
+                        }
+                    } else {
+                        matchedDepth = depth;
+                    }
+                    break;
+                }
+                case EndElement:
+                    matchedDepth = parser.getDepth();
+                    if (matchedDepth == 0) {
+                        return; // Done with the root element
+                    }
+                    break;
+                case EndDocument:
+                    throw new XmlException("'<' expected");
+                default:
+                    break; // Text of the elements on the path is not selected
+            }
+        }
+    }
+
+    private static boolean IsMatch(Step step, XmlPullParser parser) {
+        if (step.name != null && !step.name.equals(parser.getName())) {
+            return false;
+        }
+        for (int i = 0; i < step.attributeNames.size(); i++) {
+            if (!step.attributeValues.get(i).equals(parser.getAttributeValue(step.attributeNames.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
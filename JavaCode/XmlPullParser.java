@@ -0,0 +1,72 @@
+package com.ndepend.inspections;
+
+import java.io.Closeable;
+
+//
+// Pull API
+//   The caller asks for the next event with Next() and reads the event data through the getters.
+//   Data returned by the getters is only valid until the next call to Next().
+//   The pull parsers read a document like XmlParsing.Go(String) except in two cases where the String parser
+//   keeps the rules of the original parser:
+//   - The 'xml' declaration is not required, XmlParsing.Go(String) fails with "'xml' expected" without it.
+//   - Comments and processing instructions in a text are skipped, the texts around them are trimmed separately
+//     then joined:  <a>foo <!-- c --> bar</a>  has the content "foobar". XmlParsing.Go(String) keeps the raw text
+//     "foo <!-- c --> bar" and fails on a processing instruction inside an element.
+//   Exports written by NDepend have the declaration and no comment or processing instruction in a text.
+//
+public interface XmlPullParser extends Closeable {
+
+    XmlPullEvent Next() throws XmlException;
+
+    XmlPullEvent getEvent();
+
+    // On a StartElement, move to its EndElement without reporting the events in between.
+    // Parsers may skip by scanning tags only: names, attributes and text inside are not decoded
+    // and only the nesting and the name of the closing tag are checked.
+    void SkipElement() throws XmlException;
+
+    // Number of elements opened and not yet closed, the root element is at depth 1
+    int getDepth();
+
+    // true on the StartElement and EndElement events of  <xyz/>
+    boolean isEmptyElement();
+
+    // Name of the current StartElement or EndElement
+    String getName();
+
+    // Content of the current Text or CDATA event.
+    // Text is trimmed line by line and special XML chars are translated, like XmlElement.Content.
+    String getText();
+
+    int getAttributeCount();
+
+    String getAttributeName(int index);
+
+    String getAttributeValue(int index);
+
+    // null if the current StartElement has no such attribute
+    String getAttributeValue(String name);
+
+    // Typed accessors parse the value in place, without creating a String.
+    // Integer.MIN_VALUE if the value is not an int, like FillInspectionsModel.tryParseInt()
+    int getAttributeInt(int index);
+
+    // Integer.MIN_VALUE if the current StartElement has no such attribute or if the value is not an int
+    int getAttributeInt(String name);
+
+    // The constant whose name() is the value, null if there is no such attribute or constant
+    <E extends Enum<E>> E getAttributeEnum(String name, E[] constants);
+
+    // Names are always interned, with true short attribute values and text are interned too,
+    // so repeated values like Severity or FilePath share a single String
+    void setInternValues(boolean internValues);
+}
+
+
+enum XmlPullEvent {
+    StartElement, // <xyz>  or  <xyz/>
+    EndElement,   // </xyz>  or right after the StartElement of  <xyz/>
+    Text,         // Non blank text between tags
+    CDATA,        // xyz  in  <![CDATA[xyz]]>
+    EndDocument   // The root element has been closed
+}
@@ -0,0 +1,571 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//
+// Pull parser over a Reader
+//   Chars are read in a fixed size buffer that gets refilled when the current token has been consumed.
+//   Memory depends on the nesting depth and on the size of the largest single token
+//   (tag, text or CDATA section), not on the document size.
+//   A token larger than the buffer makes the buffer grow, a text or CDATA section longer than
+//   the maxContentLength of the limits fails before the buffer grows past it.
+//
+public class XmlReaderPullParser implements XmlPullParser {
+
+    final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    final static String CDATA_OPEN = "<![CDATA[";
+    final static String CDATA_CLOSE = "]]>";
+    final static String COMMENT_OPEN = "<!--";
+    final static String COMMENT_CLOSE = "-->";
+    final static String PI_CLOSE = "?>";
+
+    private Reader reader;
+    private char[] buf;
+    private int tokenStart; // Index in buf of the first char of the token being parsed, chars before can be dropped
+    private int pos;        // Index in buf of the next char to parse
+    private int limit;      // Index in buf after the last char read
+    private boolean eof;
+    private XmlParseLimits limits = XmlParseLimits.NONE;
+    private int contentOffset = -1;  // Index relative to tokenStart of the text or CDATA being read, -1 for other tokens
+
+    private XmlPullEvent event;
+    private String[] names = new String[16]; // Names of the open elements
+    private int depth;
+    private boolean pendingEndElement;       // Set after the StartElement of  <xyz/>
+    private boolean emptyElement;            // Set on the EndElement of  <xyz/>
+
+    private String name;
+    private int nameStart;
+    private int textStart;
+    private int textEnd;
+    private String text;
+
+    private int attributeCount;
+    private int[] attributeRanges = new int[4 * 8]; // nameStart, nameEnd, valueStart, valueEnd per attribute
+
+    private final XmlSymbolTable symbols = new XmlSymbolTable(); // Element and attribute names
+    private XmlSymbolTable values;                               // null unless values are interned
+    private final XmlTextDecoder textDecoder = new XmlTextDecoder();
+
+    public XmlReaderPullParser(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public XmlReaderPullParser(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buf = new char[Math.max(bufferSize, 16)];
+    }
+
+    public XmlReaderPullParser(InputStream stream) {
+        this(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    // Only maxContentLength is checked here, see XmlEventDispatcher for the others
+    void setLimits(XmlParseLimits limits) {
+        this.limits = limits;
+    }
+
+    // Read another document with the same buffer, arrays and symbol table of names.
+    // Interned values are not shared between documents. The previous reader must have been closed.
+    void Reset(Reader reader) {
+        this.reader = reader;
+        tokenStart = 0;
+        pos = 0;
+        limit = 0;
+        eof = false;
+        event = null;
+        depth = 0;
+        pendingEndElement = false;
+        emptyElement = false;
+        attributeCount = 0;
+        name = null;
+        text = null;
+        if (values != null) {
+            values.Clear();
+        }
+    }
+
+    @Override
+    public XmlPullEvent Next() throws XmlException {
+        attributeCount = 0;
+        text = null;
+        emptyElement = false;
+
+        if (pendingEndElement) {
+            // Case  <xyz/>  second event
+            pendingEndElement = false;
+            emptyElement = true;
+            depth--;
+            return event = XmlPullEvent.EndElement;
+        }
+        if (event == XmlPullEvent.EndDocument ||
+            (event == XmlPullEvent.EndElement && depth == 0)) {
+            return event = XmlPullEvent.EndDocument;
+        }
+
+        while (true) {
+            tokenStart = pos;
+            contentOffset = depth > 0 ? 0 : -1;
+            int indexOpenChar = IndexOf('<', 0);
+            contentOffset = -1;
+            if (indexOpenChar == -1) {
+                if (depth > 0) {
+                    throw new XmlException("No close elem </" + names[depth - 1] + ">");
+                }
+                throw new XmlException("'<' expected"); // At least one element must have been found!
+            }
+
+            if (indexOpenChar > 0 && depth > 0 && !IsBlank(tokenStart, tokenStart + indexOpenChar)) {
+                // Text between tags, the '<' will be parsed by the next call
+                textStart = tokenStart;
+                textEnd = tokenStart + indexOpenChar;
+                pos = textEnd;
+                return event = XmlPullEvent.Text;
+            }
+
+            tokenStart += indexOpenChar;
+            pos = tokenStart;
+            int nextChar = Peek(1);
+
+            if (nextChar == '!') {
+                if (StartsWith(COMMENT_OPEN)) {
+                    // case <!--xyz-->  comments are skipped
+                    int commentCloseIndex = IndexOf(COMMENT_CLOSE, COMMENT_OPEN.length());
+                    if (commentCloseIndex == -1) {
+                        throw new XmlException("wrongly formatted xml comment");
+                    }
+                    pos = tokenStart + commentCloseIndex + COMMENT_CLOSE.length();
+                    continue;
+                }
+                if (Peek(2) != '[') {
+                    throw new XmlException("wrongly formatted xml comment");
+                }
+                return ParseCDATA();
+            }
+
+            if (nextChar == '?') {
+                // case <?xyz?>  processing instructions like the xml declaration are skipped
+                int piCloseIndex = IndexOf(PI_CLOSE, 2);
+                if (piCloseIndex == -1) {
+                    throw new XmlException("'" + PI_CLOSE + "' expected");
+                }
+                pos = tokenStart + piCloseIndex + PI_CLOSE.length();
+                continue;
+            }
+
+            if (nextChar == '/') {
+                return ParseCloseTag();
+            }
+
+            return ParseOpenTag();
+        }
+    }
+
+    // case  <![CDATA[xyz]]>
+    private XmlPullEvent ParseCDATA() throws XmlException {
+        if (!StartsWith(CDATA_OPEN)) {
+            Peek(CDATA_OPEN.length());
+            String cdataOpenStr = new String(buf, tokenStart, Math.min(limit - tokenStart, CDATA_OPEN.length()));
+            throw new XmlException("wrongly formatted CDATA open section, " + cdataOpenStr + " instead of " + CDATA_OPEN);
+        }
+        contentOffset = depth > 0 ? CDATA_OPEN.length() : -1;
+        int cdataCloseIndex = IndexOf(CDATA_CLOSE, CDATA_OPEN.length());
+        contentOffset = -1;
+        if (cdataCloseIndex == -1) {
+            throw new XmlException("CDATA open section " + CDATA_OPEN + " without close section " + CDATA_CLOSE);
+        }
+        if (depth == 0) {
+            throw new XmlException("CDATA section outside of any element");
+        }
+        textStart = tokenStart + CDATA_OPEN.length();
+        textEnd = tokenStart + cdataCloseIndex;
+        pos = textEnd + CDATA_CLOSE.length();
+        return event = XmlPullEvent.CDATA;
+    }
+
+    // case </xyz>
+    private XmlPullEvent ParseCloseTag() throws XmlException {
+        int indexCloseChar = IndexOf('>', 2);
+        if (indexCloseChar == -1) {
+            throw new XmlException("'>' expected");
+        }
+        int nameEnd = ParseNameEnd(tokenStart + 2, tokenStart + indexCloseChar);
+        if (depth == 0) {
+            throw new XmlException("No open elem <" + new String(buf, nameStart, nameEnd - nameStart) + ">");
+        }
+        if (!RegionEquals(nameStart, nameEnd, names[depth - 1])) {
+            throw new XmlException("No close elem </" + names[depth - 1] + ">");
+        }
+        name = names[--depth];
+        pos = tokenStart + indexCloseChar + 1;
+        return event = XmlPullEvent.EndElement;
+    }
+
+    // case <xyz>  or  <xyz/>
+    private XmlPullEvent ParseOpenTag() throws XmlException {
+        int indexFound = IndexOfTagEndNotInAttribute(1);
+        if (indexFound == -1) {
+            throw new XmlException("'>' or '/' expected");
+        }
+        int indexCloseChar = indexFound;
+        boolean isOpenClose = buf[tokenStart + indexFound] == '/';
+        if (isOpenClose) {
+            indexCloseChar = IndexOf('>', indexFound + 1);
+            if (indexCloseChar == -1) {
+                throw new XmlException("'>' expected");
+            }
+        }
+
+        // The whole tag is now in buf
+        int nameEnd = ParseNameEnd(tokenStart + 1, tokenStart + indexFound);
+        name = symbols.Intern(buf, nameStart, nameEnd);
+        ParseAttributes(nameEnd, tokenStart + indexFound);
+
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+        }
+        names[depth++] = name;
+        pendingEndElement = isOpenClose;
+        pos = tokenStart + indexCloseChar + 1;
+        return event = XmlPullEvent.StartElement;
+    }
+
+    private void ParseAttributes(int index, int indexEnd) throws XmlException {
+        while (true) {
+            int indexEqual = IndexOf('=', index, indexEnd);
+            if (indexEqual == -1) {
+                return;
+            }
+            int indexQuoteOpen = IndexOfQuote(indexEqual, indexEnd);
+            if (indexQuoteOpen == -1) {
+                throw new XmlException("'\"' open expected");
+            }
+            char quote = buf[indexQuoteOpen++];
+            int indexQuoteEnd = IndexOf(quote, indexQuoteOpen, indexEnd);
+            if (indexQuoteEnd == -1) {
+                throw new XmlException("'\"' close expected");
+            }
+
+            int attrNameStart = index;
+            int attrNameEnd = indexEqual;
+            while (attrNameStart < attrNameEnd && buf[attrNameStart] <= ' ') { attrNameStart++; }
+            while (attrNameEnd > attrNameStart && buf[attrNameEnd - 1] <= ' ') { attrNameEnd--; }
+
+            int offset = 4 * attributeCount;
+            if (offset == attributeRanges.length) {
+                attributeRanges = Arrays.copyOf(attributeRanges, offset * 2);
+            }
+            attributeRanges[offset] = attrNameStart;
+            attributeRanges[offset + 1] = attrNameEnd;
+            attributeRanges[offset + 2] = indexQuoteOpen;
+            attributeRanges[offset + 3] = indexQuoteEnd;
+            attributeCount++;
+
+            index = indexQuoteEnd + 1; // Prepare next attribute
+        }
+    }
+
+    // Name of  <xyz attr="...">  is the first word after  <  or  </
+    private int ParseNameEnd(int index, int indexEnd) {
+        while (index < indexEnd && Character.isWhitespace(buf[index])) {
+            index++;
+        }
+        nameStart = index;
+        while (index < indexEnd) {
+            char c = buf[index];
+            if (c == '/' || c == '>' || Character.isWhitespace(c)) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private boolean RegionEquals(int index, int indexEnd, String str) {
+        if (indexEnd - index != str.length()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            if (buf[index + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public XmlPullEvent getEvent() {
+        return event;
+    }
+
+    // Chars are pulled through the buffer anyway, so the events are read and dropped
+    @Override
+    public void SkipElement() throws XmlException {
+        if (event != XmlPullEvent.StartElement) {
+            throw new IllegalStateException("SkipElement() called on " + event);
+        }
+        int startDepth = depth;
+        while (Next() != XmlPullEvent.EndElement || depth >= startDepth) {
+            // Events of the child elements are dropped
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isEmptyElement() {
+        return pendingEndElement || (event == XmlPullEvent.EndElement && emptyElement);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getText() {
+        if (text == null) {
+            text = event == XmlPullEvent.CDATA
+                ? new String(buf, textStart, textEnd - textStart)
+                : textDecoder.Decode(buf, textStart, textEnd);
+            if (values != null) {
+                text = values.Intern(text);
+            }
+        }
+        return text;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        int offset = 4 * index;
+        return symbols.Intern(buf, attributeRanges[offset], attributeRanges[offset + 1]);
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        int offset = 4 * index;
+        if (values != null) {
+            return values.Intern(buf, attributeRanges[offset + 2], attributeRanges[offset + 3]);
+        }
+        return new String(buf, attributeRanges[offset + 2], attributeRanges[offset + 3] - attributeRanges[offset + 2]);
+    }
+
+    @Override
+    public String getAttributeValue(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? null : getAttributeValue(index);
+    }
+
+    @Override
+    public int getAttributeInt(int index) {
+        int offset = 4 * index;
+        return XmlAttributeCursor.ParseInt(buf, attributeRanges[offset + 2], attributeRanges[offset + 3]);
+    }
+
+    @Override
+    public int getAttributeInt(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? Integer.MIN_VALUE : getAttributeInt(index);
+    }
+
+    @Override
+    public <E extends Enum<E>> E getAttributeEnum(String attrName, E[] constants) {
+        int index = IndexOfAttribute(attrName);
+        if (index == -1) {
+            return null;
+        }
+        int offset = 4 * index;
+        for (E constant : constants) {
+            if (RegionEquals(attributeRanges[offset + 2], attributeRanges[offset + 3], constant.name())) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    private int IndexOfAttribute(String attrName) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (RegionEquals(attributeRanges[4 * i], attributeRanges[4 * i + 1], attrName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setInternValues(boolean internValues) {
+        values = internValues ? new XmlSymbolTable() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    //
+    // Buffer management
+    //   Indexes passed to and returned by the methods below are relative to tokenStart,
+    //   because reading more chars can move the current token to the beginning of buf.
+    //
+
+    // Read more chars, return false if the end of input is reached
+    private boolean Fill() throws XmlException {
+        if (eof) {
+            return false;
+        }
+        if (tokenStart > 0) {
+            int length = limit - tokenStart;
+            System.arraycopy(buf, tokenStart, buf, 0, length);
+            pos -= tokenStart;
+            limit = length;
+            tokenStart = 0;
+        }
+        if (limit == buf.length) {
+            int contentLength = limit - contentOffset;
+            if (contentOffset >= 0 && contentLength > limits.maxContentLength) {
+                limits.CheckContent(contentLength, names[depth - 1]);
+            }
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int read;
+        try {
+            read = reader.read(buf, limit, buf.length - limit);
+        } catch (IOException exc) {
+            if (exc.getCause() instanceof XmlException) {
+                throw (XmlException) exc.getCause(); // Limit exceeded while inflating, see XmlGzipInputStream
+            }
+            throw new XmlException("Cannot read xml content: " + exc.getMessage(), exc);
+        }
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    // Char at index, or -1 past the end of input
+    private int Peek(int index) throws XmlException {
+        while (tokenStart + index >= limit) {
+            if (!Fill()) {
+                return -1;
+            }
+        }
+        return buf[tokenStart + index];
+    }
+
+    private boolean StartsWith(String str) throws XmlException {
+        for (int i = 0; i < str.length(); i++) {
+            if (Peek(i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int IndexOf(char c, int index) throws XmlException {
+        while (true) {
+            for (int i = tokenStart + index; i < limit; i++) {
+                if (buf[i] == c) {
+                    return i - tokenStart;
+                }
+            }
+            index = limit - tokenStart;
+            if (!Fill()) {
+                return -1;
+            }
+        }
+    }
+
+    private int IndexOf(String str, int index) throws XmlException {
+        char first = str.charAt(0);
+        while (true) {
+            index = IndexOf(first, index);
+            if (index == -1) {
+                return -1;
+            }
+            boolean found = true;
+            for (int i = 1; i < str.length() && found; i++) {
+                int c = Peek(index + i);
+                if (c == -1) {
+                    return -1;
+                }
+                found = c == str.charAt(i);
+            }
+            if (found) {
+                return index;
+            }
+            index++;
+        }
+    }
+
+    // Find the first '>' or '/' that is not in a "value" or 'value'
+    private int IndexOfTagEndNotInAttribute(int index) throws XmlException {
+        char quote = 0;     // Quote of the value being scanned
+        while (true) {
+            for (int i = tokenStart + index; i < limit; i++) {
+                char c = buf[i];
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                    continue;
+                }
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                    continue;
+                }
+                if (c == '>' || c == '/') {
+                    return i - tokenStart;
+                }
+            }
+            index = limit - tokenStart;
+            if (!Fill()) {
+                return -1;
+            }
+        }
+    }
+
+    // Absolute indexes, only used once the whole token is in buf
+    // First  "  or  '  from index
+    private int IndexOfQuote(int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (buf[i] == '"' || buf[i] == '\'') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int IndexOf(char c, int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean IsBlank(int index, int indexEnd) {
+        for (int i = index; i < indexEnd; i++) {
+            if (buf[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
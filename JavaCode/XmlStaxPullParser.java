@@ -0,0 +1,355 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+//
+// Pull parser over the JDK StAX parser
+//   Adapt the javax.xml.stream.XMLStreamReader of the java.xml module to XmlPullParser, so PullTreeBuilder
+//   and FillInspectionsModel.Binder build the same XmlElement tree and InspectionsExport as with the built-in parsers.
+//   StAX reports the XML infoset while the built-in parsers work on the text as written, the adapter bridges both:
+//   - The text events between two tags, comments or processing instructions are joined and '&' is escaped back,
+//     then decoded by XmlTextDecoder like the raw text of the built-in parsers: lines trimmed, entities expanded.
+//   - <xyz/> and <xyz></xyz> are the same events for StAX, an element is empty when no char was read
+//     between its StartElement and its EndElement.
+//   - Attribute values come decoded, the chars an XML writer must escape are escaped back like .NET writes them,
+//     & < > " as entities and tab, new line and carriage return as &#x9; &#xA; &#xD;
+//   Output only differs from the built-in parsers where the text as written can't be recovered:
+//   a reference to a blank char in a text like &#10; is trimmed as a blank char, line breaks in a CDATA section
+//   are \n only, attribute values escaped otherwise than by .NET are escaped back the .NET way.
+//   Exports written by NDepend have none of these. Documents the built-in parsers accept but that are not
+//   well-formed XML fail with an XmlException. DTDs are not supported, so no entity is ever expanded from one.
+//
+public class XmlStaxPullParser implements XmlPullParser {
+
+    // Ask the JDK parser to report CDATA sections as CDATA events rather than as text
+    private final static String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    private final InputStream stream;
+    private final XMLStreamReader reader;
+    private int pendingStaxEvent = -1;          // StAX event read ahead and not reported yet, -1 if none
+
+    private XmlPullEvent event;
+    private String[] names = new String[16];    // Names of the open elements
+    private int depth;
+    private boolean emptyElement;               // Set on the StartElement and EndElement events of  <xyz/>
+
+    private String name;
+    private int attributeCount;
+    private String[] attributes = new String[2 * 8]; // Name and value per attribute
+
+    private char[] textChars = new char[256];   // Text events joined, '&' escaped back
+    private int textLength;
+    private String text;
+
+    private final XmlSymbolTable symbols = new XmlSymbolTable(); // Element and attribute names
+    private XmlSymbolTable values;                               // null unless values are interned
+    private final XmlTextDecoder textDecoder = new XmlTextDecoder();
+
+    // The stream is closed with the parser, its encoding is read from the xml declaration, UTF-8 by default
+    public XmlStaxPullParser(InputStream stream) throws XmlException {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);   // Names like  a:b  are kept as written
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+            factory.setProperty(REPORT_CDATA_EVENT, true);
+        }
+        this.stream = stream;
+        try {
+            this.reader = factory.createXMLStreamReader(stream);
+        } catch (XMLStreamException exc) {
+            throw ToXmlException(exc);
+        }
+    }
+
+    @Override
+    public XmlPullEvent Next() throws XmlException {
+        attributeCount = 0;
+        text = null;
+
+        if (event == XmlPullEvent.StartElement && emptyElement) {
+            // Case  <xyz/>  second event, read ahead by the StartElement
+            pendingStaxEvent = -1;
+            name = names[--depth];
+            return event = XmlPullEvent.EndElement;
+        }
+        emptyElement = false;
+        if (event == XmlPullEvent.EndDocument ||
+            (event == XmlPullEvent.EndElement && depth == 0)) {
+            return event = XmlPullEvent.EndDocument;
+        }
+
+        try {
+            while (true) {
+                int staxEvent = NextStaxEvent();
+                switch (staxEvent) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        return StartElement();
+                    case XMLStreamConstants.END_ELEMENT:
+                        name = names[--depth];
+                        return event = XmlPullEvent.EndElement;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        if (ReadText()) {
+                            return event = XmlPullEvent.Text;
+                        }
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        text = reader.getText();
+                        if (values != null) {
+                            text = values.Intern(text);
+                        }
+                        return event = XmlPullEvent.CDATA;
+                    case XMLStreamConstants.END_DOCUMENT:
+                        throw new XmlException("'<' expected"); // StAX fails first on an element not closed
+                    default:
+                        break; // Comments, processing instructions and the document type are skipped
+                }
+            }
+        } catch (XMLStreamException exc) {
+            throw ToXmlException(exc);
+        }
+    }
+
+    private int NextStaxEvent() throws XMLStreamException {
+        if (pendingStaxEvent != -1) {
+            int staxEvent = pendingStaxEvent;
+            pendingStaxEvent = -1;
+            return staxEvent;
+        }
+        return reader.next();
+    }
+
+    // case <xyz>  or  <xyz/>, the next StAX event is read to know which one
+    private XmlPullEvent StartElement() throws XMLStreamException {
+        name = symbols.Intern(reader.getLocalName());
+        attributeCount = reader.getAttributeCount();
+        if (2 * attributeCount > attributes.length) {
+            attributes = new String[Math.max(2 * attributeCount, 2 * attributes.length)];
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            String prefix = reader.getAttributePrefix(i);
+            String localName = reader.getAttributeLocalName(i);
+            attributes[2 * i] = symbols.Intern(prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName);
+            String value = EscapeAttributeValue(reader.getAttributeValue(i));
+            attributes[2 * i + 1] = values != null ? values.Intern(value) : value;
+        }
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+        }
+        names[depth++] = name;
+
+        int offset = reader.getLocation().getCharacterOffset();
+        pendingStaxEvent = reader.next();
+        emptyElement = pendingStaxEvent == XMLStreamConstants.END_ELEMENT && reader.getLocation().getCharacterOffset() == offset;
+        return event = XmlPullEvent.StartElement;
+    }
+
+    // Join the text events up to the next tag, comment or processing instruction like the built-in parsers
+    // find the raw text between two '<', false if the text is blank or outside of the root element
+    private boolean ReadText() throws XMLStreamException {
+        textLength = 0;
+        boolean blank = true;
+        int staxEvent;
+        do {
+            char[] chars = reader.getTextCharacters();
+            int start = reader.getTextStart();
+            int end = start + reader.getTextLength();
+            Reserve(end - start);
+            for (int i = start; i < end; i++) {
+                char c = chars[i];
+                if (c == '&') {
+                    // Decoded again by XmlTextDecoder
+                    Reserve(end - i + 4);
+                    textChars[textLength++] = '&';
+                    textChars[textLength++] = 'a';
+                    textChars[textLength++] = 'm';
+                    textChars[textLength++] = 'p';
+                    textChars[textLength++] = ';';
+                    blank = false;
+                    continue;
+                }
+                blank &= c <= ' ';
+                textChars[textLength++] = c;
+            }
+            staxEvent = reader.next();
+        } while (staxEvent == XMLStreamConstants.CHARACTERS || staxEvent == XMLStreamConstants.SPACE);
+        pendingStaxEvent = staxEvent;
+        return !blank && depth > 0;
+    }
+
+    private void Reserve(int length) {
+        if (textLength + length > textChars.length) {
+            textChars = Arrays.copyOf(textChars, Math.max(textLength + length, 2 * textChars.length));
+        }
+    }
+
+    // The value as .NET writes it in a double quoted attribute, the value itself when there is nothing to escape
+    static String EscapeAttributeValue(String value) {
+        int i = 0;
+        while (i < value.length() && EscapeChar(value.charAt(i)) == null) {
+            i++;
+        }
+        if (i == value.length()) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        sb.append(value, 0, i);
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped = EscapeChar(c);
+            if (escaped != null) {
+                sb.append(escaped);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String EscapeChar(char c) {
+        switch (c) {
+            case '&': return "&amp;";
+            case '<': return "&lt;";
+            case '>': return "&gt;";
+            case '"': return "&quot;";
+            case '\t': return "&#x9;";
+            case '\n': return "&#xA;";
+            case '\r': return "&#xD;";
+            default: return null;
+        }
+    }
+
+    // A limit exceeded while inflating is thrown as is, see XmlGzipInputStream
+    private static XmlException ToXmlException(XMLStreamException exc) {
+        for (Throwable cause = exc.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof XmlException) {
+                return (XmlException) cause;
+            }
+        }
+        return new XmlException(exc.getMessage(), exc);
+    }
+
+    @Override
+    public XmlPullEvent getEvent() {
+        return event;
+    }
+
+    // StAX has no faster way, the events are read and dropped
+    @Override
+    public void SkipElement() throws XmlException {
+        if (event != XmlPullEvent.StartElement) {
+            throw new IllegalStateException("SkipElement() called on " + event);
+        }
+        int startDepth = depth;
+        while (Next() != XmlPullEvent.EndElement || depth >= startDepth) {
+            // Events of the child elements are dropped
+        }
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isEmptyElement() {
+        return emptyElement;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getText() {
+        if (text == null && event == XmlPullEvent.Text) {
+            text = textDecoder.Decode(textChars, 0, textLength);
+            if (values != null) {
+                text = values.Intern(text);
+            }
+        }
+        return text;
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return attributeCount;
+    }
+
+    @Override
+    public String getAttributeName(int index) {
+        return attributes[2 * index];
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        return attributes[2 * index + 1];
+    }
+
+    @Override
+    public String getAttributeValue(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? null : attributes[2 * index + 1];
+    }
+
+    @Override
+    public int getAttributeInt(int index) {
+        String value = attributes[2 * index + 1];
+        return XmlAttributeCursor.ParseInt(value, 0, value.length());
+    }
+
+    @Override
+    public int getAttributeInt(String attrName) {
+        int index = IndexOfAttribute(attrName);
+        return index == -1 ? Integer.MIN_VALUE : getAttributeInt(index);
+    }
+
+    @Override
+    public <E extends Enum<E>> E getAttributeEnum(String attrName, E[] constants) {
+        String value = getAttributeValue(attrName);
+        if (value == null) {
+            return null;
+        }
+        for (E constant : constants) {
+            if (constant.name().equals(value)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    private int IndexOfAttribute(String attrName) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributes[2 * i].equals(attrName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setInternValues(boolean internValues) {
+        values = internValues ? new XmlSymbolTable() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException exc) {
+            throw new IOException(exc.getMessage(), exc);
+        } finally {
+            stream.close();
+        }
+    }
+}
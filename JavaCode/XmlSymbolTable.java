@@ -0,0 +1,238 @@
+package com.ndepend.inspections;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+//
+// Symbol table
+//   Return a canonical String for a range of chars or UTF-8 bytes, without creating a String
+//   when the symbol is already known. Each symbol gets an id, ids are dense from 0.
+//   The table is bounded: once maxSymbols symbols are stored, or for a range longer than
+//   maxLength, a new String is returned and no id is assigned, so hostile input cannot blow it up.
+//   Hashes are the ones of String.hashCode() so all lookup flavors share the same symbols.
+//
+class XmlSymbolTable {
+
+    final static int NO_ID = -1;
+
+    final static int DEFAULT_MAX_SYMBOLS = 4096;
+    final static int DEFAULT_MAX_LENGTH = 256;
+
+    private final int maxSymbols;
+    private final int maxLength;
+
+    private String[] symbols = new String[64];  // By id
+    private int[] hashes = new int[64];         // By id
+    private int[] slots = new int[128];         // Open addressing, id + 1 or 0 for an empty slot
+    private int count;
+
+    private byte[] scratch;                     // Non ASCII bytes to decode
+
+    XmlSymbolTable() {
+        this(DEFAULT_MAX_SYMBOLS, DEFAULT_MAX_LENGTH);
+    }
+
+    XmlSymbolTable(int maxSymbols, int maxLength) {
+        this.maxSymbols = maxSymbols;
+        this.maxLength = maxLength;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    String get(int id) {
+        return symbols[id];
+    }
+
+    // Forget all symbols but keep the allocated capacity
+    void Clear() {
+        Arrays.fill(symbols, 0, count, null);
+        Arrays.fill(slots, 0);
+        count = 0;
+    }
+
+    //
+    // Chars
+    //
+
+    String Intern(CharSequence chars, int start, int end) {
+        int id = Id(chars, start, end);
+        return id != NO_ID ? symbols[id] : chars.subSequence(start, end).toString();
+    }
+
+    String Intern(String str) {
+        int id = Id(str, 0, str.length());
+        return id != NO_ID ? symbols[id] : str;
+    }
+
+    // NO_ID if str is not in the table, str is never added
+    int Find(String str) {
+        int hash = str.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = Mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID || (hashes[id] == hash && symbols[id].equals(str))) {
+                return id;
+            }
+        }
+    }
+
+    int Id(CharSequence chars, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) {
+            return NO_ID;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = slots.length - 1;
+        for (int slot = Mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID) {
+                // When full, the caller builds the String it needs, it is not built twice
+                return count == maxSymbols ? NO_ID : Add(chars.subSequence(start, end).toString(), hash, slot);
+            }
+            String symbol = symbols[id];
+            if (hashes[id] != hash || symbol.length() != length) {
+                continue;
+            }
+            boolean equal = true;
+            for (int i = 0; i < length && equal; i++) {
+                equal = symbol.charAt(i) == chars.charAt(start + i);
+            }
+            if (equal) {
+                return id;
+            }
+        }
+    }
+
+    String Intern(char[] chars, int start, int end) {
+        int id = Id(chars, start, end);
+        return id != NO_ID ? symbols[id] : new String(chars, start, end - start);
+    }
+
+    int Id(char[] chars, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) {
+            return NO_ID;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = slots.length - 1;
+        for (int slot = Mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID) {
+                return count == maxSymbols ? NO_ID : Add(new String(chars, start, length), hash, slot);
+            }
+            String symbol = symbols[id];
+            if (hashes[id] != hash || symbol.length() != length) {
+                continue;
+            }
+            boolean equal = true;
+            for (int i = 0; i < length && equal; i++) {
+                equal = symbol.charAt(i) == chars[start + i];
+            }
+            if (equal) {
+                return id;
+            }
+        }
+    }
+
+    //
+    // UTF-8 bytes
+    //   ASCII ranges are looked up byte by byte, other ranges are decoded first
+    //
+
+    String Intern(ByteBuffer bytes, int start, int end) {
+        int id = Id(bytes, start, end);
+        return id != NO_ID ? symbols[id] : Decode(bytes, start, end);
+    }
+
+    int Id(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) {
+            return NO_ID;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b < 0) {
+                String decoded = Decode(bytes, start, end);
+                return Id(decoded, 0, decoded.length());
+            }
+            hash = 31 * hash + b;
+        }
+        int mask = slots.length - 1;
+        for (int slot = Mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id == NO_ID) {
+                return count == maxSymbols ? NO_ID : Add(Decode(bytes, start, end), hash, slot);
+            }
+            String symbol = symbols[id];
+            if (hashes[id] != hash || symbol.length() != length) {
+                continue;
+            }
+            boolean equal = true;
+            for (int i = 0; i < length && equal; i++) {
+                equal = symbol.charAt(i) == bytes.get(start + i);
+            }
+            if (equal) {
+                return id;
+            }
+        }
+    }
+
+    private String Decode(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 64)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = bytes.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    //
+    // Table
+    //
+
+    // The caller checks that the table is not full
+    private int Add(String symbol, int hash, int slot) {
+        int id = count++;
+        if (id == symbols.length) {
+            symbols = Arrays.copyOf(symbols, 2 * id);
+            hashes = Arrays.copyOf(hashes, 2 * id);
+        }
+        symbols[id] = symbol;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (2 * count > slots.length) {
+            Rehash();
+        }
+        return id;
+    }
+
+    private void Rehash() {
+        slots = new int[2 * slots.length];
+        int mask = slots.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = Mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    // Spread String.hashCode() bits, close names like Id1 Id2 Id3 would collide in low bits otherwise
+    private static int Mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,178 @@
+package com.ndepend.inspections;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+//
+// Text decoder
+//   Compute XmlElement.Content from the raw text between two tags in a single pass:
+//   each line is trimmed, leading and trailing empty lines are removed, lines are joined with \n
+//   and the entities  &gt; &lt; &quot; &apos; &amp; &#NNN; &#xHH;  are expanded.
+//   The text is copied once in a reused buffer and decoded in place, the decoded text is never
+//   longer than the raw text. A text with nothing to trim or expand is returned as a single substring.
+//   An unknown or malformed entity is kept as is.
+//
+class XmlTextDecoder {
+
+    private char[] buffer = new char[0];
+    int entityCount;                // Entities expanded so far, read by the instrumentation
+
+    String Decode(String xmlContent, int start, int end) {
+        if (!NeedsDecoding(xmlContent, start, end)) {
+            return xmlContent.substring(start, end);
+        }
+        int length = end - start;
+        Reserve(length);
+        xmlContent.getChars(start, end, buffer, 0);
+        return DecodeBuffer(length);
+    }
+
+    String Decode(char[] chars, int start, int end) {
+        int length = end - start;
+        Reserve(length);
+        System.arraycopy(chars, start, buffer, 0, length);
+        return DecodeBuffer(length);
+    }
+
+    // UTF-8 bytes, ASCII bytes are widened straight into the buffer
+    String Decode(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        Reserve(length);
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.get(start + i);
+            if (b < 0) {
+                byte[] utf8 = new byte[length];
+                for (int j = 0; j < length; j++) {
+                    utf8[j] = bytes.get(start + j);
+                }
+                String text = new String(utf8, StandardCharsets.UTF_8);
+                return Decode(text, 0, text.length());
+            }
+            buffer[i] = (char) b;
+        }
+        return DecodeBuffer(length);
+    }
+
+    // false if the text has no line to trim and no entity
+    static boolean NeedsDecoding(String xmlContent, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        if (xmlContent.charAt(start) <= ' ' || xmlContent.charAt(end - 1) <= ' ') {
+            return true;
+        }
+        for (int i = start; i < end; i++) {
+            char c = xmlContent.charAt(i);
+            if (c == '&' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void Reserve(int length) {
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, 2 * buffer.length)];
+        }
+    }
+
+    // Decode buffer[0, length) in place, writes never pass reads
+    private String DecodeBuffer(int length) {
+        char[] buf = buffer;
+        int w = 0;
+        int pendingNewLines = -1;   // -1 until a non empty line has been written
+        int i = 0;
+        while (i < length) {
+            // Line [i, lineEnd) ends with \n, \r or \r\n like BufferedReader.readLine()
+            int lineEnd = i;
+            while (lineEnd < length && buf[lineEnd] != '\n' && buf[lineEnd] != '\r') {
+                lineEnd++;
+            }
+            int next = lineEnd;
+            if (next < length) {
+                next += buf[next] == '\r' && next + 1 < length && buf[next + 1] == '\n' ? 2 : 1;
+            }
+
+            // Trim like String.trim()
+            int s = i;
+            int e = lineEnd;
+            while (s < e && buf[s] <= ' ') { s++; }
+            while (e > s && buf[e - 1] <= ' ') { e--; }
+
+            if (s < e) {
+                // Empty lines in between are kept, the ones before the first line are not
+                for (; pendingNewLines > 0; pendingNewLines--) {
+                    buf[w++] = '\n';
+                }
+                w = DecodeLine(buf, s, e, w);
+                pendingNewLines = 0;
+            }
+            if (pendingNewLines >= 0) {
+                pendingNewLines++;
+            }
+            i = next;
+        }
+        return new String(buf, 0, w);
+    }
+
+    private int DecodeLine(char[] buf, int s, int e, int w) {
+        while (s < e) {
+            char c = buf[s];
+            if (c == '&') {
+                int semicolon = s + 1;
+                while (semicolon < e && semicolon - s <= 10 && buf[semicolon] != ';') {
+                    semicolon++;
+                }
+                int decoded = semicolon < e && buf[semicolon] == ';' ? DecodeEntity(buf, s + 1, semicolon) : -1;
+                if (decoded != -1) {
+                    entityCount++;
+                    w += Character.toChars(decoded, buf, w);
+                    s = semicolon + 1;
+                    continue;
+                }
+            }
+            buf[w++] = c;
+            s++;
+        }
+        return w;
+    }
+
+    // Code point of  xyz  in  &xyz;  or -1
+    private static int DecodeEntity(char[] buf, int start, int end) {
+        int length = end - start;
+        if (length >= 2 && buf[start] == '#') {
+            boolean hex = buf[start + 1] == 'x' || buf[start + 1] == 'X';
+            int i = hex ? start + 2 : start + 1;
+            if (i == end) {
+                return -1;
+            }
+            int codePoint = 0;
+            for (; i < end; i++) {
+                int digit = buf[i] < 128 ? Character.digit(buf[i], hex ? 16 : 10) : -1;
+                if (digit == -1) {
+                    return -1;
+                }
+                codePoint = codePoint * (hex ? 16 : 10) + digit;
+                if (codePoint > Character.MAX_CODE_POINT) {
+                    return -1;
+                }
+            }
+            return Character.isSurrogate((char) codePoint) && codePoint <= Character.MAX_VALUE ? -1 : codePoint;
+        }
+        switch (length) {
+            case 2:
+                if (buf[start + 1] != 't') { return -1; }
+                if (buf[start] == 'g') { return '>'; }
+                if (buf[start] == 'l') { return '<'; }
+                return -1;
+            case 3:
+                return buf[start] == 'a' && buf[start + 1] == 'm' && buf[start + 2] == 'p' ? '&' : -1;
+            case 4:
+                if (buf[start] == 'q' && buf[start + 1] == 'u' && buf[start + 2] == 'o' && buf[start + 3] == 't') { return '"'; }
+                if (buf[start] == 'a' && buf[start + 1] == 'p' && buf[start + 2] == 'o' && buf[start + 3] == 's') { return '\''; }
+                return -1;
+            default:
+                return -1;
+        }
+    }
+}
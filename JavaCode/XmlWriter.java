@@ -0,0 +1,434 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+//
+// Writer
+//   Write an XmlElement tree or an InspectionsExport as UTF-8 xml that XmlParsing.Go() reads back to the same
+//   Names, Contents and attribute Values. Chars are escaped and encoded in a single pass straight into a
+//   reused byte buffer, which is written to the channel or stream each time it is full.
+//   Contents are written as text, a CDATA Content is read back the same. Since the parser trims each line
+//   of a text and reads \r as a line break, \r and the blanks that would be trimmed are written as &#N;.
+//   Attribute values are not decoded by the parser, so they are written as is between " or ' quotes,
+//   a value with both " and ' can't be written and fails with an XmlException. A value with a '<', or a '&'
+//   that doesn't start an entity, is read back by the built-in parsers but is not well-formed XML:
+//   XmlParseBackend.STAX and other XML readers reject the document.
+//   The Content of an element with child elements is not written, the parser always reads it as "".
+//   Lone surrogate chars have no UTF-8 encoding and are written as '?', like String.getBytes() does.
+//
+public class XmlWriter {
+
+    final static int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    final static String DECLARATION = "<?xml version=\"1.0\" encoding=\"utf-8\"?>";
+    final static String NEW_LINE = "\r\n";
+
+    private final static int MAX_CHAR_BYTES = 10; // &#1114111;
+
+    private final byte[] buffer;
+    private final int flushLimit;
+    private final ByteBuffer channelBuffer;
+    private int count;
+    private WritableByteChannel channel;         // One of channel and stream is set
+    private OutputStream stream;
+
+    // false to write the elements without line breaks and indentation
+    public boolean indent = true;
+
+    public XmlWriter(WritableByteChannel channel) {
+        this(DEFAULT_BUFFER_SIZE);
+        this.channel = channel;
+    }
+
+    public XmlWriter(OutputStream stream) {
+        this(DEFAULT_BUFFER_SIZE);
+        this.stream = stream;
+    }
+
+    public XmlWriter(OutputStream stream, int bufferSize) {
+        this(bufferSize);
+        this.stream = stream;
+    }
+
+    private XmlWriter(int bufferSize) {
+        buffer = new byte[Math.max(bufferSize, 64)];
+        flushLimit = buffer.length - MAX_CHAR_BYTES;
+        channelBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    // Write the next documents to another output with the same buffer, the previous output must have been flushed
+    public void Reset(WritableByteChannel channel) {
+        this.channel = channel;
+        this.stream = null;
+        count = 0;
+    }
+
+    public void Reset(OutputStream stream) {
+        this.channel = null;
+        this.stream = stream;
+        count = 0;
+    }
+
+    public static void Go(XmlElement root, Path xmlFile) throws XmlException {
+        try (FileChannel fileChannel = FileChannel.open(xmlFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            XmlWriter writer = new XmlWriter(fileChannel);
+            writer.Write(root);
+            writer.Flush();
+        } catch (IOException exc) {
+            throw new XmlException("Cannot write " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    public static void Go(InspectionsExport inspectionsExport, Path xmlFile) throws XmlException {
+        try (FileChannel fileChannel = FileChannel.open(xmlFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            XmlWriter writer = new XmlWriter(fileChannel);
+            writer.Write(inspectionsExport);
+            writer.Flush();
+        } catch (IOException exc) {
+            throw new XmlException("Cannot write " + xmlFile + ": " + exc.getMessage(), exc);
+        }
+    }
+
+    // Write the bytes still in the buffer, the channel or stream is not closed
+    public void Flush() throws IOException {
+        FlushBuffer();
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    //
+    // XmlElement
+    //
+
+    // The xml declaration then the element, whose depth is 0
+    public void Write(XmlElement root) throws IOException, XmlException {
+        WriteAscii(DECLARATION);
+        WriteElement(root, 0);
+    }
+
+    // Child elements are written from an explicit stack, so deep trees don't overflow the call stack
+    // An element whose Elements is null is written  <xyz/>  like the parser reads it
+    public void WriteElement(XmlElement element, int depth) throws IOException, XmlException {
+        XmlElement[] parents = new XmlElement[16];   // Open elements with child elements
+        int[] childIndexes = new int[16];            // Index of their next child to write
+        int parentCount = 0;
+        XmlElement current = element;
+        while (true) {
+            NewLine(depth + parentCount);
+            WriteStartTag(current.Name, current.Attributes, current.Elements == null);
+            if (current.Elements != null && current.Elements.isEmpty()) {
+                WriteContent(current.Content == null ? "" : current.Content);
+                WriteEndTag(current.Name);
+            } else if (current.Elements != null) {
+                if (parentCount == parents.length) {
+                    parents = Arrays.copyOf(parents, 2 * parentCount);
+                    childIndexes = Arrays.copyOf(childIndexes, 2 * parentCount);
+                }
+                parents[parentCount] = current;
+                childIndexes[parentCount++] = 0;
+            }
+
+            // Next element is the next child of the deepest open element with children left
+            current = null;
+            while (parentCount > 0) {
+                XmlElement parent = parents[parentCount - 1];
+                int childIndex = childIndexes[parentCount - 1];
+                if (childIndex < parent.Elements.size()) {
+                    childIndexes[parentCount - 1]++;
+                    current = parent.Elements.get(childIndex);
+                    break;
+                }
+                parents[--parentCount] = null;
+                NewLine(depth + parentCount);
+                WriteEndTag(parent.Name);
+            }
+            if (current == null) {
+                return;
+            }
+        }
+    }
+
+    private void WriteStartTag(String name, List<XmlAttribute> attributes, boolean isOpenClose) throws IOException, XmlException {
+        WriteByte('<');
+        WriteName(name);
+        if (attributes != null) {
+            for (XmlAttribute attribute : attributes) {
+                WriteAttribute(attribute.Name, attribute.Value);
+            }
+        }
+        if (isOpenClose) {
+            WriteByte('/');
+        }
+        WriteByte('>');
+    }
+
+    private void WriteEndTag(String name) throws IOException {
+        WriteByte('<');
+        WriteByte('/');
+        WriteName(name);
+        WriteByte('>');
+    }
+
+    // A null value is skipped, like a missing attribute
+    private void WriteAttribute(String name, String value) throws IOException, XmlException {
+        if (value == null) {
+            return;
+        }
+        char quote = '"';
+        if (value.indexOf('"') != -1) {
+            if (value.indexOf('\'') != -1) {
+                throw new XmlException("Cannot write attribute " + name + ", its value contains both \" and '");
+            }
+            quote = '\'';
+        }
+        WriteByte(' ');
+        WriteName(name);
+        WriteByte('=');
+        WriteByte(quote);
+        WriteName(value);
+        WriteByte(quote);
+    }
+
+    private void NewLine(int depth) throws IOException {
+        if (!indent) {
+            return;
+        }
+        WriteAscii(NEW_LINE);
+        for (int i = 0; i < depth; i++) {
+            WriteByte(' ');
+            WriteByte(' ');
+        }
+    }
+
+    //
+    // InspectionsExport
+    //   Same layout as the NDepend exports, the model read back by FillInspectionsModel is the same.
+    //   StartInspectionsExport(), WriteInspection() and EndInspectionsExport() stream a merged or filtered
+    //   export without building it.
+    //
+
+    public void Write(InspectionsExport inspectionsExport) throws IOException, XmlException {
+        StartInspectionsExport(inspectionsExport.inspectionTypes);
+        for (InspectionInstance inspectionInstance : inspectionsExport.inspections) {
+            WriteInspection(inspectionInstance);
+        }
+        EndInspectionsExport();
+    }
+
+    public void StartInspectionsExport(List<InspectionTypeInfo> inspectionTypes) throws IOException, XmlException {
+        WriteAscii(DECLARATION);
+        NewLine(0);
+        WriteStartTag(FillInspectionsModel.TAG_InspectionsExport, null, false);
+        NewLine(1);
+        WriteStartTag(FillInspectionsModel.TAG_InspectionTypes, null, false);
+        for (InspectionTypeInfo inspectionTypeInfo : inspectionTypes) {
+            NewLine(2);
+            WriteByte('<');
+            WriteName(FillInspectionsModel.TAG_InspectionTypeInfo);
+            WriteAttribute(FillInspectionsModel.TAG_Id, inspectionTypeInfo.id);
+            WriteAttribute(FillInspectionsModel.TAG_Name, inspectionTypeInfo.name);
+            WriteAttribute(FillInspectionsModel.TAG_Category, inspectionTypeInfo.category);
+            WriteByte('>');
+            if (inspectionTypeInfo.description != null) {
+                NewLine(3);
+                WriteTextElement(FillInspectionsModel.TAG_Description, inspectionTypeInfo.description);
+            }
+            NewLine(2);
+            WriteEndTag(FillInspectionsModel.TAG_InspectionTypeInfo);
+        }
+        NewLine(1);
+        WriteEndTag(FillInspectionsModel.TAG_InspectionTypes);
+        NewLine(1);
+        WriteStartTag(FillInspectionsModel.TAG_Inspections, null, false);
+    }
+
+    public void WriteInspection(InspectionInstance inspectionInstance) throws IOException, XmlException {
+        NewLine(2);
+        WriteByte('<');
+        WriteName(FillInspectionsModel.TAG_InspectionInstance);
+        WriteAttribute(FillInspectionsModel.TAG_Id, inspectionInstance.id);
+        WriteByte(' ');
+        WriteName(FillInspectionsModel.TAG_Line);
+        WriteByte('=');
+        WriteByte('"');
+        WriteAscii(Integer.toString(inspectionInstance.line));
+        WriteByte('"');
+        WriteAttribute(FillInspectionsModel.TAG_Severity, inspectionInstance.severity);
+        WriteByte('>');
+        if (inspectionInstance.message != null) {
+            NewLine(3);
+            WriteTextElement(FillInspectionsModel.TAG_Message, inspectionInstance.message);
+        }
+        if (inspectionInstance.filePath != null) {
+            NewLine(3);
+            WriteTextElement(FillInspectionsModel.TAG_FilePath, inspectionInstance.filePath);
+        }
+        NewLine(2);
+        WriteEndTag(FillInspectionsModel.TAG_InspectionInstance);
+    }
+
+    public void EndInspectionsExport() throws IOException {
+        NewLine(1);
+        WriteEndTag(FillInspectionsModel.TAG_Inspections);
+        NewLine(0);
+        WriteEndTag(FillInspectionsModel.TAG_InspectionsExport);
+        WriteAscii(NEW_LINE);
+    }
+
+    private void WriteTextElement(String name, String content) throws IOException {
+        WriteByte('<');
+        WriteName(name);
+        WriteByte('>');
+        WriteContent(content);
+        WriteEndTag(name);
+    }
+
+    //
+    // Chars
+    //
+
+    // Element content, see XmlTextDecoder for the trim and entity rules it must survive
+    private void WriteContent(String content) throws IOException {
+        int length = content.length();
+        // Line breaks before the first line and after the last one would be dropped when read
+        int first = 0;
+        while (first < length && content.charAt(first) == '\n') {
+            first++;
+        }
+        int last = length - 1;
+        while (last >= first && content.charAt(last) == '\n') {
+            last--;
+        }
+
+        boolean lineStart = true;   // Nothing written yet on the current line of the output
+        byte[] buf = buffer;
+        for (int i = 0; i < length; i++) {
+            if (count > flushLimit) {
+                FlushBuffer();
+            }
+            char c = content.charAt(i);
+            if (c > ' ' && c < 0x80 && c != '&' && c != '<' && c != '>') {
+                buf[count++] = (byte) c;
+                lineStart = false;
+                continue;
+            }
+            switch (c) {
+                case '&': WriteAscii("&amp;"); break;
+                case '<': WriteAscii("&lt;"); break;
+                case '>': WriteAscii("&gt;"); break;
+                case '\n':
+                    if (i < first || i > last) {
+                        WriteCharReference(c);
+                        lineStart = false;
+                        continue;
+                    }
+                    buf[count++] = '\n';
+                    lineStart = true;
+                    continue;
+                case ' ':
+                case '\t':
+                    // Blanks at both ends of a line are trimmed when read
+                    if (lineStart || i + 1 == length || content.charAt(i + 1) == '\n') {
+                        WriteCharReference(c);
+                    } else {
+                        buf[count++] = (byte) c;
+                    }
+                    break;
+                default:
+                    if (c < ' ') {
+                        WriteCharReference(c); // \r would be read as a line break
+                    } else {
+                        i = WriteUtf8(content, i, c);
+                    }
+                    break;
+            }
+            lineStart = false;
+        }
+    }
+
+    // Names and attribute values, only encoded
+    private void WriteName(String str) throws IOException {
+        byte[] buf = buffer;
+        for (int i = 0; i < str.length(); i++) {
+            if (count > flushLimit) {
+                FlushBuffer();
+            }
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else {
+                i = WriteUtf8(str, i, c);
+            }
+        }
+    }
+
+    // c at index i is not ASCII, return the index of its last char
+    private int WriteUtf8(String str, int i, char c) {
+        byte[] buf = buffer;
+        if (c < 0x800) {
+            buf[count++] = (byte) (0xC0 | (c >> 6));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+            return i;
+        }
+        if (!Character.isSurrogate(c)) {
+            buf[count++] = (byte) (0xE0 | (c >> 12));
+            buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+            return i;
+        }
+        if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, str.charAt(i + 1));
+            buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            return i + 1;
+        }
+        buf[count++] = '?';
+        return i;
+    }
+
+    private void WriteCharReference(char c) {
+        byte[] buf = buffer;
+        buf[count++] = '&';
+        buf[count++] = '#';
+        if (c >= 10) {
+            buf[count++] = (byte) ('0' + c / 10);
+        }
+        buf[count++] = (byte) ('0' + c % 10);
+        buf[count++] = ';';
+    }
+
+    private void WriteAscii(String str) throws IOException {
+        for (int i = 0; i < str.length(); i++) {
+            WriteByte(str.charAt(i));
+        }
+    }
+
+    private void WriteByte(char c) throws IOException {
+        if (count == buffer.length) {
+            FlushBuffer();
+        }
+        buffer[count++] = (byte) c;
+    }
+
+    private void FlushBuffer() throws IOException {
+        if (channel != null) {
+            channelBuffer.clear().limit(count);
+            while (channelBuffer.hasRemaining()) {
+                channel.write(channelBuffer);
+            }
+        } else {
+            stream.write(buffer, 0, count);
+        }
+        count = 0;
+    }
+}
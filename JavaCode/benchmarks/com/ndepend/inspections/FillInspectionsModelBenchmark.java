@@ -0,0 +1,64 @@
+package com.ndepend.inspections;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Model benchmarks
+//   Filling the model from a DOM already built, and the whole parse + fill with each entry point
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillInspectionsModelBenchmark {
+
+    @Param({ "64KB", "4MB" })
+    public String size;
+
+    private String xmlContent;
+    private XmlElement root;
+
+    @Setup(Level.Trial)
+    public void Setup() throws XmlException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        xmlContent = generator.Generate();
+        root = XmlParsing.Go(xmlContent);
+    }
+
+    @Benchmark
+    public InspectionsExport FillFromDom() throws ModelException {
+        return FillInspectionsModel.Go(root);
+    }
+
+    @Benchmark
+    public InspectionsExport ParseAndFill() throws XmlException, ModelException {
+        return FillInspectionsModel.Go(XmlParsing.Go(xmlContent));
+    }
+
+    @Benchmark
+    public InspectionsExport BindFromPullParser() throws XmlException, ModelException {
+        return FillInspectionsModel.Go(new XmlReaderPullParser(new StringReader(xmlContent)));
+    }
+
+    @Benchmark
+    public InspectionsExport ParseAndFillParallel() throws XmlException, ModelException {
+        return FillInspectionsModel.GoParallel(xmlContent);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Aggregation benchmarks
+//   Counts per Severity, type Id and FilePath of a generated export file: streamed by InspectionsAggregator
+//   against filling the model and grouping the instances in HashMap<String, Integer>.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InspectionsAggregatorBenchmark {
+
+    @Param({ "4MB" })
+    public String size;
+
+    private Path xmlFile;
+
+    @Setup(Level.Trial)
+    public void Setup() throws IOException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        xmlFile = Files.createTempFile("InspectionsExport", ".xml");
+        generator.Write(xmlFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() throws IOException {
+        Files.deleteIfExists(xmlFile);
+    }
+
+    @Benchmark
+    public InspectionsSummary Aggregate() throws XmlException, ModelException {
+        return InspectionsAggregator.Go(xmlFile);
+    }
+
+    @Benchmark
+    public Object FillAndGroup() throws XmlException, ModelException, IOException {
+        InspectionsExport export;
+        try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+            export = FillInspectionsModel.Go(parser);
+        }
+        HashMap<String, Integer> bySeverity = new HashMap<>();
+        HashMap<String, Integer> byTypeId = new HashMap<>();
+        HashMap<String, Integer> byFilePath = new HashMap<>();
+        for (InspectionInstance inspection : export.inspections) {
+            bySeverity.merge(inspection.severity, 1, Integer::sum);
+            byTypeId.merge(inspection.id, 1, Integer::sum);
+            byFilePath.merge(inspection.filePath, 1, Integer::sum);
+        }
+        return new Object[] { bySeverity, byTypeId, byFilePath };
+    }
+}
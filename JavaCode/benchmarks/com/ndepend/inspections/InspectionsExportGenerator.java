@@ -0,0 +1,184 @@
+package com.ndepend.inspections;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+//
+// Synthetic export generator
+//   Write an InspectionsExport document that FillInspectionsModel accepts.
+//   The output only depends on the settings below, the same seed gives the same bytes.
+//   Usage from the command line:  InspectionsExportGenerator <file> <size like 64KB 4MB 1GB> [seed]
+//
+class InspectionsExportGenerator {
+
+    public long sizeBytes = 1024 * 1024;  // Approximate size of the document, in UTF-8 bytes
+    public int nestingDepth = 0;          // Depth of the  <Detail>  elements nested in each InspectionTypeInfo
+    public double entityDensity = 0.05;   // Share of message words written as an entity
+    public double cdataShare = 0.1;       // Share of messages written as a CDATA section
+    public int attributeCount = 0;        // Extra attributes on each  <Message>, ignored by the model
+    public int typeCount = 50;            // Number of InspectionTypeInfo
+    public long seed = 42;
+
+    private final static String[] WORDS = {
+        "Type", "Method", "Field", "Namespace", "Assembly", "should", "be", "sealed", "static", "avoid",
+        "too", "big", "complex", "unused", "public", "internal", "namespace", "dependency", "cycle", "name" };
+
+    private final static String[] ENTITIES = { "&lt;", "&gt;", "&amp;", "&quot;", "&apos;", "&#10;", "&#x41;" };
+
+    private final static String[] SEVERITIES = { "ERROR", "WARNING", "WEAK WARNING", "INFO" };
+
+    // Parse sizes like  512, 64KB, 4MB or 1GB
+    static long ParseSize(String size) {
+        String upper = size.trim().toUpperCase();
+        long unit = 1;
+        if (upper.endsWith("KB")) { unit = 1024; }
+        else if (upper.endsWith("MB")) { unit = 1024 * 1024; }
+        else if (upper.endsWith("GB")) { unit = 1024 * 1024 * 1024; }
+        String digits = unit == 1 ? upper : upper.substring(0, upper.length() - 2);
+        return Long.parseLong(digits.trim()) * unit;
+    }
+
+    String Generate() {
+        StringWriter writer = new StringWriter((int) Math.min(sizeBytes + 4096, Integer.MAX_VALUE - 8));
+        try {
+            Write(writer);
+        } catch (IOException exc) {
+            throw new IllegalStateException(exc); // Not thrown by StringWriter
+        }
+        return writer.toString();
+    }
+
+    void Write(Path xmlFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(xmlFile, StandardCharsets.UTF_8)) {
+            Write(writer);
+        }
+    }
+
+    void Write(Writer writer) throws IOException {
+        Random random = new Random(seed);
+        CountingWriter out = new CountingWriter(writer);
+
+        out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n");
+        out.write("<InspectionsExport>\r\n  <InspectionTypes>\r\n");
+        for (int i = 0; i < typeCount; i++) {
+            out.write("    <InspectionTypeInfo Id=\"ND" + (1000 + i) + "\" Name=\"" + Words(random, 4) +
+                      "\" Category=\"Category " + (i % 7) + "\">\r\n");
+            out.write("      <Description>");
+            WriteText(out, random, 12);
+            out.write("</Description>\r\n");
+            for (int depth = 0; depth < nestingDepth; depth++) {
+                out.write("<Detail Level=\"" + depth + "\">");
+            }
+            for (int depth = 0; depth < nestingDepth; depth++) {
+                out.write("</Detail>");
+            }
+            if (nestingDepth > 0) {
+                out.write("\r\n");
+            }
+            out.write("    </InspectionTypeInfo>\r\n");
+        }
+        out.write("  </InspectionTypes>\r\n  <Inspections>\r\n");
+
+        final String end = "  </Inspections>\r\n</InspectionsExport>\r\n";
+        for (int i = 0; out.count + end.length() < sizeBytes; i++) {
+            out.write("    <InspectionInstance Id=\"ND" + (1000 + random.nextInt(Math.max(typeCount, 1))) +
+                      "\" Line=\"" + (1 + random.nextInt(2000)) +
+                      "\" Severity=\"" + SEVERITIES[random.nextInt(SEVERITIES.length)] + "\">\r\n");
+            out.write("      <Message");
+            for (int a = 0; a < attributeCount; a++) {
+                out.write(" Attr" + a + "=\"Value " + random.nextInt(100) + "\"");
+            }
+            out.write(">");
+            if (random.nextDouble() < cdataShare) {
+                out.write("<![CDATA[" + Words(random, 10) + " <raw> & \"text\"]]>");
+            } else {
+                WriteText(out, random, 10);
+            }
+            out.write("</Message>\r\n");
+            out.write("      <FilePath>C:\\Code\\Project" + (i % 13) + "\\src\\Folder" + (i % 97) + "\\File" + (i % 991) + ".cs</FilePath>\r\n");
+            out.write("    </InspectionInstance>\r\n");
+        }
+        out.write(end);
+        out.flush();
+    }
+
+    private void WriteText(Writer out, Random random, int wordCount) throws IOException {
+        for (int w = 0; w < wordCount; w++) {
+            if (w > 0) {
+                out.write(' ');
+            }
+            out.write(random.nextDouble() < entityDensity
+                ? ENTITIES[random.nextInt(ENTITIES.length)]
+                : WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+
+    private static String Words(Random random, int wordCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < wordCount; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // Generated content is ASCII, so the char count is the UTF-8 byte count
+    private static class CountingWriter extends Writer {
+        private final Writer writer;
+        long count;
+
+        CountingWriter(Writer writer) {
+            this.writer = writer instanceof BufferedWriter || writer instanceof StringWriter ? writer : new BufferedWriter(writer);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            writer.write(chars, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String str) throws IOException {
+            writer.write(str);
+            count += str.length();
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            writer.write(c);
+            count++;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: InspectionsExportGenerator <file> <size like 64KB 4MB 1GB> [seed]");
+            return;
+        }
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = ParseSize(args[1]);
+        if (args.length > 2) {
+            generator.seed = Long.parseLong(args[2]);
+        }
+        generator.Write(Paths.get(args[0]));
+    }
+}
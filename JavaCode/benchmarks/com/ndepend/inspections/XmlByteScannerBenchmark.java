@@ -0,0 +1,117 @@
+package com.ndepend.inspections;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Byte scanner benchmarks
+//   SWAR kernels of XmlByteScanner against their scalar versions, over a generated export in a direct buffer
+//   like the memory-mapped file of XmlMappedPullParser. Each operation scans the whole document.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlByteScannerBenchmark {
+
+    @Param({ "4MB" })
+    public String size;
+
+    @Param({ "0" })
+    public int attributeCount;
+
+    private ByteBuffer bytes;
+    private int limit;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        generator.attributeCount = attributeCount;
+        byte[] content = generator.Generate().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length);
+        direct.put(content).flip();
+        bytes = XmlByteScanner.Prepare(direct);
+        limit = content.length;
+    }
+
+    @Benchmark
+    public int IndexOfOpenCharSwar() {
+        int count = 0;
+        for (int i = XmlByteScanner.IndexOf(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOf(bytes, (byte) '<', i + 1, limit)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int IndexOfOpenCharScalar() {
+        int count = 0;
+        for (int i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', i + 1, limit)) {
+            count++;
+        }
+        return count;
+    }
+
+    // Tag end of every tag, like the pull parser does for each open tag
+    @Benchmark
+    public int TagEndsSwar() {
+        int sum = 0;
+        for (int i = XmlByteScanner.IndexOf(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOf(bytes, (byte) '<', i + 1, limit)) {
+            sum += XmlByteScanner.IndexOfTagEndNotInAttribute(bytes, i + 1, limit);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int TagEndsScalar() {
+        int sum = 0;
+        for (int i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', i + 1, limit)) {
+            sum += XmlByteScanner.IndexOfTagEndNotInAttributeScalar(bytes, i + 1, limit);
+        }
+        return sum;
+    }
+
+    // Blank test of every text between two tags
+    @Benchmark
+    public int BlankTextsSwar() {
+        int count = 0;
+        int start = 0;
+        for (int i = XmlByteScanner.IndexOf(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOf(bytes, (byte) '<', i + 1, limit)) {
+            if (XmlByteScanner.IsBlank(bytes, start, i)) {
+                count++;
+            }
+            start = XmlByteScanner.IndexOf(bytes, (byte) '>', i, limit) + 1;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int BlankTextsScalar() {
+        int count = 0;
+        int start = 0;
+        for (int i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', 0, limit); i != -1; i = XmlByteScanner.IndexOfScalar(bytes, (byte) '<', i + 1, limit)) {
+            if (XmlByteScanner.IsBlankScalar(bytes, start, i)) {
+                count++;
+            }
+            start = XmlByteScanner.IndexOfScalar(bytes, (byte) '>', i, limit) + 1;
+        }
+        return count;
+    }
+}
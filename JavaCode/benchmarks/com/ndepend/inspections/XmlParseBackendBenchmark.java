@@ -0,0 +1,74 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Parse backend benchmarks
+//   The built-in and the StAX backends on the same generated export file, building the XmlElement tree
+//   or filling the model. XmlParseBackendPolicy.staxMinBytes should follow these numbers.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParseBackendBenchmark {
+
+    @Param({ "1MB", "16MB", "128MB" })
+    public String size;
+
+    private Path xmlFile;
+    private final XmlParseBackendPolicy builtIn = XmlParseBackendPolicy.Always(XmlParseBackend.BUILT_IN);
+    private final XmlParseBackendPolicy stax = XmlParseBackendPolicy.Always(XmlParseBackend.STAX);
+
+    @Setup(Level.Trial)
+    public void Setup() throws IOException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        xmlFile = Files.createTempFile("InspectionsExport", ".xml");
+        generator.Write(xmlFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() throws IOException {
+        Files.deleteIfExists(xmlFile);
+    }
+
+    @Benchmark
+    public XmlElement BuiltInGo() throws XmlException {
+        return builtIn.Go(xmlFile);
+    }
+
+    @Benchmark
+    public XmlElement StaxGo() throws XmlException {
+        return stax.Go(xmlFile);
+    }
+
+    @Benchmark
+    public InspectionsExport BuiltInGoInspections() throws XmlException, ModelException {
+        return builtIn.GoInspections(xmlFile);
+    }
+
+    @Benchmark
+    public InspectionsExport StaxGoInspections() throws XmlException, ModelException {
+        return stax.GoInspections(xmlFile);
+    }
+}
@@ -0,0 +1,133 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Parsing benchmarks
+//   Throughput of each way to parse the same generated export.
+//   Run with  -prof gc  to get the bytes allocated per operation (gc.alloc.rate.norm).
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParsingBenchmark {
+
+    @Param({ "64KB", "4MB" })
+    public String size;
+
+    @Param({ "0.05" })
+    public double entityDensity;
+
+    @Param({ "0.1" })
+    public double cdataShare;
+
+    @Param({ "0" })
+    public int nestingDepth;
+
+    @Param({ "0" })
+    public int attributeCount;
+
+    private String xmlContent;
+    private Path xmlFile;
+    private Path gzipFile;
+    private final XmlParser parser = new XmlParser();
+
+    @Setup(Level.Trial)
+    public void Setup() throws IOException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        generator.entityDensity = entityDensity;
+        generator.cdataShare = cdataShare;
+        generator.nestingDepth = nestingDepth;
+        generator.attributeCount = attributeCount;
+        xmlContent = generator.Generate();
+        xmlFile = Files.createTempFile("InspectionsExport", ".xml");
+        Files.write(xmlFile, xmlContent.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        gzipFile = Files.createTempFile("InspectionsExport", ".xml.gz");
+        try (OutputStream stream = new GZIPOutputStream(Files.newOutputStream(gzipFile))) {
+            Files.copy(xmlFile, stream);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() throws IOException {
+        Files.deleteIfExists(xmlFile);
+        Files.deleteIfExists(gzipFile);
+    }
+
+    @Benchmark
+    public XmlElement XmlParsingGo() throws XmlException {
+        return XmlParsing.Go(xmlContent);
+    }
+
+    @Benchmark
+    public XmlElement XmlParsingGoInternValues() throws XmlException {
+        return XmlParsing.Go(xmlContent, true);
+    }
+
+    @Benchmark
+    public XmlDocument XmlParsingGoDocument() throws XmlException {
+        return XmlParsing.GoDocument(xmlContent);
+    }
+
+    @Benchmark
+    public XmlElement XmlParsingGoLazy() throws XmlException {
+        return XmlParsing.GoLazy(xmlContent).ToXmlElement();
+    }
+
+    @Benchmark
+    public XmlElement XmlParsingGoMappedFile() throws XmlException {
+        return XmlParsing.Go(xmlFile);
+    }
+
+    // Inflated on a producer thread while parsed
+    @Benchmark
+    public XmlElement XmlParsingGoGzipFile() throws XmlException {
+        return XmlParsing.Go(gzipFile);
+    }
+
+    @Benchmark
+    public XmlElement PullTreeBuilderReader() throws XmlException {
+        return PullTreeBuilder.Go(new XmlReaderPullParser(new StringReader(xmlContent)));
+    }
+
+    // Same parses with the scanners and buffers of one XmlParser kept between operations
+
+    @Benchmark
+    public XmlElement XmlParserGo() throws XmlException {
+        return parser.Go(xmlContent);
+    }
+
+    @Benchmark
+    public XmlElement XmlParserGoMappedFile() throws XmlException {
+        return parser.Go(xmlFile);
+    }
+
+    @Benchmark
+    public XmlElement XmlParserGoReader() throws XmlException {
+        return parser.Go(new StringReader(xmlContent));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Path query benchmarks
+//   Selective queries over a generated export file against parsing the whole file.
+//   InspectionTypes is a small section at the start, the Severity predicate selects some of the inspections.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlPathQueryBenchmark {
+
+    @Param({ "4MB" })
+    public String size;
+
+    private Path xmlFile;
+    private XmlPathQuery typesQuery;
+    private XmlPathQuery severityQuery;
+
+    @Setup(Level.Trial)
+    public void Setup() throws IOException, XmlException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        xmlFile = Files.createTempFile("InspectionsExport", ".xml");
+        Files.write(xmlFile, generator.Generate().getBytes(StandardCharsets.UTF_8));
+        typesQuery = XmlPathQuery.Compile("InspectionsExport/InspectionTypes");
+        severityQuery = XmlPathQuery.Compile("InspectionsExport/Inspections/InspectionInstance[@Severity='ERROR']");
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() throws IOException {
+        Files.deleteIfExists(xmlFile);
+    }
+
+    @Benchmark
+    public XmlElement XmlParsingGoPath() throws XmlException {
+        return XmlParsing.Go(xmlFile);
+    }
+
+    @Benchmark
+    public List<XmlElement> QueryInspectionTypes() throws XmlException {
+        return typesQuery.Go(xmlFile);
+    }
+
+    @Benchmark
+    public List<XmlElement> QuerySeverity() throws XmlException {
+        return severityQuery.Go(xmlFile);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ndepend.inspections;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//
+// Writer benchmarks
+//   Write a generated export, parsed once, to a stream that drops the bytes, so only escaping and encoding are measured.
+//   Divide the generated size by the operation time to get the throughput in bytes per second.
+//
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlWriterBenchmark {
+
+    @Param({ "4MB" })
+    public String size;
+
+    @Param({ "0.05" })
+    public double entityDensity;
+
+    private XmlElement root;
+    private InspectionsExport inspectionsExport;
+    private XmlWriter writer;
+
+    @Setup(Level.Trial)
+    public void Setup() throws XmlException, ModelException {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = InspectionsExportGenerator.ParseSize(size);
+        generator.entityDensity = entityDensity;
+        root = XmlParsing.Go(generator.Generate());
+        inspectionsExport = FillInspectionsModel.Go(root);
+        writer = new XmlWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    @Benchmark
+    public void WriteXmlElement() throws IOException, XmlException {
+        writer.Write(root);
+        writer.Flush();
+    }
+
+    @Benchmark
+    public void WriteInspectionsExport() throws IOException, XmlException {
+        writer.Write(inspectionsExport);
+        writer.Flush();
+    }
+}
@@ -0,0 +1,8 @@
+package jetbrains.buildServer.agent.inspections;
+
+//
+// Compile time stub of the TeamCity agent API, the TeamCity jars provide the real enum at runtime
+//
+public enum InspectionAttributesId {
+    SEVERITY
+}
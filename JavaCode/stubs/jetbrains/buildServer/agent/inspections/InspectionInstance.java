@@ -0,0 +1,32 @@
+package jetbrains.buildServer.agent.inspections;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//
+// Compile time stub of the TeamCity agent API, the TeamCity jars provide the real class at runtime
+//
+public class InspectionInstance {
+    private String inspectionId;
+    private String message;
+    private String filePath;
+    private int line;
+    private final Map<String, List<String>> attributes = new LinkedHashMap<>();
+
+    public String getInspectionId() { return inspectionId; }
+    public void setInspectionId(String inspectionId) { this.inspectionId = inspectionId; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
+
+    public Map<String, List<String>> getAttributes() { return Collections.unmodifiableMap(attributes); }
+    public void addAttribute(String name, List<String> values) { attributes.put(name, values); }
+}
@@ -0,0 +1,23 @@
+package jetbrains.buildServer.agent.inspections;
+
+//
+// Compile time stub of the TeamCity agent API, the TeamCity jars provide the real class at runtime
+//
+public class InspectionTypeInfo {
+    private String id;
+    private String name;
+    private String category;
+    private String description;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
@@ -0,0 +1,110 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Model fill tests
+//   Binding the parser events must give the model of FillInspectionsModel.Go(XmlElement), or the same
+//   ModelException message, for any well formed document
+//
+public class Test_FillInspectionsModel {
+
+    private final static String TYPE = "<InspectionTypeInfo Id=\"R\" Name=\"Rule\" Category=\"C\"><Description>d</Description></InspectionTypeInfo>";
+    private final static String INSTANCE = "<InspectionInstance Id=\"R\" Line=\"7\" Severity=\"WARN\"><Message>m</Message><FilePath>/F.cs</FilePath></InspectionInstance>";
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        AssertSameResult(new String(Files.readAllBytes(Paths.get("..", "SimpleXmlParserTests", fileName)), StandardCharsets.UTF_8));
+    }
+
+
+    // An element with child elements has the "" content, an empty element the null content
+    @Test
+    public void Test_ChildElementsInContent() throws Exception {
+        InspectionsExport inspectionsExport = AssertSameResult(Document(
+            TYPE.replace("<Description>d</Description>", "<Description><p>d</p></Description>"),
+            INSTANCE.replace("<Message>m</Message>", "<Message><b>m</b></Message>") +
+            INSTANCE.replace("<Message>m</Message>", "<Message>a<b/>c</Message>") +
+            INSTANCE.replace("<Message>m</Message>", "<Message>a<b><c>deep</c></b>c</Message>") +
+            INSTANCE.replace("<Message>m</Message>", "<Message/>") +
+            INSTANCE.replace("<FilePath>/F.cs</FilePath>", "<FilePath><x/></FilePath>")));
+        assertEquals("", inspectionsExport.inspectionTypes.get(0).description);
+        assertEquals("", inspectionsExport.inspections.get(0).message);
+        assertEquals("", inspectionsExport.inspections.get(1).message);
+        assertEquals("", inspectionsExport.inspections.get(2).message);
+        assertNull(inspectionsExport.inspections.get(3).message);
+        assertEquals("", inspectionsExport.inspections.get(4).filePath);
+    }
+
+
+    // Text between elements is dropped
+    @Test
+    public void Test_MixedContent() throws Exception {
+        AssertSameResult("<?xml version=\"1.0\"?><InspectionsExport>text<InspectionTypes>a" + TYPE + "b</InspectionTypes>c" +
+                         "<Inspections>d" + INSTANCE.replace("<Message>", "e<Message>") + "f</Inspections>g</InspectionsExport>");
+        AssertSameResult(Document(TYPE.replace("<Description>", "x<Description>"), INSTANCE));
+    }
+
+
+    @Test
+    public void Test_WrongElement() throws Exception {
+        AssertModelException("<?xml version=\"1.0\"?><Other/>");
+        AssertModelException("<?xml version=\"1.0\"?><Other><Inspections/></Other>");
+        AssertModelException(Document(TYPE, INSTANCE).replace("<Inspections>", "<Inspections2>").replace("</Inspections>", "</Inspections2>"));
+        AssertModelException(Document(TYPE.replace("InspectionTypeInfo", "Type"), INSTANCE));
+        AssertModelException(Document(TYPE, INSTANCE + INSTANCE.replace("InspectionInstance", "Instance")));
+        AssertModelException(Document(TYPE.replace("Description", "Text"), INSTANCE));
+        AssertModelException(Document(TYPE, INSTANCE.replace("FilePath", "Path")));
+        AssertModelException(Document(TYPE, INSTANCE.replace("<Message>m</Message>", "<Message>m</Message><Other/>")));
+    }
+
+
+    @Test
+    public void Test_WrongAttribute() throws Exception {
+        AssertModelException(Document(TYPE.replace("Category=", "Kind="), INSTANCE));
+        AssertModelException(Document(TYPE, INSTANCE.replace("Severity=", "Level=")));
+        AssertModelException(Document(TYPE, INSTANCE.replace("Line=\"7\"", "Line=\"seven\"")));
+        AssertModelException(Document(TYPE, INSTANCE.replace("Line=\"7\"", "Line=\"\"")));
+        // The child element is checked before the attributes
+        AssertModelException(Document(TYPE, INSTANCE.replace("Severity=", "Level=").replace("FilePath", "Path")));
+        // Only the first child of a type is read
+        AssertSameResult(Document(TYPE.replace("</Description>", "</Description><Other/>"), INSTANCE));
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private static String Document(String types, String instances) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<InspectionsExport>\r\n  <InspectionTypes>" + types + "</InspectionTypes>\r\n" +
+               "  <Inspections>" + instances + "</Inspections>\r\n</InspectionsExport>";
+    }
+
+    private static InspectionsExport AssertSameResult(String xml) throws Exception {
+        InspectionsExport expected = FillInspectionsModel.Go(XmlParsing.Go(xml));
+        InspectionsExport bound = FillInspectionsModel.Go(new XmlReaderPullParser(new StringReader(xml)));
+        assertEquals(Test_XmlParseBackend.Dump(expected), Test_XmlParseBackend.Dump(bound));
+        return bound;
+    }
+
+    private static void AssertModelException(String xml) throws Exception {
+        XmlElement root = XmlParsing.Go(xml);
+        ModelException expected = assertThrows(ModelException.class, () -> FillInspectionsModel.Go(root));
+        ModelException bound = assertThrows(ModelException.class, () -> FillInspectionsModel.Go(new XmlReaderPullParser(new StringReader(xml))));
+        assertEquals(expected.getMessage(), bound.getMessage());
+    }
+}
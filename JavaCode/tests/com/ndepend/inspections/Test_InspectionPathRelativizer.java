@@ -0,0 +1,103 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.InvalidPathException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Path relativizer tests
+//   The string prefix fast path must give the result of Path.startsWith() + Path.relativize(), that is
+//   InspectionInstance.getInspectionPath(), for any checkout directory and file path, cached or not
+//
+public class Test_InspectionPathRelativizer {
+
+    private final static String[] FILE_PATHS = {
+        "/work/dir/src/A.cs", "/work/dir/A.cs", "/work/dir", "/work/dir/", "/work/dir2/x", "/work/dir2", "/work/di",
+        "/work/dir//src/A.cs", "//work/dir/A.cs", "/work/dir/./A.cs", "/work/dir/../dir/A.cs", "/work/dir/src/..",
+        "/work/dir/.hidden/A.cs", "/work/dir/..A.cs", "/work/Dir/A.cs", "/work/dir\\src\\A.cs", "/work/dir/é.cs",
+        "/other/A.cs", "/", "", "work/dir/A.cs", "dir/A.cs", "./work/dir/A.cs", "A.cs", ".", "..",
+    };
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/work/dir", "/work/dir/", "/work/dir//", "/work//dir", "/work/./dir", "/work/x/../dir", "/work/dir/.",
+        "/", "//", "/work", "work/dir", "work", "./work/dir", ".", "", "/work/Dir", "/work/dé",
+    })
+    public void Test_SameAsPath(String checkoutDirectory) {
+        InspectionPathRelativizer relativizer = new InspectionPathRelativizer(checkoutDirectory);
+        for (int pass = 0; pass < 2; pass++) {  // Computed, then cached
+            for (String filePath : FILE_PATHS) {
+                AssertSameResult(relativizer, filePath);
+            }
+        }
+    }
+
+
+    @Test
+    public void Test_Null() {
+        assertNull(new InspectionPathRelativizer("/work/dir").getInspectionPath(null));
+        assertNull(new InspectionPathRelativizer(null).getInspectionPath("/work/dir/A.cs"));
+    }
+
+
+    @Test
+    public void Test_InvalidPath() {
+        InspectionPathRelativizer relativizer = new InspectionPathRelativizer("/work/dir");
+        assertThrows(InvalidPathException.class, () -> InspectionInstance.getInspectionPath("/work/dir", "/work/dir/A\u0000.cs"));
+        AssertSameResult(relativizer, "/work/dir/A\u0000.cs");
+    }
+
+
+    // The least recently used path is evicted once more than DEFAULT_MAX_CACHED_PATHS paths were seen
+    @Test
+    public void Test_Eviction() {
+        InspectionPathRelativizer relativizer = new InspectionPathRelativizer("/work/dir");
+        int max = InspectionPathRelativizer.DEFAULT_MAX_CACHED_PATHS;
+        for (int i = 0; i < max; i++) {
+            relativizer.getInspectionPath("/work/dir/F" + i + ".cs");
+        }
+        assertEquals(max, relativizer.getCachedPathCount());
+        assertEquals("F0.cs", relativizer.getInspectionPath("/work/dir/F0.cs"));    // F1 is now the eldest
+
+        assertEquals("New.cs", relativizer.getInspectionPath("/work/dir/New.cs"));
+        assertEquals(max, relativizer.getCachedPathCount());
+        assertTrue(relativizer.IsCached("/work/dir/F0.cs"));
+        assertFalse(relativizer.IsCached("/work/dir/F1.cs"));
+
+        // An evicted path is computed again with the same result
+        assertEquals("F1.cs", relativizer.getInspectionPath("/work/dir/F1.cs"));
+        assertFalse(relativizer.IsCached("/work/dir/F2.cs"));
+        for (int i = 0; i < 2 * max; i++) {
+            String filePath = (i % 3 == 0 ? "/other/F" : "/work/dir/src/F") + i + ".cs";
+            assertEquals(InspectionInstance.getInspectionPath("/work/dir", filePath), relativizer.getInspectionPath(filePath));
+        }
+        assertEquals(max, relativizer.getCachedPathCount());
+    }
+
+
+    //
+    // Helpers
+    //
+
+    // Non-ASCII names fail like the Path logic when the platform encoding cannot map them
+    private static void AssertSameResult(InspectionPathRelativizer relativizer, String filePath) {
+        String checkoutDirectory = relativizer.getCheckoutDirectory();
+        String expected;
+        try {
+            expected = InspectionInstance.getInspectionPath(checkoutDirectory, filePath);
+        } catch (InvalidPathException exc) {
+            assertThrows(InvalidPathException.class, () -> relativizer.getInspectionPath(filePath), checkoutDirectory + " " + filePath);
+            return;
+        }
+        assertEquals(expected, relativizer.getInspectionPath(filePath), checkoutDirectory + " " + filePath);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Streaming aggregation tests
+//   The counts must be the ones grouped from the InspectionsExport filled by FillInspectionsModel
+//
+public class Test_InspectionsAggregator {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    @TempDir
+    Path tempDir;
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        AssertSameCounts(SAMPLES.resolve(fileName));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2 })
+    public void Test_GeneratedExports(int variant) throws Exception {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = 512 * 1024;
+        generator.seed = variant;
+        generator.nestingDepth = variant;
+        generator.cdataShare = 0.3 * variant;
+        generator.attributeCount = variant;
+        Path xmlFile = tempDir.resolve("Generated.xml");
+        generator.Write(xmlFile);
+        AssertSameCounts(xmlFile);
+        // Through the StAX backend, which can't skip elements without reading them
+        try (XmlPullParser parser = XmlParseBackend.STAX.OpenPullParser(xmlFile, XmlParseLimits.NONE)) {
+            assertEquals(Dump(InspectionsAggregator.Go(xmlFile)), Dump(InspectionsAggregator.Go(parser)));
+        }
+    }
+
+
+    @Test
+    public void Test_Top() throws Exception {
+        InspectionsSummary.Counts counts = new InspectionsSummary.Counts();
+        for (String key : new String[] { "a", "b", "b", "c", "c", "d", "e", "e", "e" }) {
+            counts.Add(key);
+        }
+        assertArrayEquals(new int[] { 4, 1, 2 }, counts.Top(3));
+        assertArrayEquals(new int[] { 4, 1, 2, 0, 3 }, counts.Top(10));
+        assertArrayEquals(new int[0], counts.Top(0));
+        assertEquals(2, counts.getCount("c"));
+        assertEquals(0, counts.getCount("z"));
+    }
+
+
+    @Test
+    public void Test_Fail() throws Exception {
+        Path xmlFile = tempDir.resolve("Fail.xml");
+        Files.write(xmlFile, "<InspectionsExport><Inspections><Other/></Inspections></InspectionsExport>".getBytes(StandardCharsets.UTF_8));
+        assertThrows(ModelException.class, () -> InspectionsAggregator.Go(xmlFile));
+        Files.write(xmlFile, "<InspectionsExport><Inspections>".getBytes(StandardCharsets.UTF_8));
+        assertThrows(XmlException.class, () -> InspectionsAggregator.Go(xmlFile));
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private static void AssertSameCounts(Path xmlFile) throws Exception {
+        InspectionsExport export = FillInspectionsModel.Go(XmlParsing.Go(xmlFile));
+        LinkedHashMap<String, Integer> bySeverity = new LinkedHashMap<>();
+        LinkedHashMap<String, Integer> byTypeId = new LinkedHashMap<>();
+        LinkedHashMap<String, Integer> byFilePath = new LinkedHashMap<>();
+        for (InspectionInstance inspection : export.inspections) {
+            Count(bySeverity, inspection.severity);
+            Count(byTypeId, inspection.id);
+            Count(byFilePath, inspection.filePath);
+        }
+        List<String> topFilePaths = new ArrayList<>(byFilePath.keySet());
+        topFilePaths.sort(Comparator.comparing(byFilePath::get, Comparator.reverseOrder())); // Stable, ties in first found order
+
+        InspectionsSummary summary = InspectionsAggregator.Go(xmlFile);
+        assertEquals(export.inspections.size(), summary.getInspectionCount());
+        assertEquals(export.inspectionTypes.size(), summary.getInspectionTypeCount());
+        assertEquals(bySeverity, summary.getBySeverity().ToMap());
+        assertEquals(byTypeId, summary.getByTypeId().ToMap());
+        assertEquals(byFilePath, summary.getByFilePath().ToMap());
+        assertEquals(topFilePaths.subList(0, Math.min(5, topFilePaths.size())), summary.TopFilePaths(5));
+    }
+
+    private static void Count(Map<String, Integer> counts, String key) {
+        if (key != null) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static String Dump(InspectionsSummary summary) {
+        return summary.getInspectionCount() + " " + summary.getInspectionTypeCount() + " " + summary.getBySeverity().ToMap() +
+               " " + summary.getByTypeId().ToMap() + " " + summary.getByFilePath().ToMap();
+    }
+}
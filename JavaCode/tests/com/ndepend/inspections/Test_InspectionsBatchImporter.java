@@ -0,0 +1,171 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+//
+// Batch import tests
+//   The merged export must have the inspections of all files in file order and one type per id, the first
+//   in file order, whatever the executor. A file that fails is reported under its path and skipped.
+//
+@Timeout(30)
+public class Test_InspectionsBatchImporter {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void Test_MergedOrder() throws Exception {
+        List<Path> xmlFiles = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            xmlFiles.add(Write("Export" + i + ".xml", NewExport(i, 1 + i % 5)));
+        }
+        InspectionsBatchImporter.Result result = InspectionsBatchImporter.Go(xmlFiles, 3);
+        assertEquals(0, result.errors.size());
+        List<String> inspections = new ArrayList<>();
+        for (InspectionInstance inspection : result.inspectionsExport.inspections) {
+            inspections.add(inspection.filePath + " " + inspection.line);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            for (int line = 0; line < 1 + i % 5; line++) {
+                expected.add("/work/F" + i + ".cs " + line);
+            }
+        }
+        assertEquals(expected, inspections);
+    }
+
+
+    @Test
+    public void Test_TypesById() throws Exception {
+        InspectionsExport export1 = NewExport(1, 1);
+        export1.inspectionTypes.add(NewType("R", "Rule"));
+        export1.inspectionTypes.add(NewType(null, "No id 1"));
+        InspectionsExport export2 = NewExport(2, 1);
+        export2.inspectionTypes.add(NewType("R", "Rule"));          // Same type, shared
+        export2.inspectionTypes.add(NewType("S", "Other rule"));
+        export2.inspectionTypes.add(NewType(null, "No id 2"));
+        InspectionsExport export3 = NewExport(3, 1);
+        export3.inspectionTypes.add(NewType("S", "Changed rule"));  // Same id, the first one is kept
+        List<Path> xmlFiles = List.of(Write("1.xml", export1), Write("2.xml", export2), Write("3.xml", export3));
+
+        InspectionsExport merged = InspectionsBatchImporter.Go(xmlFiles, 2).inspectionsExport;
+        List<String> types = new ArrayList<>();
+        for (InspectionTypeInfo type : merged.inspectionTypes) {
+            types.add(type.id + " " + type.name);
+        }
+        assertEquals(List.of("R Rule", "null No id 1", "S Other rule", "null No id 2"), types);
+    }
+
+
+    @Test
+    public void Test_Errors() throws Exception {
+        Path missing = tempDir.resolve("Missing.xml");
+        Path malformed = WriteString("Malformed.xml", "<?xml version=\"1.0\"?><InspectionsExport><Inspections></InspectionsExport>");
+        Path wrongElement = WriteString("WrongElement.xml", "<?xml version=\"1.0\"?><InspectionsExport><Other/></InspectionsExport>");
+        Path valid1 = Write("Valid1.xml", NewExport(1, 2));
+        Path valid2 = Write("Valid2.xml", NewExport(2, 3));
+        InspectionsBatchImporter.Result result = InspectionsBatchImporter.Go(List.of(wrongElement, valid1, missing, malformed, valid2), 2);
+
+        assertEquals(List.of(wrongElement, missing, malformed), new ArrayList<>(result.errors.keySet()));
+        assertInstanceOf(ModelException.class, result.errors.get(wrongElement));
+        assertInstanceOf(XmlException.class, result.errors.get(missing));
+        assertTrue(result.errors.get(missing).getMessage().contains(missing.toString()));
+        assertInstanceOf(XmlException.class, result.errors.get(malformed));
+        assertEquals(5, result.inspectionsExport.inspections.size());
+        assertEquals("/work/F1.cs", result.inspectionsExport.inspections.get(0).filePath);
+        assertEquals("/work/F2.cs", result.inspectionsExport.inspections.get(4).filePath);
+    }
+
+
+    // Virtual threads from Java 21, else daemon platform threads, with the same result
+    @Test
+    public void Test_Executors() throws Exception {
+        ExecutorService executor = InspectionsBatchImporter.NewExecutor(2);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+            boolean isVirtual = Runtime.version().feature() >= 21 && (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+            assertEquals(Runtime.version().feature() >= 21, isVirtual);
+            if (!isVirtual) {
+                assertTrue(thread.isDaemon());
+                assertEquals("InspectionsBatchImporter", thread.getName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ExecutorService platformExecutor = InspectionsBatchImporter.NewPlatformExecutor(2);
+        Thread thread = platformExecutor.submit(Thread::currentThread).get();
+        assertTrue(thread.isDaemon());
+        assertEquals("InspectionsBatchImporter", thread.getName());
+
+        List<Path> xmlFiles = new ArrayList<>();
+        for (String fileName : new String[] { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" }) {
+            xmlFiles.add(SAMPLES.resolve(fileName));
+        }
+        xmlFiles.add(tempDir.resolve("Missing.xml"));
+        InspectionsBatchImporter.Result expected = InspectionsBatchImporter.Go(xmlFiles, 2);
+        InspectionsBatchImporter.Result result = InspectionsBatchImporter.Go(xmlFiles, 2, platformExecutor);
+        assertTrue(platformExecutor.isShutdown());
+        assertEquals(Test_XmlParseBackend.Dump(expected.inspectionsExport), Test_XmlParseBackend.Dump(result.inspectionsExport));
+        assertEquals(expected.errors.keySet(), result.errors.keySet());
+        assertSame(expected.errors.get(xmlFiles.get(3)).getClass(), result.errors.get(xmlFiles.get(3)).getClass());
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private static InspectionsExport NewExport(int file, int inspectionCount) {
+        InspectionsExport export = new InspectionsExport();
+        for (int line = 0; line < inspectionCount; line++) {
+            InspectionInstance inspection = new InspectionInstance();
+            inspection.id = "R";
+            inspection.message = "m";
+            inspection.filePath = "/work/F" + file + ".cs";
+            inspection.line = line;
+            inspection.severity = "WARN";
+            export.inspections.add(inspection);
+        }
+        return export;
+    }
+
+    private static InspectionTypeInfo NewType(String id, String name) {
+        InspectionTypeInfo type = new InspectionTypeInfo();
+        type.id = id;
+        type.name = name;
+        type.category = "Design";
+        type.description = "d";
+        return type;
+    }
+
+    private Path Write(String fileName, InspectionsExport export) throws Exception {
+        Path xmlFile = tempDir.resolve(fileName);
+        XmlWriter.Go(export, xmlFile);
+        return xmlFile;
+    }
+
+    private Path WriteString(String fileName, String xml) throws Exception {
+        Path xmlFile = tempDir.resolve(fileName);
+        Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+        return xmlFile;
+    }
+}
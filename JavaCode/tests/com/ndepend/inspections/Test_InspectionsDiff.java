@@ -0,0 +1,203 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//
+// Baseline diff tests
+//   New and fixed inspections must be the ones a nested loop over both exports finds, with the same rule:
+//   the unmatched baseline inspection with the same id, relative file path and message and the closest line
+//   within the tolerance, then the lowest line
+//
+public class Test_InspectionsDiff {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void Test_NewFixedUnchanged() throws Exception {
+        InspectionsExport baseline = new InspectionsExport();
+        InspectionsExport current = new InspectionsExport();
+        baseline.inspections.add(NewInspection("A", "/work/src/A.cs", "m", 10));   // Unchanged, moved by 2 lines
+        current.inspections.add(NewInspection("A", "/work/src/A.cs", "m", 12));
+        baseline.inspections.add(NewInspection("B", "/work/src/B.cs", "m", 5));    // Fixed
+        current.inspections.add(NewInspection("C", "/work/src/C.cs", "m", 5));     // New
+        baseline.inspections.add(NewInspection("D", "/work/src/D.cs", "m", 1));    // Moved too far: fixed and new
+        current.inspections.add(NewInspection("D", "/work/src/D.cs", "m", 10));
+        current.inspections.add(NewInspection("A", "/work/src/a.cs", "m", 10));    // Case kept: new
+
+        List<String> newInspections = new ArrayList<>();
+        List<String> fixedInspections = new ArrayList<>();
+        InspectionsDiff diff = Diff(baseline, null, current, null, 3, newInspections, fixedInspections);
+        assertEquals(List.of("C /work/src/C.cs m 5", "D /work/src/D.cs m 10", "A /work/src/a.cs m 10"), newInspections);
+        assertEquals(List.of("B /work/src/B.cs m 5", "D /work/src/D.cs m 1"), fixedInspections);
+        assertEquals(3, diff.getBaselineCount());
+        assertEquals(1, diff.getUnchangedCount());
+        assertEquals(3, diff.getNewCount());
+        assertEquals(2, diff.getFixedCount());
+    }
+
+
+    @Test
+    public void Test_Duplicates() throws Exception {
+        InspectionsExport baseline = new InspectionsExport();
+        InspectionsExport current = new InspectionsExport();
+        for (int i = 0; i < 2; i++) {
+            baseline.inspections.add(NewInspection("A", "/work/A.cs", "m", 7));
+        }
+        for (int i = 0; i < 3; i++) {
+            current.inspections.add(NewInspection("A", "/work/A.cs", "m", 7));
+        }
+        baseline.inspections.add(NewInspection("B", "/work/B.cs", "m", 1));
+        baseline.inspections.add(NewInspection("B", "/work/B.cs", "m", 1));
+        current.inspections.add(NewInspection("B", "/work/B.cs", "m", 1));
+
+        List<String> newInspections = new ArrayList<>();
+        List<String> fixedInspections = new ArrayList<>();
+        Diff(baseline, null, current, null, 0, newInspections, fixedInspections);
+        assertEquals(List.of("A /work/A.cs m 7"), newInspections);
+        assertEquals(List.of("B /work/B.cs m 1"), fixedInspections);
+    }
+
+
+    // Exports of two agents with different checkout directories
+    @Test
+    public void Test_MovedCheckoutDirectory() throws Exception {
+        InspectionsExport baseline = new InspectionsExport();
+        InspectionsExport current = new InspectionsExport();
+        baseline.inspections.add(NewInspection("A", "/agent1/work/src/A.cs", "m", 10));
+        current.inspections.add(NewInspection("A", "/agent2/build/src/A.cs", "m", 10));
+        baseline.inspections.add(NewInspection("B", "/outside/B.cs", "m", 1));
+        current.inspections.add(NewInspection("B", "/outside/B.cs", "m", 1));
+
+        List<String> newInspections = new ArrayList<>();
+        List<String> fixedInspections = new ArrayList<>();
+        InspectionsDiff diff = Diff(baseline, "/agent1/work", current, "/agent2/build", 0, newInspections, fixedInspections);
+        assertEquals(2, diff.getUnchangedCount());
+        assertEquals(List.of(), newInspections);
+        assertEquals(List.of(), fixedInspections);
+
+        // Without the checkout directories nothing matches
+        diff = Diff(baseline, null, current, null, 0, newInspections, fixedInspections);
+        assertEquals(1, diff.getUnchangedCount());
+        assertEquals(List.of("A /agent2/build/src/A.cs m 10"), newInspections);
+        assertEquals(List.of("A /agent1/work/src/A.cs m 10"), fixedInspections);
+    }
+
+
+    @Test
+    public void Test_Random() throws Exception {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int lineTolerance = random.nextInt(4);
+            InspectionsExport baseline = RandomExport(random, "/agent1/work");
+            InspectionsExport current = RandomExport(random, "/agent2/work");
+            List<String> newInspections = new ArrayList<>();
+            List<String> fixedInspections = new ArrayList<>();
+            Diff(baseline, "/agent1/work", current, "/agent2/work", lineTolerance, newInspections, fixedInspections);
+
+            List<String> expectedNew = new ArrayList<>();
+            List<String> expectedFixed = new ArrayList<>();
+            NestedLoopDiff(baseline, "/agent1/work", current, "/agent2/work", lineTolerance, expectedNew, expectedFixed);
+            Collections.sort(newInspections);
+            Collections.sort(fixedInspections);
+            Collections.sort(expectedNew);
+            Collections.sort(expectedFixed);
+            assertEquals(expectedNew, newInspections, "round " + round);
+            assertEquals(expectedFixed, fixedInspections, "round " + round);
+        }
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private InspectionsDiff Diff(InspectionsExport baseline, String baselineCheckoutDirectory,
+                                 InspectionsExport current, String currentCheckoutDirectory, int lineTolerance,
+                                 List<String> newInspections, List<String> fixedInspections) throws Exception {
+        newInspections.clear();
+        fixedInspections.clear();
+        Path baselineFile = tempDir.resolve("Baseline.xml");
+        Path currentFile = tempDir.resolve("Current.xml");
+        XmlWriter.Go(baseline, baselineFile);
+        XmlWriter.Go(current, currentFile);
+        return InspectionsDiff.Go(baselineFile, baselineCheckoutDirectory, currentFile, currentCheckoutDirectory, lineTolerance,
+                                  inspection -> newInspections.add(Key(inspection)),
+                                  inspection -> fixedInspections.add(Key(inspection)));
+    }
+
+    private static void NestedLoopDiff(InspectionsExport baseline, String baselineCheckoutDirectory,
+                                       InspectionsExport current, String currentCheckoutDirectory, int lineTolerance,
+                                       List<String> newInspections, List<String> fixedInspections) {
+        boolean[] matched = new boolean[baseline.inspections.size()];
+        for (InspectionInstance inspection : current.inspections) {
+            String path = InspectionInstance.getInspectionPath(currentCheckoutDirectory, inspection.filePath);
+            int best = -1;
+            for (int i = 0; i < matched.length; i++) {
+                InspectionInstance candidate = baseline.inspections.get(i);
+                if (matched[i] || !candidate.id.equals(inspection.id) || !candidate.message.equals(inspection.message) ||
+                    !InspectionInstance.getInspectionPath(baselineCheckoutDirectory, candidate.filePath).equals(path)) {
+                    continue;
+                }
+                int distance = Math.abs(candidate.line - inspection.line);
+                if (distance > lineTolerance) {
+                    continue;
+                }
+                if (best == -1) {
+                    best = i;
+                    continue;
+                }
+                int bestDistance = Math.abs(baseline.inspections.get(best).line - inspection.line);
+                if (distance < bestDistance || (distance == bestDistance && candidate.line < baseline.inspections.get(best).line)) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                newInspections.add(Key(inspection));
+            } else {
+                matched[best] = true;
+            }
+        }
+        for (int i = 0; i < matched.length; i++) {
+            if (!matched[i]) {
+                fixedInspections.add(Key(baseline.inspections.get(i)));
+            }
+        }
+    }
+
+    private static InspectionsExport RandomExport(Random random, String checkoutDirectory) {
+        InspectionsExport export = new InspectionsExport();
+        int count = random.nextInt(40);
+        for (int i = 0; i < count; i++) {
+            String filePath = random.nextInt(8) == 0
+                ? "/outside/F" + random.nextInt(2) + ".cs"
+                : checkoutDirectory + "/src/F" + random.nextInt(3) + ".cs";
+            export.inspections.add(NewInspection("R" + random.nextInt(3), filePath, "m" + random.nextInt(2), random.nextInt(12)));
+        }
+        return export;
+    }
+
+    private static InspectionInstance NewInspection(String id, String filePath, String message, int line) {
+        InspectionInstance inspection = new InspectionInstance();
+        inspection.id = id;
+        inspection.filePath = filePath;
+        inspection.message = message;
+        inspection.line = line;
+        inspection.severity = "WARN";
+        return inspection;
+    }
+
+    private static String Key(InspectionInstance inspection) {
+        return inspection.id + " " + inspection.filePath + " " + inspection.message + " " + inspection.line;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+//
+// Snapshot cache tests
+//   A miss, a hit and concurrent imports must all give the InspectionsExport of a normal parse
+//
+@Timeout(30)
+public class Test_InspectionsSnapshotCache {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void Test_MissThenHit() throws Exception {
+        Path xmlFile = SAMPLES.resolve("ComplexInspections.xml");
+        String expected = Test_XmlParseBackend.Dump(InspectionsSnapshotCache.Parse(xmlFile));
+        InspectionsSnapshotCache cache = new InspectionsSnapshotCache(tempDir.resolve("cache"));
+        assertEquals(expected, Test_XmlParseBackend.Dump(cache.Go(xmlFile)));
+        assertEquals(1, CountSnapshots(cache));
+        assertEquals(expected, Test_XmlParseBackend.Dump(cache.Go(xmlFile)));
+        // Another cache instance hashes the file again and finds the snapshot
+        assertEquals(expected, Test_XmlParseBackend.Dump(new InspectionsSnapshotCache(cache.getCacheDirectory()).Go(xmlFile)));
+    }
+
+
+    @Test
+    public void Test_Concurrent() throws Exception {
+        String[] fileNames = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" };
+        InspectionsSnapshotCache cache = new InspectionsSnapshotCache(tempDir.resolve("cache"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                Path xmlFile = SAMPLES.resolve(fileNames[i % fileNames.length]);
+                results.add(executor.submit((Callable<String>) () -> Test_XmlParseBackend.Dump(cache.Go(xmlFile))));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Path xmlFile = SAMPLES.resolve(fileNames[i % fileNames.length]);
+                assertEquals(Test_XmlParseBackend.Dump(InspectionsSnapshotCache.Parse(xmlFile)), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(fileNames.length, CountSnapshots(cache));
+    }
+
+
+    private static long CountSnapshots(InspectionsSnapshotCache cache) throws Exception {
+        try (var files = Files.list(cache.getCacheDirectory())) {
+            return files.filter(file -> file.toString().endsWith(InspectionsSnapshotCache.SNAPSHOT_EXTENSION)).count();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+//
+// Streaming import tests
+//   Every failure of the producer thread must reach the caller thread instead of leaving it waiting,
+//   and the producer thread must have ended once Go() returns or throws, whatever the reason
+//
+@Timeout(10)
+public class Test_InspectionsStreamer {
+
+    @Test
+    public void Test_Batches() throws Exception {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = 256 * 1024;
+        String xml = generator.Generate();
+        int[] count = new int[1];
+        InspectionsStreamer.Go(new XmlReaderPullParser(new StringReader(xml)), 10, 2, batch -> count[0] += batch.size());
+        assertEquals(FillInspectionsModel.Go(XmlParsing.Go(xml)).inspections.size(), count[0]);
+    }
+
+    // The batches hold the instances of FillInspectionsModel.Go() in document order, all full but the last
+    @ParameterizedTest
+    @CsvSource({ "1, 1", "7, 2", "256, 4", "1000000, 1" })
+    public void Test_BatchContents(int batchSize, int queuedBatches) throws Exception {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = 64 * 1024;
+        String xml = generator.Generate();
+        List<List<InspectionInstance>> batches = new ArrayList<>();
+        InspectionsExport streamed = InspectionsStreamer.Go(new XmlReaderPullParser(new StringReader(xml)), batchSize, queuedBatches, batches::add);
+        assertTrue(streamed.inspections.isEmpty());
+        for (List<InspectionInstance> batch : batches) {
+            streamed.inspections.addAll(batch);
+        }
+        assertEquals(Test_XmlParseBackend.Dump(FillInspectionsModel.Go(XmlParsing.Go(xml))), Test_XmlParseBackend.Dump(streamed));
+        for (int i = 0; i < batches.size() - 1; i++) {
+            assertEquals(batchSize, batches.get(i).size());
+        }
+        assertTrue(batches.get(batches.size() - 1).size() <= batchSize);
+        assertEquals((streamed.inspections.size() + batchSize - 1) / batchSize, batches.size());
+    }
+
+    // The producer is blocked on the full queue when the consumer throws
+    @Test
+    public void Test_ConsumerException() throws Exception {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = 256 * 1024;
+        WatchedReader reader = new WatchedReader(generator.Generate());
+        IllegalStateException thrown = new IllegalStateException("consumer");
+        int[] count = new int[1];
+        IllegalStateException exc = assertThrows(IllegalStateException.class, () ->
+            InspectionsStreamer.Go(new XmlReaderPullParser(reader, 64), 1, 1, batch -> {
+                if (++count[0] == 3) {
+                    throw thrown;
+                }
+            }));
+        assertSame(thrown, exc);
+        assertFalse(reader.thread.isAlive());
+        int reads = reader.reads;
+        Thread.sleep(50);
+        assertEquals(reads, reader.reads);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    // The caller is interrupted while the producer is blocked reading the document
+    @Test
+    public void Test_Cancellation() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><InspectionsExport><InspectionTypes></InspectionTypes><Inspections>" +
+                     "<InspectionInstance Id=\"R\" Line=\"1\" Severity=\"WARN\"><Message>m</Message><FilePath>/F.cs</FilePath></InspectionInstance>";
+        CountDownLatch blocked = new CountDownLatch(1);
+        WatchedReader reader = new WatchedReader(xml) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int read = super.read(cbuf, off, len);
+                if (read >= 0) {
+                    return read;
+                }
+                blocked.countDown();
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException exc) {
+                    throw new InterruptedIOException();
+                }
+                return -1;
+            }
+        };
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        boolean[] interrupted = new boolean[1];
+        Thread caller = new Thread(() -> {
+            try {
+                InspectionsStreamer.Go(new XmlReaderPullParser(reader), batch -> { });
+            } catch (Throwable exc) {
+                thrown.set(exc);
+                interrupted[0] = Thread.currentThread().isInterrupted();
+            }
+        });
+        caller.start();
+        blocked.await();
+        caller.interrupt();
+        caller.join();
+        assertTrue(thrown.get() instanceof XmlException, String.valueOf(thrown.get()));
+        assertEquals("Import interrupted", thrown.get().getMessage());
+        assertTrue(interrupted[0]);
+        assertFalse(reader.thread.isAlive());
+    }
+
+    @Test
+    public void Test_XmlException() {
+        XmlPullParser parser = new XmlReaderPullParser(new StringReader("<InspectionsExport><Inspections>"));
+        assertThrows(XmlException.class, () -> InspectionsStreamer.Go(parser, batch -> { }));
+    }
+
+    @Test
+    public void Test_Error() {
+        // A parser failing like a too deep document would
+        XmlPullParser parser = (XmlPullParser) Proxy.newProxyInstance(XmlPullParser.class.getClassLoader(),
+            new Class<?>[] { XmlPullParser.class }, (proxy, method, args) -> { throw new StackOverflowError(); });
+        assertThrows(StackOverflowError.class, () -> InspectionsStreamer.Go(parser, batch -> { }));
+    }
+
+    //
+    // Helpers
+    //
+
+    // Records the thread reading the document and the number of reads
+    private static class WatchedReader extends Reader {
+        private final StringReader reader;
+        volatile Thread thread;
+        volatile int reads;
+
+        WatchedReader(String str) {
+            reader = new StringReader(str);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            thread = Thread.currentThread();
+            reads++;
+            return reader.read(cbuf, off, len);
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Lazy DOM tests
+//   Elements read from the structure found by the single scan must be the ones XmlParsing.Go() builds
+//
+public class Test_LazyXmlElement {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        String xml = new String(Files.readAllBytes(Paths.get("..", "SimpleXmlParserTests", fileName)), StandardCharsets.UTF_8);
+        assertEquals(Test_XmlParseBackend.Dump(XmlParsing.Go(xml)), Test_XmlParseBackend.Dump(XmlParsing.GoLazy(xml).ToXmlElement()));
+    }
+
+
+    @Test
+    public void Test_Structure() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!-- c --><r a=\"1\"><x/><y>t<!-- c -->u</y><z><![CDATA[<c>]]></z>" +
+                     "<w> <v><u/></v><v/> </w><e></e></r>";
+        assertEquals(Test_XmlParseBackend.Dump(XmlParsing.Go(xml)), Test_XmlParseBackend.Dump(XmlParsing.GoLazy(xml).ToXmlElement()));
+        LazyXmlElement root = XmlParsing.GoLazy(xml);
+        assertEquals(5, root.getElements().size());
+        assertEquals("w", root.getElements().get(3).getName());
+        assertEquals(2, root.getElements().get(3).getElements().size());
+        assertEquals("<c>", root.getElements().get(2).getContent());
+        assertEquals(null, root.getElements().get(0).getElements());
+        assertEquals("1", root.getAttributeValue("a"));
+        assertEquals("<r> content=null elements=null\n", Test_XmlParseBackend.Dump(XmlParsing.GoLazy("<?xml?><r />").ToXmlElement()));
+    }
+
+
+    @Test
+    public void Test_Deep() throws Exception {
+        int depth = 20000;
+        String xml = "<?xml?>" + "<a>".repeat(depth) + "<b/>" + "</a>".repeat(depth);
+        LazyXmlElement elem = XmlParsing.GoLazy(xml);
+        for (int i = 1; i < depth; i++) {
+            assertEquals(1, elem.getElements().size());
+            elem = elem.getElements().get(0);
+        }
+        assertEquals("b", elem.getElements().get(0).getName());
+    }
+
+
+    @Test
+    public void Test_Fail() throws Exception {
+        // Structure errors when the root is created
+        assertThrows(XmlException.class, () -> XmlParsing.GoLazy("<?xml?><a><b></a></b>"));
+        assertThrows(XmlException.class, () -> XmlParsing.GoLazy("<?xml?><a><b>"));
+        assertThrows(XmlException.class, () -> XmlParsing.GoLazy("<?xml?><a><![CDAT[x]]></a>"));
+        // Content errors when read
+        LazyXmlElement root = XmlParsing.GoLazy("<?xml?><a><b><![CDATA[x]]><c/></b><d><![CDATA[x]]><![CDATA[y]]></d></a>");
+        assertThrows(XmlException.class, () -> root.getElements().get(0).getContent());
+        assertThrows(XmlException.class, () -> root.getElements().get(1).getContent());
+    }
+}
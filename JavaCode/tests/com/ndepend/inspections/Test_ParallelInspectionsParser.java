@@ -0,0 +1,105 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Parallel parsing tests
+//   GoParallel() must give the model of FillInspectionsModel.Go(XmlParsing.Go()), or throw the same exception
+//   with the same message, whether the document is split or parsed sequentially as a fallback
+//
+public class Test_ParallelInspectionsParser {
+
+    private final static int INSTANCES = 2 * ParallelInspectionsParser.MIN_TASK_INSTANCES + 37;
+    private final static ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    public static void TearDown() {
+        POOL.shutdown();
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        String xml = new String(Files.readAllBytes(Paths.get("..", "SimpleXmlParserTests", fileName)), StandardCharsets.UTF_8);
+        AssertSameResult(xml);
+    }
+
+
+    @Test
+    public void Test_Sections() throws Exception {
+        // One section, then several sections with types in between and an empty one
+        AssertSameResult(Document(Instances(0, INSTANCES)));
+        AssertSameResult(Document(Instances(0, INSTANCES) + "</Inspections><InspectionTypes>" + TYPE + "</InspectionTypes>" +
+                                  "<Inspections>" + Instances(INSTANCES, 2 * INSTANCES) + "</Inspections><Inspections></Inspections><Inspections>" +
+                                  Instances(0, 3)));
+    }
+
+
+    @Test
+    public void Test_BetweenInstances() throws Exception {
+        String instances = Instances(0, INSTANCES);
+        int middle = instances.indexOf("<InspectionInstance", instances.length() / 2);
+        AssertSameResult(Document(instances.substring(0, middle) + "\r\n  <!-- <InspectionInstance Id=\"x\"> -->\r\n  " + instances.substring(middle)));
+        AssertSameResult(Document(instances.substring(0, middle) + "<![CDATA[<InspectionInstance/>]]>" + instances.substring(middle)));
+        AssertSameResult(Document(instances.substring(0, middle) + "<Other/>" + instances.substring(middle)));
+        AssertSameResult(Document(instances.substring(0, middle) + "<Other><InspectionInstance/></Other>" + instances.substring(middle)));
+    }
+
+
+    @Test
+    public void Test_MalformedInstances() throws Exception {
+        String instances = Instances(0, INSTANCES);
+        AssertSameResult(Document(instances.replace("Line=\"300\"", "Line=\"x\"")));
+        AssertSameResult(Document(instances.replace("Line=\"300\"", "Line=\"300\" Other=\"1\"")));
+        AssertSameResult(Document(instances.replace("<Message>m 300", "<Other>m 300").replace("300</Message>", "300</Other>")));
+        AssertSameResult(Document(instances.replace("<Message>m 300", "<Message><FilePath>m 300").replace("300</Message>", "300</Message></FilePath>")));
+        AssertSameResult(Document(instances.replace("Severity=\"WARN\">", "Severity=\"WARN>")));
+        AssertSameResult(Document(instances.substring(0, instances.length() - "</InspectionInstance>".length())));
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private final static String TYPE = "<InspectionTypeInfo Id=\"R0\" Name=\"Rule 0\" Category=\"Design\"><Description>d</Description></InspectionTypeInfo>";
+
+    private static String Document(String instances) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<InspectionsExport>\r\n<InspectionTypes>" + TYPE + "</InspectionTypes>\r\n" +
+               "<Inspections>" + instances + "</Inspections>\r\n</InspectionsExport>";
+    }
+
+    private static String Instances(int first, int end) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = first; i < end; i++) {
+            sb.append("\r\n  <InspectionInstance Id=\"R").append(i % 7).append("\" Line=\"").append(i).append("\" Severity=\"WARN\">")
+              .append("<Message>m ").append(i).append(" &amp; &lt;x&gt;</Message>")
+              .append("<FilePath>/work/F").append(i % 13).append(".cs</FilePath></InspectionInstance>");
+        }
+        return sb.toString();
+    }
+
+    private static void AssertSameResult(String xml) throws Exception {
+        InspectionsExport expected;
+        try {
+            expected = FillInspectionsModel.Go(XmlParsing.Go(xml));
+        } catch (XmlException | ModelException exc) {
+            Exception parallelExc = assertThrows(exc.getClass(), () -> FillInspectionsModel.GoParallel(xml, POOL));
+            assertEquals(exc.getMessage(), parallelExc.getMessage());
+            return;
+        }
+        assertEquals(Test_XmlParseBackend.Dump(expected), Test_XmlParseBackend.Dump(FillInspectionsModel.GoParallel(xml, POOL)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Attribute cursor tests
+//   Typed accessors must give the result of Integer.parseInt() and Enum.valueOf(), Integer.MIN_VALUE and null
+//   when there is no such attribute or value
+//
+public class Test_XmlAttributeCursor {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "0", "7", "-7", "+7", "007", "-0", "+", "-", "", " 1", "1 ", "1a", "--1", "+-1",
+        "2147483647", "2147483648", "-2147483648", "-2147483649", "99999999999999999999",
+        "١٢٣", "-१२", "１２", "½",
+    })
+    public void Test_ParseInt(String value) {
+        int expected;
+        try {
+            expected = Integer.parseInt(value);
+        } catch (NumberFormatException exc) {
+            expected = Integer.MIN_VALUE;
+        }
+        String xml = "<a>" + value + "</a>";
+        assertEquals(expected, XmlAttributeCursor.ParseInt(xml, 3, 3 + value.length()), value);
+        assertEquals(expected, XmlAttributeCursor.ParseInt(xml.toCharArray(), 3, 3 + value.length()), value);
+        assertEquals(expected, XmlAttributeCursor.ParseInt(new StringBuilder(value), 0, value.length()), value);
+    }
+
+
+    @Test
+    public void Test_TypedAccessors() throws Exception {
+        String xml = "<a Line=\"-12\" Big='2147483648' Event=\"StartElement\" Other=\"startElement\" Empty=\"\">";
+        XmlAttributeCursor cursor = new XmlAttributeCursor();
+        cursor.Reset(xml, 2, xml.length() - 1);
+        assertEquals(5, cursor.getCount());
+        assertEquals(-12, cursor.getInt("Line"));
+        assertEquals(Integer.MIN_VALUE, cursor.getInt("Big"));
+        assertEquals(Integer.MIN_VALUE, cursor.getInt("Empty"));
+        assertEquals(Integer.MIN_VALUE, cursor.getInt("Missing"));
+        assertEquals(XmlPullEvent.StartElement, cursor.getEnum("Event", XmlPullEvent.values()));
+        assertNull(cursor.getEnum("Other", XmlPullEvent.values()));     // Case sensitive, like Enum.valueOf()
+        assertNull(cursor.getEnum("Empty", XmlPullEvent.values()));
+        assertNull(cursor.getEnum("Missing", XmlPullEvent.values()));
+        assertEquals("2147483648", cursor.getValue("Big"));
+        assertNull(cursor.getValue("Missing"));
+    }
+
+
+    @Test
+    public void Test_Fail() {
+        XmlAttributeCursor cursor = new XmlAttributeCursor();
+        assertThrows(XmlException.class, () -> cursor.Reset("<a b=c>", 2, 6));
+        assertThrows(XmlException.class, () -> cursor.Reset("<a b=\"c>\"", 2, 7));
+    }
+
+
+    // The '=' and quote searches stop at the end of the tag: without that, each tag without attributes
+    // scanned the rest of the document and parsing took a time quadratic in the number of tags
+    @Test
+    @Timeout(20)
+    public void Test_ManyTagsWithoutAttributes() throws Exception {
+        int count = 400_000;
+        String xml = "<?xml version=\"1.0\"?><root>" + "<Item>text</Item>".repeat(count) + "</root>";
+        assertEquals(count, XmlParsing.Go(xml).Elements.size());
+        XmlDocument document = XmlParsing.GoDocument(xml);
+        assertEquals(count + 1, document.getNodeCount());
+        String lastTag = "<Item>text</Item><Last a=\"1\"/></root>";
+        XmlElement root = XmlParsing.Go(xml.replace("</root>", lastTag.substring("<Item>text</Item>".length())));
+        assertEquals("1", root.Elements.get(count).Attributes.get(0).Value);
+    }
+}
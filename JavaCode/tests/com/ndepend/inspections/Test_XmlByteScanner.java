@@ -0,0 +1,120 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//
+// Byte scanner tests
+//   The SWAR kernels must give the result of the scalar versions for any range: every length of the tail
+//   shorter than 8 bytes, bytes >= 0x80 whose high bit must not leak into the masks, and each structural
+//   byte at each of the 8 lanes of a word
+//
+public class Test_XmlByteScanner {
+
+    private final static byte[] STRUCTURAL = { '<', '>', '/', '"', '\'', '&', ' ', '\t', '\r', '\n' };
+    private final static byte[] ALPHABET = {
+        '<', '>', '/', '"', '\'', '&', ' ', '\t', '\r', '\n', '=', 'a', 'Z', 0, 0x1F, 0x21, 0x7F,
+        (byte) 0x80, (byte) 0xA0, (byte) 0xBC, (byte) 0xBE, (byte) 0xC3, (byte) 0xE2, (byte) 0xFF,
+    };
+    private final static byte[] FILLERS = { 'a', ' ', 0, (byte) 0x80, (byte) 0xBE, (byte) 0xFF };
+
+
+    @Test
+    public void Test_Random() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            byte[] content = new byte[random.nextInt(48)];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            AssertSameResults(content, "round " + round);
+        }
+    }
+
+
+    // Each structural byte, and a byte >= 0x80, alone at each lane of a filler, in words and in tails
+    @Test
+    public void Test_EveryLane() {
+        for (byte filler : FILLERS) {
+            for (int length = 0; length <= 17; length++) {
+                for (byte b : ALPHABET) {
+                    for (int lane = 0; lane < length; lane++) {
+                        byte[] content = new byte[length];
+                        Arrays.fill(content, filler);
+                        content[lane] = b;
+                        AssertSameResults(content, "filler " + filler + " byte " + b + " at " + lane + " of " + length);
+                    }
+                }
+            }
+        }
+    }
+
+
+    // A quoted value that crosses words, with the tag end in the value, after it or missing
+    @Test
+    public void Test_QuotedValues() {
+        for (int length = 0; length <= 17; length++) {
+            for (int open = 0; open < length; open++) {
+                for (int close = open + 1; close <= length; close++) {
+                    for (byte quote : new byte[] { '"', '\'' }) {
+                        byte[] content = new byte[length + 1];
+                        Arrays.fill(content, (byte) 'a');
+                        content[open] = quote;
+                        if (close < length) {
+                            content[close] = quote;
+                        }
+                        for (int end = 0; end <= length; end++) {
+                            byte[] withEnd = content.clone();
+                            if (withEnd[end] == 'a') {
+                                withEnd[end] = '>';
+                            }
+                            AssertSameResults(withEnd, "quote at " + open + ", " + close + " end at " + end);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    //
+    // Helpers
+    //
+
+    // Ranges from the first 8 indexes to every end, so each byte is seen at each lane and the tail after the last
+    // full word takes every length from 0 to 7, in a heap buffer and a direct one
+    private static void AssertSameResults(byte[] content, String message) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(content.length);
+        direct.put(content).flip();
+        for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(content), direct }) {
+            ByteBuffer bytes = XmlByteScanner.Prepare(buffer);
+            for (int index = 0; index <= Math.min(content.length, 8); index++) {
+                for (int indexEnd = index; indexEnd <= content.length; indexEnd++) {
+                    AssertSameResults(bytes, index, indexEnd, message);
+                }
+            }
+        }
+    }
+
+    private static void AssertSameResults(ByteBuffer bytes, int index, int indexEnd, String message) {
+        for (byte b : STRUCTURAL) {
+            assertEquals(XmlByteScanner.IndexOfScalar(bytes, b, index, indexEnd),
+                         XmlByteScanner.IndexOf(bytes, b, index, indexEnd), () -> Range(message, index, indexEnd) + " IndexOf " + b);
+        }
+        assertEquals(XmlByteScanner.IndexOfScalar(bytes, (byte) 0xBE, index, indexEnd),
+                     XmlByteScanner.IndexOf(bytes, (byte) 0xBE, index, indexEnd), () -> Range(message, index, indexEnd) + " IndexOf 0xBE");
+        assertEquals(XmlByteScanner.IndexOfTagEndNotInAttributeScalar(bytes, index, indexEnd),
+                     XmlByteScanner.IndexOfTagEndNotInAttribute(bytes, index, indexEnd), () -> Range(message, index, indexEnd) + " IndexOfTagEndNotInAttribute");
+        assertEquals(XmlByteScanner.IsBlankScalar(bytes, index, indexEnd),
+                     XmlByteScanner.IsBlank(bytes, index, indexEnd), () -> Range(message, index, indexEnd) + " IsBlank");
+    }
+
+    private static String Range(String message, int index, int indexEnd) {
+        return message + " [" + index + ", " + indexEnd + ")";
+    }
+}
@@ -0,0 +1,103 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+//
+// Gzip input tests
+//   The inflated bytes through the ring of chunks, and every way the producer thread can stop
+//
+@Timeout(10)
+public class Test_XmlGzipInputStream {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void Test_Inflate() throws Exception {
+        byte[] bytes = Bytes(3 * 1024 * 1024);
+        // Small chunks, so the producer blocks on a full ring many times
+        try (InputStream stream = new XmlGzipInputStream(new ByteArrayInputStream(Gzip(bytes)), XmlParseLimits.NONE, 4096, 2)) {
+            assertArrayEquals(bytes, stream.readAllBytes());
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    public void Test_Truncated() throws Exception {
+        byte[] gzip = Gzip(Bytes(1024 * 1024));
+        byte[] truncated = Arrays.copyOf(gzip, gzip.length / 2);
+        try (InputStream stream = new XmlGzipInputStream(new ByteArrayInputStream(truncated), XmlParseLimits.NONE)) {
+            assertThrows(IOException.class, stream::readAllBytes);
+        }
+    }
+
+    @Test
+    public void Test_MaxTotalBytes() throws Exception {
+        XmlParseLimits limits = XmlParseLimits.NONE.WithMaxTotalBytes(100 * 1024);
+        try (InputStream stream = new XmlGzipInputStream(new ByteArrayInputStream(Gzip(Bytes(1024 * 1024))), limits, 4096, 4)) {
+            IOException exc = assertThrows(IOException.class, stream::readAllBytes);
+            assertInstanceOf(XmlException.class, exc.getCause());
+        }
+
+        // Through the parser, the limit is an XmlException
+        String xml = "<a>" + "<b>text</b>".repeat(20 * 1024) + "</a>";
+        Path xmlFile = tempDir.resolve("Export.xml.gz");
+        Files.write(xmlFile, Gzip(xml.getBytes(StandardCharsets.UTF_8)));
+        assertThrows(XmlException.class, () -> XmlParsing.Go(xmlFile, limits));
+    }
+
+    @Test
+    public void Test_CloseBeforeEnd() throws Exception {
+        InputStream stream = new XmlGzipInputStream(new ByteArrayInputStream(Gzip(Bytes(8 * 1024 * 1024))), XmlParseLimits.NONE, 4096, 2);
+        assertEquals(1000, stream.readNBytes(1000).length);
+        stream.close(); // Returns once the blocked producer has stopped
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    public void Test_Error() throws Exception {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new OutOfMemoryError("test");
+            }
+        };
+        try (InputStream stream = new XmlGzipInputStream(failing, XmlParseLimits.NONE)) {
+            assertThrows(OutOfMemoryError.class, stream::read);
+        }
+    }
+
+    // Compressible but not uniform bytes
+    private static byte[] Bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + (i * 31 + i / 7) % 26);
+        }
+        return bytes;
+    }
+
+    private static byte[] Gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
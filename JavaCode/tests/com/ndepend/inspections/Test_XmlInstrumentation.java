@@ -0,0 +1,122 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+//
+// Instrumentation tests
+//   The listener gets one metrics per phase, in the order the phases complete, with the counts of the document.
+//   Without listener nor JFR recording no metrics is created. A listener that throws fails the parse call
+//   and leaves the parsers usable.
+//
+public class Test_XmlInstrumentation {
+
+    // 8 elements, 6 attributes, 2 entities, 1 CDATA section, depth 4
+    private final static String XML =
+        "<?xml version=\"1.0\"?>\r\n<InspectionsExport>" +
+        "<InspectionTypes><InspectionTypeInfo Id=\"R\" Name=\"Rule\" Category=\"C\"><Description><![CDATA[d]]></Description></InspectionTypeInfo></InspectionTypes>" +
+        "<Inspections><InspectionInstance Id=\"R\" Line=\"1\" Severity=\"WARN\"><Message>a &amp; b &lt;</Message><FilePath>/F.cs</FilePath></InspectionInstance></Inspections>" +
+        "</InspectionsExport>";
+
+    @AfterEach
+    public void TearDown() {
+        XmlInstrumentation.setListener(null);
+    }
+
+
+    @Test
+    public void Test_NoListener() throws Exception {
+        assertNull(XmlInstrumentation.getListener());
+        assertNull(XmlInstrumentation.Start(XmlParseMetrics.Phase.Parse));
+    }
+
+
+    @Test
+    public void Test_PhaseOrder() throws Exception {
+        List<XmlParseMetrics> phases = Listen();
+        FillInspectionsModel.Go(XmlParsing.Go(XML));
+        FillInspectionsModel.Go(new XmlReaderPullParser(new StringReader(XML)));
+        List<XmlParseMetrics.Phase> order = new ArrayList<>();
+        for (XmlParseMetrics metrics : phases) {
+            order.add(metrics.phase);
+        }
+        assertEquals(List.of(XmlParseMetrics.Phase.Parse, XmlParseMetrics.Phase.Fill, XmlParseMetrics.Phase.PullParse), order);
+        for (XmlParseMetrics metrics : phases) {
+            assertTrue(metrics.wallNanos >= 0, metrics.toString());
+            assertTrue(metrics.contentNanos + metrics.attributeNanos <= metrics.wallNanos, metrics.toString());
+        }
+    }
+
+
+    @Test
+    public void Test_Counts() throws Exception {
+        List<XmlParseMetrics> phases = Listen();
+        XmlParsing.Go(XML);
+        PullTreeBuilder.Go(new XmlReaderPullParser(new StringReader(XML)));
+        assertEquals(2, phases.size());
+
+        XmlParseMetrics parse = phases.get(0);
+        assertEquals(XML.length(), parse.bytesScanned);
+        assertEquals(8, parse.elementCount);
+        assertEquals(6, parse.attributeCount);
+        assertEquals(2, parse.entityCount);
+        assertEquals(1, parse.cdataCount);
+        assertEquals(4, parse.maxDepth);
+
+        XmlParseMetrics pullParse = phases.get(1);
+        assertEquals(-1, pullParse.bytesScanned);  // Not measured by pull parsers
+        assertEquals(8, pullParse.elementCount);
+        assertEquals(6, pullParse.attributeCount);
+        assertEquals(1, pullParse.cdataCount);
+        assertEquals(4, pullParse.maxDepth);
+    }
+
+
+    // Only completed phases are reported
+    @Test
+    public void Test_FailedPhase() throws Exception {
+        List<XmlParseMetrics> phases = Listen();
+        assertThrows(XmlException.class, () -> XmlParsing.Go(XML.replace("</Inspections>", "")));
+        assertThrows(ModelException.class, () -> FillInspectionsModel.Go(XmlParsing.Go(XML.replace("Line=\"1\"", "Line=\"x\""))));
+        assertEquals(1, phases.size());
+        assertSame(XmlParseMetrics.Phase.Parse, phases.get(0).phase);
+    }
+
+
+    @Test
+    public void Test_ThrowingListener() throws Exception {
+        XmlInstrumentation.setListener(metrics -> { throw new IllegalStateException("listener " + metrics.phase); });
+        XmlParser parser = new XmlParser();
+        assertEquals("listener Parse", assertThrows(IllegalStateException.class, () -> parser.Go(XML)).getMessage());
+        assertEquals("listener PullParse", assertThrows(IllegalStateException.class, () -> parser.Go(new StringReader(XML))).getMessage());
+        assertEquals("listener Parse", assertThrows(IllegalStateException.class, () -> XmlParsing.Go(XML)).getMessage());
+
+        // The same parser parses the next document
+        XmlInstrumentation.setListener(null);
+        String expected = Test_XmlParseBackend.Dump(XmlParsing.Go(XML));
+        assertEquals(expected, Test_XmlParseBackend.Dump(parser.Go(XML)));
+        assertEquals(Test_XmlParseBackend.Dump(PullTreeBuilder.Go(new XmlReaderPullParser(new StringReader(XML)))),
+                     Test_XmlParseBackend.Dump(parser.Go(new StringReader(XML))));
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private static List<XmlParseMetrics> Listen() {
+        List<XmlParseMetrics> phases = new ArrayList<>();
+        XmlInstrumentation.setListener(phases::add);
+        return phases;
+    }
+}
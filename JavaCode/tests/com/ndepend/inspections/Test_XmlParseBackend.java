@@ -0,0 +1,262 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Differential tests of the parse backends
+//   The same file is parsed with every backend, the XmlElement trees and the InspectionsExport
+//   must be equal, compared through a dump of every name, attribute, content and field.
+//
+public class Test_XmlParseBackend {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    private final static XmlParseBackendPolicy BUILT_IN = XmlParseBackendPolicy.Always(XmlParseBackend.BUILT_IN);
+    private final static XmlParseBackendPolicy STAX = XmlParseBackendPolicy.Always(XmlParseBackend.STAX);
+
+    @TempDir
+    Path tempDir;
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        AssertSameResults(SAMPLES.resolve(fileName));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3 })
+    public void Test_GeneratedExports(int variant) throws Exception {
+        InspectionsExportGenerator generator = new InspectionsExportGenerator();
+        generator.sizeBytes = 256 * 1024;
+        generator.seed = variant;
+        generator.nestingDepth = variant;
+        generator.cdataShare = 0.25 * variant;
+        generator.attributeCount = variant;
+        generator.entityDensity = 0.1;
+        // StAX trims a reference to a blank char like the blank char, see XmlStaxPullParser
+        String xml = generator.Generate().replace("&#10;", "&#x41;");
+        AssertSameResults(Write("Generated" + variant + ".xml", xml));
+    }
+
+
+    @Test
+    public void Test_GzipExport() throws Exception {
+        Path xmlFile = tempDir.resolve("Inspections.xml.gz");
+        try (OutputStream stream = new GZIPOutputStream(Files.newOutputStream(xmlFile))) {
+            stream.write(Files.readAllBytes(SAMPLES.resolve("ComplexInspections.xml")));
+        }
+        AssertSameResults(xmlFile);
+        assertEquals(Dump(XmlParsing.Go(SAMPLES.resolve("ComplexInspections.xml"))), Dump(STAX.Go(xmlFile)));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "<a/>",
+        "<a></a>",
+        "<a> </a>",
+        "<a><b/><c></c><d>text</d></a>",
+        "<a>  line 1  \r\n\r\n   line 2\n\n  </a>",
+        "<a>x &lt; y &gt; z &amp;&amp; &quot;q&quot; &apos;s&apos; &#x41;&#66;</a>",
+        "<a>&amp;lt; is not expanded twice</a>",
+        "<a><![CDATA[ raw <text> & \"quotes\" ]]></a>",
+        "<a>\n  <![CDATA[cdata]]>\n</a>",
+        "<a><![CDATA[]]></a>",
+        "<a x=\"1\" y='2' z = \"3\"><b k=\"v\"/></a>",
+        "<a name=\"x &amp; y &lt;z&gt; &quot;q&quot;\" tab=\"&#x9;\" lf=\"a&#xA;b\"/>",
+        "<a xmlns=\"urn:a\" xmlns:p=\"urn:p\"><p:b p:c=\"d\"/></a>",
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<!-- head -->\r\n<a>été 日本語 😀</a>\r\n<!-- tail -->",
+        "﻿<?xml version=\"1.0\"?><a>bom</a>",
+        "<a><b><c><d>deep</d></c></b></a>",
+        "<InspectionsExport><InspectionTypes/><Inspections/></InspectionsExport>",
+    })
+    public void Test_Documents(String xml) throws Exception {
+        Path xmlFile = Write("Document.xml", xml);
+        assertEquals(Dump(BUILT_IN.Go(xmlFile)), Dump(STAX.Go(xmlFile)), xml);
+        // The String parser requires the declaration, see XmlPullParser
+        String declared = xml.contains("<?xml") ? xml : "<?xml version=\"1.0\"?>" + xml;
+        assertEquals(Dump(XmlParsing.Go(declared)), Dump(BUILT_IN.Go(xmlFile)), xml);
+    }
+
+
+    // The documents the pull parsers don't read like XmlParsing.Go(String), see XmlPullParser
+    @Test
+    public void Test_StringParserDifferences() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a>before <!-- comment --> after</a>";
+        Path xmlFile = Write("Comment.xml", xml);
+        assertEquals("<a> content=[beforeafter] elements=0\n", Dump(BUILT_IN.Go(xmlFile)));
+        assertEquals("<a> content=[beforeafter] elements=0\n", Dump(STAX.Go(xmlFile)));
+        assertEquals("<a> content=[before <!-- comment --> after] elements=0\n", Dump(XmlParsing.Go(xml)));
+
+        xml = "<?xml version=\"1.0\"?><a>one<?pi data?>two</a>";
+        xmlFile = Write("Pi.xml", xml);
+        assertEquals("<a> content=[onetwo] elements=0\n", Dump(BUILT_IN.Go(xmlFile)));
+        assertEquals("<a> content=[onetwo] elements=0\n", Dump(STAX.Go(xmlFile)));
+        String piXml = xml;
+        assertThrows(XmlException.class, () -> XmlParsing.Go(piXml));
+
+        xml = "<a>no declaration</a>";
+        xmlFile = Write("NoDeclaration.xml", xml);
+        assertEquals("<a> content=[no declaration] elements=0\n", Dump(BUILT_IN.Go(xmlFile)));
+        assertEquals("<a> content=[no declaration] elements=0\n",
+                     Dump(PullTreeBuilder.Go(new XmlReaderPullParser(new StringReader(xml)), XmlParseLimits.NONE)));
+        String noDeclarationXml = xml;
+        assertThrows(XmlException.class, () -> XmlParsing.Go(noDeclarationXml));
+    }
+
+
+    // Well-formed documents with the constructs both backends read the same way
+    @Test
+    public void Test_RandomDocuments() throws Exception {
+        for (int seed = 0; seed < 300; seed++) {
+            StringBuilder sb = new StringBuilder();
+            RandomElement(new Random(seed), sb, 0);
+            Path xmlFile = Write("Random.xml", sb.toString());
+            assertEquals(Dump(BUILT_IN.Go(xmlFile)), Dump(STAX.Go(xmlFile)), sb.toString());
+        }
+    }
+
+    private final static String[] TEXTS = { "word", " ", "\r\n", "\n", "\t", "&lt;", "&amp;", "&#x41;", "&#233;", "é", "<!-- c -->", "<?pi?>" };
+
+    private static void RandomElement(Random random, StringBuilder sb, int depth) {
+        String name = "e" + random.nextInt(5);
+        sb.append('<').append(name);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            sb.append(" a").append(i).append(random.nextBoolean() ? "=\"v &amp; w\"" : "='v'");
+        }
+        switch (depth < 4 ? random.nextInt(4) : random.nextInt(3)) {
+            case 0:
+                sb.append("/>");
+                return;
+            case 1:
+                sb.append('>');
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    sb.append(TEXTS[random.nextInt(TEXTS.length)]);
+                }
+                break;
+            case 2:
+                sb.append(random.nextBoolean() ? ">\r\n  <![CDATA[" : "><![CDATA[");
+                sb.append(random.nextBoolean() ? " <raw> & text " : "");
+                sb.append("]]>");
+                break;
+            default:
+                sb.append('>');
+                for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                    sb.append(random.nextBoolean() ? "\r\n  " : "");
+                    RandomElement(random, sb, depth + 1);
+                }
+                break;
+        }
+        sb.append("</").append(name).append('>');
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "<a><![CDATA[x]]><b/></a>",
+        "<a><![CDATA[x]]><![CDATA[y]]></a>",
+        "<a><b></a></b>",
+        "<a><b></b>",
+        "<a></b>",
+        "",
+    })
+    public void Test_Fail(String xml) throws Exception {
+        Path xmlFile = Write("Fail.xml", xml);
+        assertThrows(XmlException.class, () -> BUILT_IN.Go(xmlFile), xml);
+        assertThrows(XmlException.class, () -> STAX.Go(xmlFile), xml);
+    }
+
+
+    @Test
+    public void Test_Limits() throws Exception {
+        Path xmlFile = SAMPLES.resolve("ComplexInspections.xml");
+        XmlParseLimits limits = XmlParseLimits.NONE.WithMaxDepth(2);
+        assertThrows(XmlException.class, () -> BUILT_IN.Go(xmlFile, limits));
+        assertThrows(XmlException.class, () -> STAX.Go(xmlFile, limits));
+        assertThrows(XmlException.class, () -> STAX.GoInspections(xmlFile, limits));
+    }
+
+
+    @Test
+    public void Test_Policy() throws Exception {
+        Path xmlFile = Write("Small.xml", "<a>small</a>");
+        XmlParseBackendPolicy policy = new XmlParseBackendPolicy();
+        assertSame(XmlParseBackend.BUILT_IN, policy.Select(xmlFile));
+        policy.staxMinBytes = Files.size(xmlFile);
+        assertSame(XmlParseBackend.STAX, policy.Select(xmlFile));
+        policy.staxMinBytes = Files.size(xmlFile) + 1;
+        assertSame(XmlParseBackend.BUILT_IN, policy.Select(xmlFile));
+        policy.backend = XmlParseBackend.STAX;
+        assertSame(XmlParseBackend.STAX, policy.Select(xmlFile));
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private void AssertSameResults(Path xmlFile) throws Exception {
+        assertEquals(Dump(BUILT_IN.Go(xmlFile)), Dump(STAX.Go(xmlFile)), xmlFile.toString());
+        assertEquals(Dump(BUILT_IN.GoInspections(xmlFile)), Dump(STAX.GoInspections(xmlFile)), xmlFile.toString());
+    }
+
+    private Path Write(String fileName, String xml) throws IOException {
+        Path xmlFile = tempDir.resolve(fileName);
+        Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+        return xmlFile;
+    }
+
+    // Content and Elements are dumped as null when null, so  <a/>  and  <a></a>  differ
+    static String Dump(XmlElement root) {
+        StringBuilder sb = new StringBuilder();
+        Dump(root, sb, 0);
+        return sb.toString();
+    }
+
+    private static void Dump(XmlElement elem, StringBuilder sb, int depth) {
+        sb.append("  ".repeat(depth)).append('<').append(elem.Name);
+        for (XmlAttribute attr : elem.Attributes) {
+            sb.append(' ').append(attr.Name).append("=[").append(attr.Value).append(']');
+        }
+        sb.append("> content=").append(elem.Content == null ? "null" : "[" + elem.Content + "]");
+        sb.append(" elements=").append(elem.Elements == null ? "null" : elem.Elements.size()).append('\n');
+        if (elem.Elements != null) {
+            for (XmlElement child : elem.Elements) {
+                Dump(child, sb, depth + 1);
+            }
+        }
+    }
+
+    static String Dump(InspectionsExport export) {
+        StringBuilder sb = new StringBuilder();
+        for (InspectionTypeInfo type : export.inspectionTypes) {
+            sb.append("type [").append(type.id).append("] [").append(type.name).append("] [").append(type.category)
+              .append("] [").append(type.description).append("]\n");
+        }
+        for (InspectionInstance inspection : export.inspections) {
+            sb.append("inspection [").append(inspection.id).append("] [").append(inspection.message)
+              .append("] [").append(inspection.filePath).append("] ").append(inspection.line)
+              .append(' ').append(inspection.severity).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//
+// Parse limits tests
+//   Each limit fails with the same XmlException message whether the document is a String, a mapped file
+//   or read through a Reader, and a document within the limits parses as without limits
+//
+public class Test_XmlParseLimits {
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void Test_Depth() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a><b><c/></b></a>";
+        AssertFails(xml, XmlParseLimits.NONE.WithMaxDepth(2), "Element <c> nested deeper than the limit of 2 levels");
+        AssertParses(xml, XmlParseLimits.NONE.WithMaxDepth(3));
+    }
+
+
+    @Test
+    public void Test_ElementCount() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a><b/><c/><d/></a>";
+        AssertFails(xml, XmlParseLimits.NONE.WithMaxElementCount(3), "More than 3 elements, limit reached at <d>");
+        AssertParses(xml, XmlParseLimits.NONE.WithMaxElementCount(4));
+    }
+
+
+    @Test
+    public void Test_AttributeCount() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a x=\"1\"><b x=\"1\" y='2' z=\"3\"/></a>";
+        AssertFails(xml, XmlParseLimits.NONE.WithMaxAttributesPerElement(2), "Element <b> has 3 attributes, more than the limit of 2");
+        AssertParses(xml, XmlParseLimits.NONE.WithMaxAttributesPerElement(3));
+    }
+
+
+    @Test
+    public void Test_ContentLength() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a><b>0123456789</b></a>";
+        AssertFails(xml, XmlParseLimits.NONE.WithMaxContentLength(9), "Content of <b> is 10 chars long, more than the limit of 9");
+        AssertParses(xml, XmlParseLimits.NONE.WithMaxContentLength(10));
+
+        String cdata = "<?xml version=\"1.0\"?><a><b><![CDATA[0123456789]]></b></a>";
+        AssertFails(cdata, XmlParseLimits.NONE.WithMaxContentLength(9), "Content of <b> is 10 chars long, more than the limit of 9");
+        AssertParses(cdata, XmlParseLimits.NONE.WithMaxContentLength(10));
+    }
+
+
+    @Test
+    public void Test_TotalBytes() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><a><b>text</b></a>";
+        XmlParseLimits limits = XmlParseLimits.NONE.WithMaxTotalBytes(xml.length() - 1);
+        String message = "Document of " + xml.length() + " bytes exceeds the limit of " + (xml.length() - 1) + " bytes";
+        assertEquals(message, assertThrows(XmlException.class, () -> XmlParsing.Go(xml, limits)).getMessage());
+        assertEquals(message, assertThrows(XmlException.class, () -> XmlParsing.Go(Write(xml), limits)).getMessage());
+        assertEquals(message, assertThrows(XmlException.class, () -> new XmlParser().Go(Write(xml), limits)).getMessage());
+        AssertParses(xml, XmlParseLimits.NONE.WithMaxTotalBytes(xml.length()));
+    }
+
+
+    // A long text fails once the buffer of the Reader parser is full, not once the whole text was read
+    @Test
+    public void Test_ContentLengthWhileReading() throws Exception {
+        int length = 1024 * 1024;
+        String xml = "<?xml version=\"1.0\"?><a><b>" + "x".repeat(length) + "</b></a>";
+        for (String content : new String[] { "x", "<![CDATA[x" }) {
+            String document = xml.replace("<b>x", "<b>" + content).replace("</b>", content.length() > 1 ? "]]></b>" : "</b>");
+            CountingReader reader = new CountingReader(document);
+            XmlReaderPullParser parser = new XmlReaderPullParser(reader, 64);
+            parser.setLimits(XmlParseLimits.NONE.WithMaxContentLength(100));
+            XmlException exc = assertThrows(XmlException.class, () -> PullTreeBuilder.Go(parser, XmlParseLimits.NONE));
+            assertTrue(exc.getMessage().startsWith("Content of <b> is "), exc.getMessage());
+            assertTrue(exc.getMessage().endsWith(" chars long, more than the limit of 100"), exc.getMessage());
+            assertTrue(reader.count < 1024, content + ": " + reader.count + " chars read");
+        }
+    }
+
+
+    @Test
+    public void Test_Immutable() {
+        XmlParseLimits limits = XmlParseLimits.NONE.WithMaxDepth(2).WithMaxContentLength(10);
+        assertNotSame(XmlParseLimits.NONE, limits);
+        assertEquals(2, limits.maxDepth);
+        assertEquals(10, limits.maxContentLength);
+        assertEquals(Integer.MAX_VALUE, limits.maxElementCount);
+        assertEquals(Integer.MAX_VALUE, XmlParseLimits.NONE.maxDepth);
+        assertEquals(Integer.MAX_VALUE, XmlParseLimits.NONE.maxContentLength);
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private void AssertFails(String xml, XmlParseLimits limits, String message) throws Exception {
+        assertEquals(message, assertThrows(XmlException.class, () -> XmlParsing.Go(xml, limits)).getMessage(), "String");
+        assertEquals(message, assertThrows(XmlException.class, () -> XmlParsing.Go(Write(xml), limits)).getMessage(), "Path");
+        assertEquals(message, assertThrows(XmlException.class, () -> new XmlParser().Go(new StringReader(xml), limits)).getMessage(), "Reader");
+        XmlReaderPullParser parser = new XmlReaderPullParser(new StringReader(xml), 16);
+        parser.setLimits(limits);
+        assertEquals(message, assertThrows(XmlException.class, () -> PullTreeBuilder.Go(parser, limits)).getMessage(), "Small buffer");
+    }
+
+    private void AssertParses(String xml, XmlParseLimits limits) throws Exception {
+        String expected = Test_XmlParseBackend.Dump(XmlParsing.Go(xml));
+        assertEquals(expected, Test_XmlParseBackend.Dump(XmlParsing.Go(xml, limits)));
+        assertEquals(Test_XmlParseBackend.Dump(XmlParsing.Go(Write(xml))), Test_XmlParseBackend.Dump(XmlParsing.Go(Write(xml), limits)));
+        XmlReaderPullParser parser = new XmlReaderPullParser(new StringReader(xml), 16);
+        parser.setLimits(limits);
+        assertEquals(Test_XmlParseBackend.Dump(XmlParsing.Go(Write(xml))), Test_XmlParseBackend.Dump(PullTreeBuilder.Go(parser, limits)));
+    }
+
+    private Path Write(String xml) throws IOException {
+        Path xmlFile = tempDir.resolve("Limits.xml");
+        Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+        return xmlFile;
+    }
+
+    private static class CountingReader extends Reader {
+        private final StringReader reader;
+        int count;
+
+        CountingReader(String str) {
+            reader = new StringReader(str);
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = reader.read(cbuf, off, len);
+            count += Math.max(read, 0);
+            return read;
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Parsing tests
+//   Port of SimpleXmlParserTests/Test_XmlParsing.cs, run against every parser of a String:
+//   XmlParsing.Go(), with interned values, GoLazy(), GoDocument() and XmlParser.
+//   The lazy DOM and the compact document are converted to XmlElement so every content is decoded.
+//
+public class Test_XmlParsing {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    interface StringParser {
+        XmlElement Go(String xmlContent) throws XmlException;
+    }
+
+    private final static Map<String, StringParser> PARSERS = new LinkedHashMap<>();
+    static {
+        PARSERS.put("Go", XmlParsing::Go);
+        PARSERS.put("Go interned", xmlContent -> XmlParsing.Go(xmlContent, true));
+        PARSERS.put("GoLazy", xmlContent -> XmlParsing.GoLazy(xmlContent).ToXmlElement());
+        PARSERS.put("GoDocument", xmlContent -> {
+            XmlDocument document = XmlParsing.GoDocument(xmlContent);
+            return document.ToXmlElement(document.getRoot());
+        });
+        PARSERS.put("XmlParser", xmlContent -> new XmlParser().Go(xmlContent));
+    }
+
+    private String xmlContent;
+
+    @BeforeEach
+    public void Setup() throws Exception {
+        xmlContent = ReadSample("Inspections.xml");
+    }
+
+
+    static Stream<Arguments> Fail1Cases() {
+        return Stream.of(
+            Arguments.of("<?xml", "<?hello", "'xml' expected"),
+            Arguments.of("<", "$", "'<' expected"),
+            Arguments.of(">", "$", "'>' expected"),
+            Arguments.of("</Description>", "<!--/Description-->", "No close elem </Description>"),
+            Arguments.of("Severity=\"WARN\"", "Severity=WARN", "'\"' open expected"),
+            Arguments.of("Severity=\"WARN\"", "Severity=\"WARN", "'\"' close expected"),
+            Arguments.of("<InspectionsExport>", "<!InspectionsExport>", "wrongly formatted xml comment"),
+            Arguments.of("<InspectionsExport>", "<!-InspectionsExport>", "wrongly formatted xml comment"),
+            Arguments.of("<InspectionsExport>", "<!--InspectionsExport>", "wrongly formatted xml comment"),
+            Arguments.of("<InspectionsExport>", "<!--InspectionsExport->", "wrongly formatted xml comment"),
+            Arguments.of("<![CDATA[", "<![CDATX[", "wrongly formatted CDATA open section, <![CDATX[ instead of <![CDATA["),
+            Arguments.of("<![CDATA[", "<![", "wrongly formatted CDATA open section, <![• <i>R instead of <![CDATA["),
+            Arguments.of("]]>", "]!>", "CDATA open section <![CDATA[ without close section ]]>"),
+            Arguments.of("]]>", "", "CDATA open section <![CDATA[ without close section ]]>"));
+    }
+
+    // Like the C# test, only the exception is checked, not its message
+    @ParameterizedTest
+    @MethodSource("Fail1Cases")
+    public void Test_Fail1(String from, String to, String expectedEx) {
+        String xml = xmlContent.replace(from, to);
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            assertThrows(XmlException.class, () -> parser.getValue().Go(xml), parser.getKey() + ": " + expectedEx);
+        }
+    }
+
+
+    @Test
+    public void Test_Fail2() {
+        String xml = xmlContent.replace(">", "$").replace("/", "$");
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            assertThrows(XmlException.class, () -> parser.getValue().Go(xml), parser.getKey() + ": '>' or '/' expected");
+        }
+    }
+
+
+    @Test
+    public void Test_OKRowOpenClose() throws Exception {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            XmlElement elemRoot = parser.getValue().Go("<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<Root>\r\n  <Elem Id=\"1\" />\r\n</Root>");
+            assertEquals(1, elemRoot.Elements.size(), parser.getKey());
+            XmlElement elem = elemRoot.Elements.get(0);
+            assertEquals("Elem", elem.Name, parser.getKey());
+            assertEquals(1, elem.Attributes.size(), parser.getKey());
+            XmlAttribute attr = elem.Attributes.get(0);
+            assertEquals("Id", attr.Name, parser.getKey());
+            assertEquals("1", attr.Value, parser.getKey());
+        }
+    }
+
+
+    @Test
+    public void Test_OKCommentRow() throws Exception {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            XmlElement elemRoot = parser.getValue().Go("<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<Root>\r\n  <!--Elem Id=\"1\"-->\r\n</Root>");
+            assertEquals(0, elemRoot.Elements.size(), parser.getKey());
+        }
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "\r\n", "<>[!@$ &amp; &gt; &lt; &quot;" })
+    public void Test_OK_CDATA(String str) throws Exception {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            XmlElement elemRoot = parser.getValue().Go("<?xml version=\"1.0\" encoding=\"utf-8\"?>\r\n<Root>\r\n  <![CDATA[" + str + "]]>\r\n</Root>");
+            assertEquals(str, elemRoot.Content, parser.getKey());
+            assertEquals(0, elemRoot.Elements.size(), parser.getKey());
+        }
+    }
+
+
+    // Every parser of a String and the memory-mapped parser build the same tree
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        String xml = ReadSample(fileName);
+        XmlElement root = XmlParsing.Go(xml);
+        assertEquals("InspectionsExport", root.Name);
+        assertEquals(2, root.Elements.size());
+        String expected = Test_XmlParseBackend.Dump(root);
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            assertEquals(expected, Test_XmlParseBackend.Dump(parser.getValue().Go(xml)), parser.getKey());
+        }
+        assertEquals(expected, Test_XmlParseBackend.Dump(XmlParsing.Go(SAMPLES.resolve(fileName))));
+    }
+
+
+    //
+    // Behaviors of the single pass scanner that differ from the original parser
+    //
+
+    // Character references are expanded like the named entities
+    @Test
+    public void Test_CharacterReferences() throws Exception {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            XmlElement elemRoot = parser.getValue().Go("<?xml?><Root>&#65;&#x42;&#233; &amp;#67;</Root>");
+            assertEquals("ABé &#67;", elemRoot.Content, parser.getKey());
+        }
+    }
+
+    // Parsing stops at the end of the root element, what follows is not read
+    @Test
+    public void Test_TailAfterRoot() throws Exception {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            XmlElement elemRoot = parser.getValue().Go("<?xml?><r>x</r><s");
+            assertEquals("r", elemRoot.Name, parser.getKey());
+            assertEquals("x", elemRoot.Content, parser.getKey());
+        }
+    }
+
+    // Close tags must match the open tags in order
+    @Test
+    public void Test_CrossedElements() {
+        for (Map.Entry<String, StringParser> parser : PARSERS.entrySet()) {
+            assertThrows(XmlException.class, () -> parser.getValue().Go("<?xml?><a><b></a></b>"), parser.getKey());
+        }
+    }
+
+
+    private static String ReadSample(String fileName) throws Exception {
+        String xml = new String(Files.readAllBytes(SAMPLES.resolve(fileName)), StandardCharsets.UTF_8);
+        return xml.startsWith("\uFEFF") ? xml.substring(1) : xml; // Dropped by the C# StreamReader
+    }
+}
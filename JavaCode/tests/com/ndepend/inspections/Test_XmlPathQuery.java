@@ -0,0 +1,153 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Path query tests
+//   Elements selected while streaming must be the ones a naive filter of the XmlParsing.Go() tree selects,
+//   with the memory-mapped parser and with the Reader parser
+//
+public class Test_XmlPathQuery {
+
+    private final static Path SAMPLES = Paths.get("..", "SimpleXmlParserTests");
+
+    private final static String[] PATHS = {
+        "InspectionsExport",
+        "/InspectionsExport/Inspections/InspectionInstance",
+        "InspectionsExport/Inspections/InspectionInstance[@Severity='WARN']",
+        "InspectionsExport/Inspections/InspectionInstance[@Severity=\"ERROR\"]/FilePath",
+        "InspectionsExport/Inspections/InspectionInstance[@Severity='WARN'][@Line='12']",
+        "InspectionsExport/Inspections/InspectionInstance[@Line = '8' ][@Severity='WARN']/Message",
+        "InspectionsExport/Inspections/InspectionInstance[@Id=\"Methods shouldn't be named NonCritical/\"]",
+        "InspectionsExport/*/InspectionTypeInfo[@Category='Design']",
+        "InspectionsExport/*/*/Description",
+        "*/*[@Missing='x']",
+        "*",
+        "Other/Inspections/InspectionInstance",   // Root mismatch
+        "InspectionsExport/Inspections/InspectionInstance/FilePath/None",
+    };
+
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Inspections.xml", "ComplexInspections.xml", "GurdipInspections.xml" })
+    public void Test_SampleExports(String fileName) throws Exception {
+        Path xmlFile = SAMPLES.resolve(fileName);
+        XmlElement root = XmlParsing.Go(xmlFile);
+        for (String path : PATHS) {
+            String expected = Dump(NaiveFilter(root, path));
+            XmlPathQuery query = XmlPathQuery.Compile(path);
+            assertEquals(expected, Dump(query.Go(xmlFile)), path);
+            try (XmlPullParser parser = XmlMappedPullParser.Open(xmlFile)) {
+                assertEquals(expected, Dump(query.Go(parser)), path);
+            }
+            try (XmlPullParser parser = new XmlReaderPullParser(Files.newInputStream(xmlFile))) {
+                assertEquals(expected, Dump(query.Go(parser)), path);
+            }
+        }
+    }
+
+
+    @Test
+    public void Test_Selected() throws Exception {
+        Path xmlFile = SAMPLES.resolve("GurdipInspections.xml");
+        assertEquals(31, XmlPathQuery.Compile("InspectionsExport/Inspections/InspectionInstance[@Severity='ERROR']").Go(xmlFile).size());
+        assertEquals(0, XmlPathQuery.Compile("Other").Go(xmlFile).size());
+    }
+
+
+    @Test
+    public void Test_Compile() throws Exception {
+        assertEquals("a/b[@c='d']", XmlPathQuery.Compile("a/b[@c='d']").toString());
+        for (String path : new String[] {
+                "", "/", "a//b", "a/", "a/[@c='d']", "a[c='d']", "a[@='d']", "a[@c=d]", "a[@c='d'", "a[@c='d]",
+                "a[@c='d'x]", "a[@c]", "a[@c='d']b" }) {
+            XmlException exc = assertThrows(XmlException.class, () -> XmlPathQuery.Compile(path), path);
+            assertTrue(exc.getMessage().endsWith(" in path " + path), exc.getMessage());
+        }
+    }
+
+
+    @Test
+    public void Test_Fail() throws Exception {
+        XmlPathQuery query = XmlPathQuery.Compile("a/b");
+        assertThrows(XmlException.class, () -> query.Go(new XmlReaderPullParser(new StringReader("<?xml?><a><b>"))));
+        assertThrows(XmlException.class, () -> query.Go(new XmlReaderPullParser(new StringReader("<?xml?><a><c>"))));
+    }
+
+
+    //
+    // Naive filter
+    //   Every element of the tree is compared with its step, no subtree is skipped
+    //
+
+    private final static Pattern STEP = Pattern.compile("/?([^/\\[]+)((?:\\[[^\\]'\"]*(?:'[^']*'|\"[^\"]*\")\\s*\\])*)");
+    private final static Pattern PREDICATE = Pattern.compile("\\[\\s*@([^=]+?)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\]");
+
+    private static List<XmlElement> NaiveFilter(XmlElement root, String path) {
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<List<String[]>> predicates = new ArrayList<>();
+        Matcher step = STEP.matcher(path);
+        while (step.find()) {
+            names.add(step.group(1).trim());
+            ArrayList<String[]> stepPredicates = new ArrayList<>();
+            Matcher predicate = PREDICATE.matcher(step.group(2));
+            while (predicate.find()) {
+                stepPredicates.add(new String[] { predicate.group(1), predicate.group(2) != null ? predicate.group(2) : predicate.group(3) });
+            }
+            predicates.add(stepPredicates);
+        }
+        ArrayList<XmlElement> selected = new ArrayList<>();
+        Collect(root, 0, names, predicates, selected);
+        return selected;
+    }
+
+    private static void Collect(XmlElement elem, int stepIndex, List<String> names, List<List<String[]>> predicates, List<XmlElement> selected) {
+        if (!names.get(stepIndex).equals("*") && !names.get(stepIndex).equals(elem.Name)) {
+            return;
+        }
+        for (String[] predicate : predicates.get(stepIndex)) {
+            if (!predicate[1].equals(AttributeValue(elem, predicate[0]))) {
+                return;
+            }
+        }
+        if (stepIndex == names.size() - 1) {
+            selected.add(elem);
+        } else if (elem.Elements != null) {
+            for (XmlElement child : elem.Elements) {
+                Collect(child, stepIndex + 1, names, predicates, selected);
+            }
+        }
+    }
+
+    private static String AttributeValue(XmlElement elem, String name) {
+        for (XmlAttribute attr : elem.Attributes) {
+            if (attr.Name.equals(name)) {
+                return attr.Value;
+            }
+        }
+        return null;
+    }
+
+    private static String Dump(List<XmlElement> elements) {
+        StringBuilder sb = new StringBuilder().append(elements.size()).append(" elements\n");
+        for (XmlElement elem : elements) {
+            sb.append(Test_XmlParseBackend.Dump(elem));
+        }
+        return sb.toString();
+    }
+}
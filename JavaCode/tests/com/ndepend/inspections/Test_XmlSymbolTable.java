@@ -0,0 +1,45 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+//
+// Symbol table tests
+//   Every lookup flavor finds the same symbols, a full table still returns equal Strings
+//
+public class Test_XmlSymbolTable {
+
+    @Test
+    public void Test_Flavors() {
+        XmlSymbolTable table = new XmlSymbolTable();
+        String name = table.Intern("Severity");
+        assertSame(name, table.Intern("xSeverity", 1, 9));
+        assertSame(name, table.Intern("Severity".toCharArray(), 0, 8));
+        assertSame(name, table.Intern(ByteBuffer.wrap("Severity".getBytes(StandardCharsets.UTF_8)), 0, 8));
+        String accented = table.Intern("Sévérité");
+        byte[] utf8 = "Sévérité".getBytes(StandardCharsets.UTF_8);
+        assertSame(accented, table.Intern(ByteBuffer.wrap(utf8), 0, utf8.length));
+        assertEquals(2, table.getCount());
+    }
+
+    @Test
+    public void Test_Full() {
+        XmlSymbolTable table = new XmlSymbolTable(2, 16);
+        String a = table.Intern("a".toCharArray(), 0, 1);
+        table.Intern("b");
+        assertEquals(XmlSymbolTable.NO_ID, table.Id("c".toCharArray(), 0, 1));
+        assertEquals(XmlSymbolTable.NO_ID, table.Id(ByteBuffer.wrap(new byte[] { 'c' }), 0, 1));
+        String c = table.Intern("c".toCharArray(), 0, 1);
+        assertEquals("c", c);
+        assertNotSame(c, table.Intern("c".toCharArray(), 0, 1));
+        assertSame(a, table.Intern("a".toCharArray(), 0, 1));
+        assertEquals("0123456789abcdefg", table.Intern("0123456789abcdefg".toCharArray(), 0, 17)); // Longer than maxLength
+        assertEquals(2, table.getCount());
+    }
+}
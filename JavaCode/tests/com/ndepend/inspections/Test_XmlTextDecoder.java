@@ -0,0 +1,162 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+//
+// Text decoder tests
+//   The single pass decoder must give the content of the former multi-pass ParseContent() (lines read
+//   with BufferedReader, trimmed and joined, then one String.replace() per entity) for the entities it
+//   knew, and expand &apos; &#NNN; &#xHH; while keeping unknown and malformed entities as is.
+//   The String, char[] and UTF-8 ByteBuffer inputs give the same result.
+//
+public class Test_XmlTextDecoder {
+
+    private final static String[] TOKENS = {
+        "a", "Z", "x y", " ", "  ", "\t", "\r", "\n", "\r\n", "\n\n", "&gt;", "&lt;", "&quot;", "&amp;", "&#13;", "&#10;",
+        "&", ";", "amp;", "gt", "lt;", "&gt", "&am", "&bogus;", "&&", "é", "😀",
+    };
+
+
+    @Test
+    public void Test_SameAsMultiPass() {
+        Random random = new Random(42);
+        XmlTextDecoder decoder = new XmlTextDecoder();
+        for (int round = 0; round < 20000; round++) {
+            StringBuilder sb = new StringBuilder();
+            int tokenCount = random.nextInt(12);
+            for (int i = 0; i < tokenCount; i++) {
+                sb.append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            String text = sb.toString();
+            AssertDecoded(decoder, MultiPassDecode(text), text);
+        }
+    }
+
+
+    // Entities the multi-pass decoding did not expand, and malformed ones kept as is
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', quoteCharacter = '`', value = {
+        "&apos;|'",
+        "a&apos;b&quot;c|a'b\"c",
+        "&#65;&#066;&#0067;|ABC",
+        "&#x41;&#X42;&#x6a;&#x6A;|ABjj",
+        "&#1114111;|􏿿",
+        "&#x1F600;|😀",
+        "&#128512;x|😀x",
+        "😀&amp;😀|😀&😀",
+        "&#xD800;|&#xD800;",
+        "&#xDFFF;&#xD83D;&#xDE00;|&#xDFFF;&#xD83D;&#xDE00;",
+        "&#x110000;|&#x110000;",
+        "&#99999999999;|&#99999999999;",
+        "&#x00000041;|A",
+        "&#x000000041;|&#x000000041;",
+        "&#;&#x;&#X;|&#;&#x;&#X;",
+        "&#12a;&#xG1;&#-1;&#+1;|&#12a;&#xG1;&#-1;&#+1;",
+        "&#١٢;|&#١٢;",
+        "&nbsp;&AMP;&Gt;|&nbsp;&AMP;&Gt;",
+        "&apos|&apos",
+        "a &|a &",
+        "&|&",
+        "&amp|&amp",
+        "&&amp;;|&&;",
+        "&amp;apos;|&apos;",
+        "&#38;amp;|&amp;",
+        "&#38;#38;|&#38;",
+        "` &#32; `|` `",
+    })
+    public void Test_Entities(String text, String expected) {
+        AssertDecoded(new XmlTextDecoder(), expected, text);
+    }
+
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', quoteCharacter = '`', value = {
+        "`  a  `|a",
+        "`\r\n\r\n  a\r\n  b  \r\n\r\n`|`a\nb`",
+        "`a\r\rb`|`a\n\nb`",
+        "`a\n\r\nb`|`a\n\nb`",
+        "`a\r\n\nb`|`a\n\nb`",
+        "`\t a &#10; b \t`|`a \n b`",
+        "`&#13;&#10;`|`\r\n`",
+        "`\u0001a\u0000`|a",
+        "` a `|` a `",
+        "`   `|``",
+        "``|``",
+    })
+    public void Test_LinesAndTrim(String text, String expected) {
+        AssertDecoded(new XmlTextDecoder(), expected, text);
+        assertEquals(expected, MultiPassDecode(text));
+    }
+
+
+    // The buffer is reused for a shorter text after a longer one
+    @Test
+    public void Test_BufferReuse() {
+        XmlTextDecoder decoder = new XmlTextDecoder();
+        AssertDecoded(decoder, "<" + "x".repeat(1000) + ">", "&lt;" + "x".repeat(1000) + "&gt;");
+        AssertDecoded(decoder, "a\nb", " a \r\n b ");
+        AssertDecoded(decoder, "&", "&amp;");
+        assertEquals(3 * 3, decoder.entityCount);   // Each text is decoded from the 3 inputs
+    }
+
+
+    //
+    // Helpers
+    //
+
+    private static void AssertDecoded(XmlTextDecoder decoder, String expected, String text) {
+        String xml = "<a>" + text + "</a>";
+        int end = 3 + text.length();
+        assertEquals(expected, decoder.Decode(xml, 3, end), text);
+        assertEquals(expected, decoder.Decode(xml.toCharArray(), 3, end), text);
+        byte[] prefix = "<a>".getBytes(StandardCharsets.UTF_8);
+        byte[] utf8 = xml.getBytes(StandardCharsets.UTF_8);
+        int byteEnd = prefix.length + text.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(expected, decoder.Decode(ByteBuffer.wrap(utf8), prefix.length, byteEnd), text);
+        assertEquals(expected, TreeScanner.ParseContent(xml, 3, end), text);
+    }
+
+    // ParseContent() before the single pass decoder, on the text between the tags
+    private static String MultiPassDecode(String untrimmedContent) {
+        ArrayList<String> list = new ArrayList<>();
+        boolean aNonEmptyLineHasBeenFound = false;
+        try (BufferedReader reader = new BufferedReader(new StringReader(untrimmedContent))) {
+            String line = reader.readLine();
+            while (line != null) {
+                line = line.trim();
+                if (line.length() > 0) {
+                    aNonEmptyLineHasBeenFound = true;
+                }
+                if (aNonEmptyLineHasBeenFound) {
+                    list.add(line);
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException exc) {
+        }
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i).length() > 0) { break; }
+            list.remove(i);
+        }
+        String content = String.join("\n", list);
+        content = content.replace("&gt;", ">");
+        content = content.replace("&lt;", "<");
+        content = content.replace("&quot;", "\"");
+        content = content.replace("&#13;", "\r");
+        content = content.replace("&#10;", "\n");
+        content = content.replace("&amp;", "&");
+        return content;
+    }
+}
@@ -0,0 +1,205 @@
+package com.ndepend.inspections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+//
+// Writer tests
+//   Random trees and exports written by XmlWriter, indented or not, must be read back by XmlParsing.Go()
+//   to the same Names, Contents and attribute Values, and by FillInspectionsModel to the same model
+//
+public class Test_XmlWriter {
+
+    private final static String[] NAMES = { "a", "Row", "x-y", "_1", "ns:n", "élément" };
+    private final static String TEXT_CHARS = "ab <>&;#\"'\n\n\r\t  é€😀x";
+    private final static String VALUE_CHARS = "ab <>&;#=/ é€😀";
+
+    @TempDir
+    Path tempDir;
+
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void Test_Trees(boolean indent) throws Exception {
+        Random random = new Random(indent ? 1 : 2);
+        for (int i = 0; i < 500; i++) {
+            XmlElement root = RandomElement(random, 0);
+            String expected = Test_XmlParseBackend.Dump(root);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            XmlWriter writer = new XmlWriter(output, 64); // Flushed many times
+            writer.indent = indent;
+            writer.Write(root);
+            writer.Flush();
+            String xml = output.toString(StandardCharsets.UTF_8);
+            assertEquals(expected, Test_XmlParseBackend.Dump(XmlParsing.Go(xml)), xml);
+
+            Path xmlFile = tempDir.resolve("Tree.xml");
+            XmlWriter.Go(root, xmlFile);
+            assertEquals(expected, Test_XmlParseBackend.Dump(XmlParsing.Go(xmlFile)), xml);
+        }
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void Test_Exports(boolean indent) throws Exception {
+        Random random = new Random(indent ? 3 : 4);
+        for (int i = 0; i < 200; i++) {
+            InspectionsExport export = RandomExport(random);
+            String expected = Test_XmlParseBackend.Dump(export);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            XmlWriter writer = new XmlWriter(output, 64);
+            writer.indent = indent;
+            writer.Write(export);
+            writer.Flush();
+            String xml = output.toString(StandardCharsets.UTF_8);
+            assertEquals(expected, Test_XmlParseBackend.Dump(FillInspectionsModel.Go(XmlParsing.Go(xml))), xml);
+
+            Path xmlFile = tempDir.resolve("Export.xml");
+            XmlWriter.Go(export, xmlFile);
+            try (XmlPullParser parser = XmlParsing.OpenPullParser(xmlFile)) {
+                assertEquals(expected, Test_XmlParseBackend.Dump(FillInspectionsModel.Go(parser)), xml);
+            }
+        }
+    }
+
+
+    @Test
+    public void Test_Quotes() throws Exception {
+        XmlElement root = NewElement("a", "");
+        AddAttribute(root, "single", "it's");
+        AddAttribute(root, "double", "say \"x\"");
+        Path xmlFile = tempDir.resolve("Quotes.xml");
+        XmlWriter.Go(root, xmlFile);
+        assertEquals(Test_XmlParseBackend.Dump(root), Test_XmlParseBackend.Dump(XmlParsing.Go(xmlFile)));
+
+        AddAttribute(root, "both", "it's \"x\"");
+        assertThrows(XmlException.class, () -> XmlWriter.Go(root, xmlFile));
+        InspectionsExport export = new InspectionsExport();
+        InspectionInstance inspection = new InspectionInstance();
+        inspection.id = "it's \"x\"";
+        export.inspections.add(inspection);
+        assertThrows(XmlException.class, () -> XmlWriter.Go(export, xmlFile));
+    }
+
+
+    @Test
+    public void Test_RawAttributeValues() throws Exception {
+        // Read back by the built-in parsers, rejected by StAX
+        for (String value : new String[] { "a<b", "a & b" }) {
+            XmlElement root = NewElement("a", "");
+            AddAttribute(root, "v", value);
+            Path xmlFile = tempDir.resolve("Raw.xml");
+            XmlWriter.Go(root, xmlFile);
+            assertEquals(value, XmlParsing.Go(xmlFile).Attributes.get(0).Value);
+            assertEquals(value, XmlParsing.Go(Files.readString(xmlFile)).Attributes.get(0).Value);
+            assertThrows(XmlException.class, () -> XmlParseBackendPolicy.Always(XmlParseBackend.STAX).Go(xmlFile));
+        }
+    }
+
+
+    //
+    // Random documents
+    //
+
+    private static XmlElement RandomElement(Random random, int depth) {
+        XmlElement elem = NewElement(NAMES[random.nextInt(NAMES.length)], null);
+        int attributeCount = random.nextInt(3);
+        for (int i = 0; i < attributeCount; i++) {
+            AddAttribute(elem, "at" + i, RandomValue(random));
+        }
+        switch (depth < 4 ? random.nextInt(3) : random.nextInt(2)) {
+            case 0:
+                break; // <xyz/>
+            case 1:
+                elem.Content = RandomText(random);
+                elem.Elements = new ArrayList<>();
+                break;
+            default:
+                elem.Content = "";
+                elem.Elements = new ArrayList<>();
+                int childCount = 1 + random.nextInt(4);
+                for (int i = 0; i < childCount; i++) {
+                    elem.Elements.add(RandomElement(random, depth + 1));
+                }
+                break;
+        }
+        return elem;
+    }
+
+    private static InspectionsExport RandomExport(Random random) {
+        InspectionsExport export = new InspectionsExport();
+        int typeCount = random.nextInt(4);
+        for (int i = 0; i < typeCount; i++) {
+            InspectionTypeInfo type = new InspectionTypeInfo();
+            type.id = RandomValue(random);
+            type.name = random.nextBoolean() ? RandomValue(random) : null;
+            type.category = RandomValue(random);
+            type.description = random.nextBoolean() ? RandomText(random) : null;
+            export.inspectionTypes.add(type);
+        }
+        int inspectionCount = random.nextInt(6);
+        for (int i = 0; i < inspectionCount; i++) {
+            InspectionInstance inspection = new InspectionInstance();
+            inspection.id = RandomValue(random);
+            inspection.message = random.nextBoolean() ? RandomText(random) : null;
+            inspection.filePath = random.nextBoolean() ? RandomText(random) : null;
+            inspection.line = random.nextInt(10000);
+            inspection.severity = random.nextBoolean() ? "WARN" : "ERROR";
+            export.inspections.add(inspection);
+        }
+        return export;
+    }
+
+    // Any char the writer must escape or protect from the line trim
+    private static String RandomText(Random random) {
+        return RandomString(random, TEXT_CHARS, random.nextInt(24));
+    }
+
+    // " or ' but not both, the other quote is used around the value
+    private static String RandomValue(Random random) {
+        return RandomString(random, VALUE_CHARS + (random.nextBoolean() ? '"' : '\''), random.nextInt(12));
+    }
+
+    private static String RandomString(Random random, String chars, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int index = random.nextInt(chars.length());
+            if (Character.isSurrogate(chars.charAt(index))) {
+                index -= Character.isLowSurrogate(chars.charAt(index)) ? 1 : 0;
+                sb.append(chars, index, index + 2); // Whole surrogate pair
+            } else {
+                sb.append(chars.charAt(index));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static XmlElement NewElement(String name, String content) {
+        XmlElement elem = new XmlElement();
+        elem.Name = name;
+        elem.Content = content;
+        elem.Attributes = new ArrayList<>();
+        elem.Elements = content == null ? null : new ArrayList<>();
+        return elem;
+    }
+
+    private static void AddAttribute(XmlElement elem, String name, String value) {
+        XmlAttribute attr = new XmlAttribute();
+        attr.Name = name;
+        attr.Value = value;
+        elem.Attributes.add(attr);
+    }
+}